@@ -0,0 +1,186 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+
+import org.isisaddons.module.poly.PolyModule;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkCache;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkMemo;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannel;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLink;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLinks;
+import org.isisaddons.module.poly.fixture.dom.modules.party.Parties;
+import org.isisaddons.module.poly.fixture.dom.modules.party.Party;
+import org.isisaddons.module.poly.fixture.scripts.scenarios.RecreateParties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.isis.applib.AppManifest;
+import org.apache.isis.applib.fixturescripts.FixtureScript;
+import org.apache.isis.applib.fixturescripts.FixtureScripts;
+import org.apache.isis.core.integtestsupport.IsisSystemForTest;
+import org.apache.isis.objectstore.jdo.datanucleus.IsisConfigurationForJdoIntegTests;
+
+/**
+ * Measures the same link operations as {@link org.isisaddons.module.poly.dom.LinkBenchmark}, but against a real Isis
+ * session on the embedded (in-memory HSQLDB) database used by the integration tests.
+ *
+ * <p>
+ *     The party and communication channel created on setup are committed; each invocation then runs in its own
+ *     transaction, which is aborted afterwards so that every invocation sees the same data.  The link memo and cache
+ *     are cleared before each invocation, so every lookup hits the database.  The Isis session is bound to the
+ *     thread, hence a single benchmark thread.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class EmbeddedLinkBenchmark {
+
+    private IsisSystemForTest isft;
+
+    private Parties parties;
+    private CommunicationChannelOwnerLinks communicationChannelOwnerLinks;
+    private PolymorphicAssociationLinkMemo linkMemo;
+    private PolymorphicAssociationLinkCache linkCache;
+
+    private Party owner;
+    private Party otherParty;
+    private CommunicationChannel communicationChannel;
+
+    @Setup(Level.Trial)
+    public void setUpSystem() throws Exception {
+        isft = new IsisSystemForTest.Builder()
+                .withLoggingAt(org.apache.log4j.Level.WARN)
+                .with(new AppManifest() {
+                    @Override
+                    public List<Class<?>> getModules() {
+                        return Lists.<Class<?>>newArrayList(PolyModule.class);
+                    }
+
+                    @Override
+                    public List<Class<?>> getAdditionalServices() {
+                        return null;
+                    }
+
+                    @Override
+                    public String getAuthenticationMechanism() {
+                        return null;
+                    }
+
+                    @Override
+                    public String getAuthorizationMechanism() {
+                        return null;
+                    }
+
+                    @Override
+                    public List<Class<? extends FixtureScript>> getFixtures() {
+                        return null;
+                    }
+
+                    @Override
+                    public Map<String, String> getConfigurationProperties() {
+                        return null;
+                    }
+                })
+                .with(new IsisConfigurationForJdoIntegTests())
+                .build()
+                .setUpSystem();
+        IsisSystemForTest.set(isft);
+
+        parties = isft.getService(Parties.class);
+        communicationChannelOwnerLinks = isft.getService(CommunicationChannelOwnerLinks.class);
+        linkMemo = isft.getService(PolymorphicAssociationLinkMemo.class);
+        linkCache = isft.getService(PolymorphicAssociationLinkCache.class);
+
+        isft.beginTran();
+        final RecreateParties fs = new RecreateParties();
+        isft.getService(FixtureScripts.class).runFixtureScript(fs, null);
+        fs.getParties().get(0).addCommunicationChannel("0207 123 4567");
+        isft.commitTran();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownSystem() throws Exception {
+        isft.closeSession();
+    }
+
+    @Setup(Level.Invocation)
+    public void beginTransaction() {
+        isft.beginTran();
+        linkMemo.invalidateAll();
+        linkCache.invalidateAll();
+
+        final List<Party> partyList = parties.listAll();
+        owner = partyList.get(0);
+        otherParty = partyList.get(1);
+        communicationChannel = owner.getCommunicationChannels().get(0);
+
+        linkMemo.invalidateAll();
+        linkCache.invalidateAll();
+    }
+
+    @TearDown(Level.Invocation)
+    public void abortTransaction() {
+        isft.abortTran();
+    }
+
+    @Benchmark
+    public Object createLink() {
+        return communicationChannelOwnerLinks.createLink(communicationChannel, otherParty);
+    }
+
+    @Benchmark
+    public Object findByOwner() {
+        return communicationChannelOwnerLinks.findByOwner(owner);
+    }
+
+    @Benchmark
+    public Object findByOwner_getPolymorphicReference() {
+        final CommunicationChannelOwnerLink link = communicationChannelOwnerLinks.findByOwner(owner).get(0);
+        return link.getPolymorphicReference();
+    }
+
+    @Benchmark
+    public Object findByOwner_title() {
+        final CommunicationChannelOwnerLink link = communicationChannelOwnerLinks.findByOwner(owner).get(0);
+        return link.title();
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the reflective construction of {@link PolymorphicAssociationLink.InstantiateEvent}s (as previously used by
+ * {@link PolymorphicAssociationLink.Factory}) with a method handle looked up and adapted as the factory now does, and
+ * measures {@link PolymorphicAssociationLink.Factory#supportsLink(Object)} with and without the subtype cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FactoryBenchmark {
+
+    private PolymorphicAssociationLink.Factory<StubLink.Subject, StubLink.Reference, StubLink, StubLink.InstantiateEvent> factory;
+    private Constructor<StubLink.InstantiateEvent> reflectiveConstructor;
+    private MethodHandle eventConstructor;
+
+    private StubLink.Subject subject;
+    private StubLink.Reference reference;
+
+    @Setup
+    public void setUp() throws Exception {
+        factory = new PolymorphicAssociationLink.Factory<>(
+                this,
+                StubLink.Subject.class,
+                StubLink.Reference.class,
+                StubLink.class,
+                StubLink.InstantiateEvent.class);
+        new StubServices(new StubLink.ForReferenceImpl.SubtypeResolver()).injectInto(factory);
+
+        reflectiveConstructor = StubLink.InstantiateEvent.class.getConstructor(
+                Object.class, StubLink.Subject.class, StubLink.Reference.class);
+        eventConstructor = MethodHandles.publicLookup()
+                .findConstructor(StubLink.InstantiateEvent.class,
+                        MethodType.methodType(void.class, Object.class, StubLink.Subject.class, StubLink.Reference.class))
+                .asType(MethodType.methodType(
+                        PolymorphicAssociationLink.InstantiateEvent.class, Object.class, Object.class, Object.class));
+
+        subject = new StubLink.Subject("subject");
+        reference = new StubLink.ReferenceImpl();
+    }
+
+    @Benchmark
+    public Object instantiateEvent_reflection() throws Exception {
+        return reflectiveConstructor.newInstance(this, subject, reference);
+    }
+
+    @Benchmark
+    public Object instantiateEvent_methodHandle() throws Throwable {
+        return (PolymorphicAssociationLink.InstantiateEvent)
+                eventConstructor.invokeExact((Object) this, (Object) subject, (Object) reference);
+    }
+
+    @Benchmark
+    public boolean supportsLink_cached() {
+        return factory.supportsLink(reference);
+    }
+
+    @Benchmark
+    public boolean supportsLink_uncached() {
+        factory.invalidateSubtypeCache();
+        return factory.supportsLink(reference);
+    }
+
+}
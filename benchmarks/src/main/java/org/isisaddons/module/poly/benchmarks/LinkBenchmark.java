@@ -0,0 +1,109 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLink;
+import org.isisaddons.module.poly.dom.TypedPolymorphicReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the per-link operations - {@link PolymorphicAssociationLink.Factory#createLink(Object, Object) createLink},
+ * {@link PolymorphicAssociationLink#getPolymorphicReference() getPolymorphicReference} (by bookmark, and through a
+ * {@link TypedPolymorphicReference typed reference}), {@link PolymorphicAssociationLink#compareTo(PolymorphicAssociationLink) compareTo}
+ * and {@link PolymorphicAssociationLink#title() title} - against {@link StubServices stubbed} Isis services.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LinkBenchmark {
+
+    private StubServices services;
+    private PolymorphicAssociationLink.Factory<StubLink.Subject, StubLink.Reference, StubLink, StubLink.InstantiateEvent> factory;
+
+    private StubLink.Subject subject;
+    private StubLink.Reference reference;
+    private StubLink.Reference typedReference;
+
+    private StubLink link;
+    private StubLink otherLink;
+    private StubLink typedLink;
+
+    @Setup
+    public void setUp() {
+        services = new StubServices(
+                new StubLink.ForReferenceImpl.SubtypeResolver(),
+                new StubLink.ForTypedReferenceImpl.SubtypeResolver());
+        factory = new PolymorphicAssociationLink.Factory<>(
+                this,
+                StubLink.Subject.class,
+                StubLink.Reference.class,
+                StubLink.class,
+                StubLink.InstantiateEvent.class,
+                PolymorphicAssociationLink.Factory.PersistStrategy.MANUAL);
+        services.injectInto(factory);
+
+        subject = new StubLink.Subject("a");
+        reference = new StubLink.ReferenceImpl();
+        typedReference = new StubLink.TypedReferenceImpl();
+
+        link = factory.createLink(subject, reference);
+        otherLink = factory.createLink(new StubLink.Subject("b"), reference);
+        typedLink = factory.createLink(subject, typedReference);
+    }
+
+    @Benchmark
+    public Object createLink() {
+        return factory.createLink(subject, reference);
+    }
+
+    @Benchmark
+    public Object getPolymorphicReference_bookmark() {
+        return link.getPolymorphicReference();
+    }
+
+    @Benchmark
+    public Object getPolymorphicReference_typed() {
+        return typedLink.getPolymorphicReference();
+    }
+
+    @Benchmark
+    public int compareTo() {
+        return link.compareTo(otherLink);
+    }
+
+    @Benchmark
+    public Object title() {
+        return link.title();
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.benchmarks;
+
+import org.isisaddons.module.poly.dom.LinkSubtypeResolverAbstract;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLink;
+import org.isisaddons.module.poly.dom.TypedPolymorphicReference;
+
+/**
+ * Minimal link family, independent of any persistence, for use by the benchmarks.
+ */
+public abstract class StubLink extends PolymorphicAssociationLink<StubLink.Subject, StubLink.Reference, StubLink> {
+
+    public static class Subject implements Comparable<Subject> {
+        private final String name;
+
+        public Subject(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int compareTo(final Subject other) {
+            return name.compareTo(other.name);
+        }
+    }
+
+    public interface Reference {
+    }
+
+    public static class ReferenceImpl implements Reference {
+    }
+
+    public static class TypedReferenceImpl implements Reference {
+    }
+
+    public static class InstantiateEvent
+            extends PolymorphicAssociationLink.InstantiateEvent<Subject, Reference, StubLink> {
+
+        public InstantiateEvent(final Object source, final Subject subject, final Reference reference) {
+            super(StubLink.class, source, subject, reference);
+        }
+    }
+
+    public static class ForReferenceImpl extends StubLink {
+
+        public static class SubtypeResolver extends LinkSubtypeResolverAbstract<StubLink> {
+            public SubtypeResolver() {
+                super(StubLink.class, ReferenceImpl.class, ForReferenceImpl.class);
+            }
+        }
+    }
+
+    /**
+     * Declares a {@link TypedPolymorphicReference typed reference} to a {@link TypedReferenceImpl}.
+     */
+    public static class ForTypedReferenceImpl extends StubLink {
+
+        public static class SubtypeResolver extends LinkSubtypeResolverAbstract<StubLink> {
+            public SubtypeResolver() {
+                super(StubLink.class, TypedReferenceImpl.class, ForTypedReferenceImpl.class);
+            }
+        }
+
+        @Override
+        public void setPolymorphicReference(final Reference polymorphicReference) {
+            super.setPolymorphicReference(polymorphicReference);
+            setTypedReference((TypedReferenceImpl) polymorphicReference);
+        }
+
+        private TypedReferenceImpl typedReference;
+
+        @TypedPolymorphicReference
+        public TypedReferenceImpl getTypedReference() {
+            return typedReference;
+        }
+
+        public void setTypedReference(final TypedReferenceImpl typedReference) {
+            this.typedReference = typedReference;
+        }
+    }
+
+    public StubLink() {
+        super("{subject} references {polymorphicReference}");
+    }
+
+    private Subject subject;
+
+    @Override
+    public Subject getSubject() {
+        return subject;
+    }
+
+    @Override
+    public void setSubject(final Subject subject) {
+        this.subject = subject;
+    }
+
+    private String polymorphicObjectType;
+
+    @Override
+    public String getPolymorphicObjectType() {
+        return polymorphicObjectType;
+    }
+
+    @Override
+    public void setPolymorphicObjectType(final String polymorphicObjectType) {
+        this.polymorphicObjectType = polymorphicObjectType;
+    }
+
+    private String polymorphicIdentifier;
+
+    @Override
+    public String getPolymorphicIdentifier() {
+        return polymorphicIdentifier;
+    }
+
+    @Override
+    public void setPolymorphicIdentifier(final String polymorphicIdentifier) {
+        this.polymorphicIdentifier = polymorphicIdentifier;
+    }
+
+}
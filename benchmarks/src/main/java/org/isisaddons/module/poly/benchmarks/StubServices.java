@@ -0,0 +1,234 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.benchmarks;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.isisaddons.module.poly.dom.LinkSubtypeResolver;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLink;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkCache;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkMemo;
+import org.isisaddons.module.poly.dom.PolymorphicObjectTypeMigration;
+
+import org.apache.isis.applib.services.bookmark.Bookmark;
+import org.apache.isis.applib.services.bookmark.BookmarkService2;
+import org.apache.isis.applib.services.repository.RepositoryService;
+import org.apache.isis.applib.services.title.TitleService;
+import org.apache.isis.applib.services.xactn.TransactionService;
+
+/**
+ * Stand-ins for the Isis services used by links and their factory, so that the benchmarks measure the module's own
+ * code rather than the framework's.
+ *
+ * <p>
+ *     Every reference is bookmarked as the same object type, with a per-instance identifier, and looked up again from
+ *     those bookmarks; every object is persistent; links are instantiated reflectively and have these services
+ *     injected; titles are constant; and there is no current transaction (so nothing is memoized across calls).
+ * </p>
+ *
+ * <p>
+ *     As Isis itself does, the services are injected into the <tt>@Inject</tt> fields of the module's objects (a
+ *     <tt>List</tt> field receiving every matching service), so no access to their package-private state is needed.
+ *     Any service not stubbed here is left <tt>null</tt>.
+ * </p>
+ */
+class StubServices {
+
+    interface Answer {
+        Object answer(Object[] args) throws Exception;
+    }
+
+    final BookmarkService2 bookmarkService;
+    final RepositoryService repositoryService;
+    final TitleService titleService;
+    final TransactionService transactionService;
+
+    final PolymorphicAssociationLinkMemo linkMemo = new PolymorphicAssociationLinkMemo();
+    // never initialized, so disabled
+    final PolymorphicAssociationLinkCache linkCache = new PolymorphicAssociationLinkCache();
+    final PolymorphicObjectTypeMigration objectTypeMigration = new PolymorphicObjectTypeMigration();
+
+    private final List<Object> services = new ArrayList<>();
+
+    private final Map<Object, Bookmark> bookmarkByObject = Collections.synchronizedMap(new HashMap<Object, Bookmark>());
+    private final Map<String, Object> objectByBookmark = Collections.synchronizedMap(new HashMap<String, Object>());
+
+    StubServices(final LinkSubtypeResolver... linkSubtypeResolvers) {
+        bookmarkService = stub(BookmarkService2.class, answers(
+                "bookmarkFor", new Answer() {
+                    @Override
+                    public Object answer(final Object[] args) {
+                        return bookmarkFor(args[0]);
+                    }
+                },
+                "lookup", new Answer() {
+                    @Override
+                    public Object answer(final Object[] args) {
+                        return objectByBookmark.get(args[0].toString());
+                    }
+                }));
+        repositoryService = stub(RepositoryService.class, answers(
+                "instantiate", new Answer() {
+                    @Override
+                    public Object answer(final Object[] args) throws Exception {
+                        final Object object = ((Class<?>) args[0]).newInstance();
+                        if(object instanceof PolymorphicAssociationLink) {
+                            injectInto(object);
+                        }
+                        return object;
+                    }
+                },
+                "isPersistent", new Answer() {
+                    @Override
+                    public Object answer(final Object[] args) {
+                        return Boolean.TRUE;
+                    }
+                },
+                "persist", new Answer() {
+                    @Override
+                    public Object answer(final Object[] args) {
+                        return args[0];
+                    }
+                }));
+        titleService = stub(TitleService.class, answers(
+                "titleOf", new Answer() {
+                    @Override
+                    public Object answer(final Object[] args) {
+                        return "title";
+                    }
+                }));
+        transactionService = stub(TransactionService.class, answers(
+                "currentTransaction", new Answer() {
+                    @Override
+                    public Object answer(final Object[] args) {
+                        return null;
+                    }
+                },
+                "flushTransaction", new Answer() {
+                    @Override
+                    public Object answer(final Object[] args) {
+                        return null;
+                    }
+                }));
+
+        services.addAll(Arrays.<Object>asList(
+                bookmarkService, repositoryService, titleService, transactionService,
+                linkMemo, linkCache, objectTypeMigration));
+        services.addAll(Arrays.asList(linkSubtypeResolvers));
+        for (final Object service : new ArrayList<>(services)) {
+            injectInto(service);
+        }
+    }
+
+    Bookmark bookmarkFor(final Object object) {
+        Bookmark bookmark = bookmarkByObject.get(object);
+        if(bookmark == null) {
+            bookmark = new Bookmark("stub.Reference", Integer.toString(bookmarkByObject.size() + 1));
+            bookmarkByObject.put(object, bookmark);
+            objectByBookmark.put(bookmark.toString(), object);
+        }
+        return bookmark;
+    }
+
+    <T> T injectInto(final T object) {
+        for (Class<?> cls = object.getClass(); cls != Object.class; cls = cls.getSuperclass()) {
+            for (final Field field : cls.getDeclaredFields()) {
+                if(!field.isAnnotationPresent(Inject.class)) {
+                    continue;
+                }
+                final Object value = serviceFor(field);
+                if(value == null) {
+                    continue;
+                }
+                field.setAccessible(true);
+                try {
+                    field.set(object, value);
+                } catch (final IllegalAccessException e) {
+                    throw new IllegalStateException(String.format(
+                            "Could not inject %s#%s", cls.getSimpleName(), field.getName()), e);
+                }
+            }
+        }
+        return object;
+    }
+
+    private Object serviceFor(final Field field) {
+        if(field.getType() == List.class) {
+            final Class<?> elementType = (Class<?>)
+                    ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+            final List<Object> matching = new ArrayList<>();
+            for (final Object service : services) {
+                if(elementType.isInstance(service)) {
+                    matching.add(service);
+                }
+            }
+            return matching;
+        }
+        for (final Object service : services) {
+            if(field.getType().isInstance(service)) {
+                return service;
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, Answer> answers(final Object... nameAndAnswers) {
+        final Map<String, Answer> answers = new HashMap<>();
+        for (int i = 0; i < nameAndAnswers.length; i += 2) {
+            answers.put((String) nameAndAnswers[i], (Answer) nameAndAnswers[i + 1]);
+        }
+        return answers;
+    }
+
+    private static <T> T stub(final Class<T> type, final Map<String, Answer> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, new InvocationHandler() {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+                final Answer answer = answers.get(method.getName());
+                if(answer != null) {
+                    return answer.answer(args);
+                }
+                switch (method.getName()) {
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "stub " + type.getSimpleName();
+                    default:
+                        throw new UnsupportedOperationException(String.format(
+                                "%s#%s is not stubbed", type.getSimpleName(), method.getName()));
+                }
+            }
+        }));
+    }
+
+}
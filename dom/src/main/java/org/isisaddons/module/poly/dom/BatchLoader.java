@@ -0,0 +1,134 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.xactn.Transaction;
+import org.apache.isis.applib.services.xactn.TransactionService;
+
+/**
+ * A DataLoader-style helper that lets the derived collections of many objects on a page share a single fetch.
+ *
+ * <p>
+ *     The action that produces the page (eg a <tt>listAll()</tt>) {@link #prime(Collection) primes} the loader with
+ *     the objects it returns.  The first time any derived collection then {@link #load(Object) loads} its value, the
+ *     values for all of the primed keys are {@link #loadAll(Collection) loaded} in one go; subsequent loads for those
+ *     keys are served from memory.  Keys that were never primed are simply loaded on demand.
+ * </p>
+ *
+ * <p>
+ *     Priming therefore only helps if the derived collections are loaded in the same transaction as the action that
+ *     primed the loader.  If they are rendered in a later request instead (eg when a viewer redraws a table of the
+ *     objects that it holds onto, having paged, sorted or refreshed it, without invoking the action again) then
+ *     nothing is primed, and each object's collection is loaded by a query of its own.
+ * </p>
+ *
+ * <p>
+ *     Subclasses are expected to be <tt>@RequestScoped</tt> domain services; they are not thread-safe.  As for the
+ *     {@link PolymorphicAssociationLinkMemo}, everything loaded is discarded when a new transaction starts.  Any code
+ *     that changes the underlying data should {@link #invalidate(Object) invalidate} the affected keys.
+ * </p>
+ */
+public abstract class BatchLoader<K, V> {
+
+    private final Set<K> pending = new LinkedHashSet<>();
+    private final Map<K, V> loaded = new HashMap<>();
+    private String transactionKey;
+
+    /**
+     * Queues up the keys to be fetched in a single batch by the next call to {@link #load(Object)}.
+     */
+    @Programmatic
+    public void prime(final Collection<? extends K> keys) {
+        resetIfNewTransaction();
+        for (final K key : keys) {
+            if(key != null && !loaded.containsKey(key)) {
+                pending.add(key);
+            }
+        }
+    }
+
+    @Programmatic
+    public V load(final K key) {
+        if(key == null) {
+            return null;
+        }
+        resetIfNewTransaction();
+        if(!loaded.containsKey(key)) {
+            pending.add(key);
+            dispatch();
+        }
+        return loaded.get(key);
+    }
+
+    @Programmatic
+    public void invalidate(final K key) {
+        loaded.remove(key);
+        pending.remove(key);
+    }
+
+    @Programmatic
+    public void invalidateAll() {
+        loaded.clear();
+        pending.clear();
+    }
+
+    private void resetIfNewTransaction() {
+        final Transaction transaction = transactionService.currentTransaction();
+        final String currentKey = transaction != null
+                ? transaction.getTransactionId() + ":" + transaction.getSequence()
+                : null;
+        if(currentKey == null || !currentKey.equals(transactionKey)) {
+            invalidateAll();
+            transactionKey = currentKey;
+        }
+    }
+
+    private void dispatch() {
+        final List<K> batch = new ArrayList<>(pending);
+        pending.clear();
+        final Map<K, V> values = loadAll(batch);
+        for (final K key : batch) {
+            loaded.put(key, values.get(key));
+        }
+    }
+
+    /**
+     * Fetches the values of all of the keys; keys with no value can either be omitted or mapped to <tt>null</tt>.
+     */
+    protected abstract Map<K, V> loadAll(final Collection<K> keys);
+
+    //region > injected services
+
+    @Inject
+    TransactionService transactionService;
+
+    //endregion
+
+}
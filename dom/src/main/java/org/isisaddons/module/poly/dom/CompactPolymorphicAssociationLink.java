@@ -0,0 +1,122 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import org.apache.isis.applib.annotation.Programmatic;
+
+/**
+ * An optional, more compact, storage mode for links.
+ *
+ * <p>
+ *     Rather than two <tt>VARCHAR(255)</tt> columns for the object type and identifier of the polymorphic reference,
+ *     the object type is stored as a small integer {@link #getPolymorphicObjectTypeCode() code} (interned by the
+ *     {@link PolymorphicObjectTypeDictionary}), and the identifier as a <tt>BIGINT</tt>
+ *     {@link #getPolymorphicIdentifierNumber() number} if it is numeric (as it is for entities with datastore identity),
+ *     else as a {@link #getPolymorphicIdentifierString() string}.  Indexes on these columns are correspondingly
+ *     narrower.
+ * </p>
+ *
+ * <p>
+ *     Subclasses map the three properties to columns (the code mandatory, the number and the string each optional), for
+ *     example:
+ * </p>
+ * <pre>
+ *     &#64;Column(allowsNull = "false")
+ *     public Integer getOwnerObjectTypeCode() { ... }
+ *     &#64;Column(allowsNull = "true")
+ *     public Long getOwnerIdentifierNumber() { ... }
+ *     &#64;Column(allowsNull = "true", length = 255)
+ *     public String getOwnerIdentifierString() { ... }
+ * </pre>
+ * <p>
+ *     and implement the abstract accessors below in terms of these.  The corresponding repository should use the
+ *     "compact" constructor of {@link PolymorphicAssociationLinkRepository}, so that its queries are translated
+ *     accordingly.
+ * </p>
+ */
+public abstract class CompactPolymorphicAssociationLink<S, P, L extends CompactPolymorphicAssociationLink<S, P, L>>
+        extends PolymorphicAssociationLink<S, P, L> {
+
+    protected CompactPolymorphicAssociationLink(final String titlePattern) {
+        super(titlePattern);
+    }
+
+    //region > polymorphicObjectType, polymorphicIdentifier (derived properties)
+    @Override
+    @Programmatic
+    public String getPolymorphicObjectType() {
+        final Integer code = getPolymorphicObjectTypeCode();
+        return code != null ? objectTypeDictionary.objectTypeFor(code) : null;
+    }
+
+    @Override
+    @Programmatic
+    public void setPolymorphicObjectType(final String polymorphicObjectType) {
+        setPolymorphicObjectTypeCode(
+                polymorphicObjectType != null ? objectTypeDictionary.codeFor(polymorphicObjectType) : null);
+    }
+
+    @Override
+    @Programmatic
+    public String getPolymorphicIdentifier() {
+        final Long number = getPolymorphicIdentifierNumber();
+        return number != null ? number.toString() : getPolymorphicIdentifierString();
+    }
+
+    @Override
+    @Programmatic
+    public void setPolymorphicIdentifier(final String polymorphicIdentifier) {
+        final Long number = Identifiers.asLong(polymorphicIdentifier);
+        setPolymorphicIdentifierNumber(number);
+        setPolymorphicIdentifierString(number != null ? null : polymorphicIdentifier);
+    }
+    //endregion
+
+    //region > polymorphicObjectTypeCode (property)
+    @Programmatic
+    public abstract Integer getPolymorphicObjectTypeCode();
+
+    @Programmatic
+    public abstract void setPolymorphicObjectTypeCode(final Integer polymorphicObjectTypeCode);
+    //endregion
+
+    //region > polymorphicIdentifierNumber (property)
+    @Programmatic
+    public abstract Long getPolymorphicIdentifierNumber();
+
+    @Programmatic
+    public abstract void setPolymorphicIdentifierNumber(final Long polymorphicIdentifierNumber);
+    //endregion
+
+    //region > polymorphicIdentifierString (property)
+    @Programmatic
+    public abstract String getPolymorphicIdentifierString();
+
+    @Programmatic
+    public abstract void setPolymorphicIdentifierString(final String polymorphicIdentifierString);
+    //endregion
+
+    //region > injected services
+
+    @javax.inject.Inject
+    protected PolymorphicObjectTypeDictionary objectTypeDictionary;
+
+    //endregion
+
+}
@@ -0,0 +1,76 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import javax.jdo.PersistenceManager;
+
+final class Identifiers {
+
+    /**
+     * Separates the key from the class name in the string form of a DataNucleus datastore identity.
+     */
+    private static final String OID_SEPARATOR = "[OID]";
+
+    private Identifiers() {
+    }
+
+    /**
+     * The bookmark identifier as a number, provided that it is the canonical decimal representation of a (non-negative)
+     * <tt>long</tt>, so that it can be converted back to exactly the same string; else <tt>null</tt>.
+     */
+    static Long asLong(final String identifier) {
+        if(identifier == null || identifier.isEmpty() || identifier.length() > 19) {
+            return null;
+        }
+        if(identifier.length() > 1 && identifier.charAt(0) == '0') {
+            return null;
+        }
+        for (int i = 0; i < identifier.length(); i++) {
+            final char ch = identifier.charAt(i);
+            if(ch < '0' || ch > '9') {
+                return null;
+            }
+        }
+        try {
+            return Long.valueOf(identifier);
+        } catch(final NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * The datastore identity of the instance of the type with the key, for use with the persistence manager (which
+     * does not accept a bare key for datastore identity).
+     */
+    static Object datastoreIdFor(final PersistenceManager persistenceManager, final Class<?> type, final long key) {
+        return persistenceManager.newObjectIdInstance(type, key + OID_SEPARATOR + type.getName());
+    }
+
+    /**
+     * The key of the datastore identity, as per the bookmark identifier of the object; else <tt>null</tt>.
+     */
+    static String keyOf(final Object objectId) {
+        if(objectId == null) {
+            return null;
+        }
+        final String objectIdStr = objectId.toString();
+        final int separator = objectIdStr.indexOf(OID_SEPARATOR);
+        return separator > 0 ? objectIdStr.substring(0, separator) : null;
+    }
+}
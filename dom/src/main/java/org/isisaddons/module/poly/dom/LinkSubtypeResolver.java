@@ -0,0 +1,55 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import org.apache.isis.applib.annotation.Programmatic;
+
+/**
+ * SPI to specify which subtype of link to instantiate for a type of polymorphic reference; a cheaper alternative to
+ * subscribing to {@link PolymorphicAssociationLink.InstantiateEvent}s.
+ *
+ * <p>
+ *     Implementations should be registered as domain services.  The {@link PolymorphicAssociationLink.Factory} looks up
+ *     the resolver for a reference by walking its class hierarchy and interfaces, only falling back to posting an
+ *     {@link PolymorphicAssociationLink.InstantiateEvent} if no resolver matches.
+ * </p>
+ *
+ * @see LinkSubtypeResolverAbstract
+ */
+public interface LinkSubtypeResolver {
+
+    /**
+     * The (abstract) link type that this resolver provides a subtype for, eg <tt>CommunicationChannelOwnerLink</tt>.
+     */
+    @Programmatic
+    Class<? extends PolymorphicAssociationLink> getLinkType();
+
+    /**
+     * The type of polymorphic reference, eg <tt>Party</tt>; also matches any subclass or implementation.
+     */
+    @Programmatic
+    Class<?> getPolymorphicReferenceType();
+
+    /**
+     * The subtype of the {@link #getLinkType() link type} to instantiate, eg <tt>CommunicationChannelOwnerLinkForParty</tt>.
+     */
+    @Programmatic
+    Class<? extends PolymorphicAssociationLink> getSubtype();
+
+}
@@ -0,0 +1,72 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import org.apache.isis.applib.annotation.Programmatic;
+
+/**
+ * Convenience implementation of {@link LinkSubtypeResolver}, for example:
+ *
+ * <pre>
+ * &#64;DomainService(nature = NatureOfService.DOMAIN)
+ * public static class SubtypeResolver extends LinkSubtypeResolverAbstract&lt;CommunicationChannelOwnerLink&gt; {
+ *     public SubtypeResolver() {
+ *         super(CommunicationChannelOwnerLink.class, Party.class, CommunicationChannelOwnerLinkForParty.class);
+ *     }
+ * }
+ * </pre>
+ */
+public abstract class LinkSubtypeResolverAbstract<L extends PolymorphicAssociationLink> implements LinkSubtypeResolver {
+
+    private final Class<L> linkType;
+    private final Class<?> polymorphicReferenceType;
+    private final Class<? extends L> subtype;
+
+    protected LinkSubtypeResolverAbstract(
+            final Class<L> linkType,
+            final Class<?> polymorphicReferenceType,
+            final Class<? extends L> subtype) {
+        if(!linkType.isAssignableFrom(subtype)) {
+            throw new IllegalArgumentException(String.format(
+                    "Subtype '%s' is not a subtype of link type '%s'", subtype.getName(), linkType.getName()));
+        }
+        this.linkType = linkType;
+        this.polymorphicReferenceType = polymorphicReferenceType;
+        this.subtype = subtype;
+    }
+
+    @Programmatic
+    @Override
+    public Class<L> getLinkType() {
+        return linkType;
+    }
+
+    @Programmatic
+    @Override
+    public Class<?> getPolymorphicReferenceType() {
+        return polymorphicReferenceType;
+    }
+
+    @Programmatic
+    @Override
+    public Class<? extends L> getSubtype() {
+        return subtype;
+    }
+
+}
@@ -18,11 +18,41 @@
  */
 package org.isisaddons.module.poly.dom;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
+import javax.jdo.JDOException;
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.datastore.JDOConnection;
+import javax.jdo.listener.DeleteCallback;
+import javax.jdo.listener.StoreCallback;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
 
+import org.apache.isis.applib.AbstractSubscriber;
 import org.apache.isis.applib.DomainObjectContainer;
 import org.apache.isis.applib.NonRecoverableException;
 import org.apache.isis.applib.annotation.Programmatic;
@@ -30,12 +60,14 @@
 import org.apache.isis.applib.services.bookmark.BookmarkService2;
 import org.apache.isis.applib.services.eventbus.EventBusService;
 import org.apache.isis.applib.services.i18n.TranslatableString;
+import org.apache.isis.applib.services.jdosupport.IsisJdoSupport;
+import org.apache.isis.applib.services.metamodel.MetaModelService;
 import org.apache.isis.applib.services.repository.RepositoryService;
 import org.apache.isis.applib.services.title.TitleService;
 import org.apache.isis.applib.services.xactn.TransactionService;
 import org.apache.isis.applib.util.ObjectContracts;
 
-public abstract class PolymorphicAssociationLink<S, P, L extends PolymorphicAssociationLink<S, P, L>>  implements Comparable<L> {
+public abstract class PolymorphicAssociationLink<S, P, L extends PolymorphicAssociationLink<S, P, L>>  implements Comparable<L>, DeleteCallback, StoreCallback {
 
     public abstract static class InstantiateEvent<S, P, L extends PolymorphicAssociationLink<S, P, L>> extends java.util.EventObject {
 
@@ -83,14 +115,89 @@ public void setSubtype(final Class<? extends L> subtype) {
         }
     }
 
+    /**
+     * Convenience superclass for subscribers to {@link InstantiateEvent}s.
+     *
+     * <p>
+     *     The {@link Factory} caches the subtype to use for each concrete class of polymorphic reference; registering
+     *     or unregistering a subscriber that extends from this class invalidates those caches.
+     * </p>
+     */
+    public abstract static class InstantiationSubscriberAbstract extends AbstractSubscriber {
+
+        @Programmatic
+        @PostConstruct
+        @Override
+        public void postConstruct() {
+            super.postConstruct();
+            Factory.subscribersChanged();
+        }
+
+        @Programmatic
+        @PreDestroy
+        @Override
+        public void preDestroy() {
+            super.preDestroy();
+            Factory.subscribersChanged();
+        }
+    }
+
+
+    /**
+     * A subject and polymorphic reference to be linked, as passed to {@link Factory#createLinks(Collection)}.
+     */
+    public static class Pair<S, P> {
+
+        public static <S, P> Pair<S, P> of(final S subject, final P polymorphicReference) {
+            return new Pair<>(subject, polymorphicReference);
+        }
+
+        private final S subject;
+        private final P polymorphicReference;
+
+        public Pair(final S subject, final P polymorphicReference) {
+            this.subject = subject;
+            this.polymorphicReference = polymorphicReference;
+        }
+
+        public S getSubject() {
+            return subject;
+        }
+
+        public P getPolymorphicReference() {
+            return polymorphicReference;
+        }
+    }
 
     public static class Factory<S,PR,L extends PolymorphicAssociationLink<S,PR,L>,E extends InstantiateEvent<S,PR,L>> {
 
         public enum PersistStrategy {
+            /**
+             * The link is persisted, the transaction first being flushed if the polymorphic reference is not yet
+             * persistent.
+             */
             AUTOMATIC,
+            /**
+             * The link is persisted without flushing; if the polymorphic reference is not yet persistent then it must
+             * have been persisted before the link, and the link's object type and identifier are filled in when it
+             * is stored (failing the transaction if the reference still has no identity by then).
+             */
+            DEFERRED,
+            /**
+             * The link is not persisted; that is left to the caller.
+             */
             MANUAL
         }
 
+        private static final AtomicInteger subscriberGeneration = new AtomicInteger();
+
+        /**
+         * Invalidates the subtypes cached by all factories; called whenever a subscriber is (un)registered.
+         */
+        public static void subscribersChanged() {
+            subscriberGeneration.incrementAndGet();
+        }
+
         private PersistStrategy persistStrategy;
 
         private final Object eventSource;
@@ -99,7 +206,25 @@ public enum PersistStrategy {
         private final Class<S> subjectType;
         private final Class<PR> polymorphicReferenceType;
 
-        final Constructor<E> eventConstructor;
+        /**
+         * Looked up once, and adapted to a fixed <tt>(Object, Object, Object)InstantiateEvent</tt> signature so that
+         * it can be called using {@link MethodHandle#invokeExact(Object...)}.
+         */
+        private final MethodHandle eventConstructor;
+
+        /**
+         * The subtype to instantiate, keyed by the concrete class of the polymorphic reference; an absent value means
+         * that no subscriber supports that class.
+         */
+        private final ConcurrentMap<Class<?>, Optional<Class<? extends L>>> subtypeByReferenceClass =
+                new ConcurrentHashMap<>();
+        private volatile int cachedGeneration = subscriberGeneration.get();
+
+        /**
+         * The subtype specified by a {@link LinkSubtypeResolver} for this link type, keyed by the resolver's
+         * {@link LinkSubtypeResolver#getPolymorphicReferenceType() reference type}; lazily populated.
+         */
+        private volatile Map<Class<?>, Class<? extends L>> resolverSubtypeByReferenceType;
 
         public Factory(
                 final Object eventSource,
@@ -123,8 +248,11 @@ public Factory(
             this.persistStrategy = persistStrategy;
 
             try {
-                eventConstructor = eventType.getConstructor(Object.class, subjectType, polymorphicReferenceType);
-            } catch (final NoSuchMethodException e) {
+                eventConstructor = MethodHandles.publicLookup()
+                        .findConstructor(eventType,
+                                MethodType.methodType(void.class, Object.class, subjectType, polymorphicReferenceType))
+                        .asType(MethodType.methodType(InstantiateEvent.class, Object.class, Object.class, Object.class));
+            } catch (final NoSuchMethodException | IllegalAccessException e) {
                 throw new IllegalArgumentException(String.format(
                         "Could not locate constructor in eventType '%s' accepting (%s, %s, %s)",
                         eventType.getName(),
@@ -142,11 +270,16 @@ public Factory(
          * </p>
          */
         public boolean supportsLink(final PR polymorphicReference) {
-            final E event = instantiateEvent(eventSource, null, polymorphicReference);
-            eventBusService.post(event);
-
-            final Class<? extends L> subtype = event.getSubtype();
-            return subtype != null;
+            final PolymorphicAssociationLinkTracer.Span span = PolymorphicAssociationLinkTracing.start(
+                    linkTracers, PolymorphicAssociationLinkTracer.Operation.SUPPORTS_LINK, linkType);
+            try {
+                final Class<? extends L> subtype = subtypeFor(null, polymorphicReference);
+                return subtype != null;
+            } finally {
+                if(span != null) {
+                    span.ended(objectTypeOf(polymorphicReference));
+                }
+            }
         }
 
         /**
@@ -158,41 +291,399 @@ public boolean supportsLink(final PR polymorphicReference) {
          * </p>
          */
         public L createLink(final S subject, final PR polymorphicReference) {
+            final long start = System.nanoTime();
+            final PolymorphicAssociationLinkTracer.Span span = PolymorphicAssociationLinkTracing.start(
+                    linkTracers, PolymorphicAssociationLinkTracer.Operation.CREATE_LINK, linkType);
+            try {
+                final Class<? extends L> subtype = subtypeElseThrow(subject, polymorphicReference);
 
-            final E event = instantiateEvent(eventSource, subject, polymorphicReference);
-            eventBusService.post(event);
+                if(persistStrategy == PersistStrategy.AUTOMATIC) {
+                    if(ensurePersistent(Collections.singletonList(polymorphicReference))) {
+                        PolymorphicAssociationLinkTracing.flushed(span);
+                    }
+                }
+
+                final L link = instantiateLink(subtype, subject, polymorphicReference);
+                linkCache.invalidate(link);
+                return link;
+            } finally {
+                PolymorphicAssociationLinkMetering.recordTime(
+                        linkMetrics, PolymorphicAssociationLinkMetrics.Operation.CREATE_LINK, linkType, start);
+                if(span != null) {
+                    span.ended(objectTypeOf(polymorphicReference));
+                }
+            }
+        }
+
+        /**
+         * Idempotent equivalent of {@link #createLink(Object, Object)}, for links whose subject and polymorphic
+         * reference are unique: creates the link, or if there is one already, returns that link instead (as provided
+         * by the <tt>existingLink</tt> finder).
+         *
+         * <p>
+         *     Rather than looking for the link first (which cannot prevent a concurrent transaction from creating it
+         *     too), the link is inserted straight away, relying on the unique constraint: on a conflict the insert is
+         *     rolled back to a savepoint and the existing link looked up, leaving the rest of the transaction intact.
+         *     Any pending changes are flushed first (so that rolling back to the savepoint cannot undo them; the
+         *     transaction is flushed just the once if the polymorphic reference was itself pending), and the link is
+         *     persisted and flushed directly with the JDO persistence manager, so that the conflict is not treated as a
+         *     failure of the transaction as a whole.
+         * </p>
+         *
+         * <p>
+         *     The polymorphic reference must be persistent (whatever the {@link PersistStrategy}).
+         * </p>
+         */
+        public L createOrGet(final S subject, final PR polymorphicReference, final Supplier<L> existingLink) {
+            final long start = System.nanoTime();
+            final PolymorphicAssociationLinkTracer.Span span = PolymorphicAssociationLinkTracing.start(
+                    linkTracers, PolymorphicAssociationLinkTracer.Operation.CREATE_OR_GET, linkType);
+            try {
+                final Class<? extends L> subtype = subtypeElseThrow(subject, polymorphicReference);
+                if(!ensurePersistent(Collections.singletonList(polymorphicReference))) {
+                    flushTransaction();
+                }
+                PolymorphicAssociationLinkTracing.flushed(span);
+
+                return insertElseGet(subtype, subject, polymorphicReference, existingLink);
+            } finally {
+                PolymorphicAssociationLinkMetering.recordTime(
+                        linkMetrics, PolymorphicAssociationLinkMetrics.Operation.CREATE_OR_GET, linkType, start);
+                if(span != null) {
+                    span.ended(objectTypeOf(polymorphicReference));
+                }
+            }
+        }
+
+        private L insertElseGet(
+                final Class<? extends L> subtype,
+                final S subject,
+                final PR polymorphicReference,
+                final Supplier<L> existingLink) {
+            final PersistenceManager persistenceManager = isisJdoSupport.getJdoPersistenceManager();
+            final Savepoint savepoint = setSavepoint(persistenceManager);
+
+            final L link = repositoryService.instantiate(subtype);
+            link.setPolymorphicReference(polymorphicReference);
+            link.setSubject(subject);
+            try {
+                persistenceManager.makePersistent(link);
+                persistenceManager.flush();
+            } catch(final JDOException ex) {
+                if(!isIntegrityConstraintViolation(ex)) {
+                    throw ex;
+                }
+                rollbackToSavepoint(persistenceManager, savepoint);
+                // the conflicting link may have been created elsewhere, so look afresh (invalidating while the
+                // discarded link can still be read)
+                linkMemo.invalidateAll();
+                linkCache.invalidate(link);
+                if(JDOHelper.isPersistent(link)) {
+                    // never inserted, so simply discarded
+                    persistenceManager.deletePersistent(link);
+                }
+                final L existing = existingLink.get();
+                if(existing == null) {
+                    throw ex;
+                }
+                return existing;
+            }
+            releaseSavepoint(persistenceManager, savepoint);
+
+            linkMemo.invalidateAll();
+            linkCache.invalidate(link);
+            return link;
+        }
+
+        private static Savepoint setSavepoint(final PersistenceManager persistenceManager) {
+            final JDOConnection jdoConnection = persistenceManager.getDataStoreConnection();
+            try {
+                return ((Connection) jdoConnection.getNativeConnection()).setSavepoint();
+            } catch (final SQLException ex) {
+                throw new NonRecoverableException("Unable to set savepoint", ex);
+            } finally {
+                jdoConnection.close();
+            }
+        }
+
+        private static void rollbackToSavepoint(final PersistenceManager persistenceManager, final Savepoint savepoint) {
+            final JDOConnection jdoConnection = persistenceManager.getDataStoreConnection();
+            try {
+                ((Connection) jdoConnection.getNativeConnection()).rollback(savepoint);
+            } catch (final SQLException ex) {
+                throw new NonRecoverableException("Unable to roll back to savepoint", ex);
+            } finally {
+                jdoConnection.close();
+            }
+        }
 
-            final Class<? extends L> subtype = event.getSubtype();
+        private static void releaseSavepoint(final PersistenceManager persistenceManager, final Savepoint savepoint) {
+            final JDOConnection jdoConnection = persistenceManager.getDataStoreConnection();
+            try {
+                ((Connection) jdoConnection.getNativeConnection()).releaseSavepoint(savepoint);
+            } catch (final SQLException ex) {
+                // not supported by all databases, and harmless if not released
+            } finally {
+                jdoConnection.close();
+            }
+        }
+
+        /**
+         * Whether the exception was caused by a violation of an integrity constraint (SQLSTATE class <tt>23</tt>),
+         * eg a unique constraint.
+         */
+        private static boolean isIntegrityConstraintViolation(final Throwable ex) {
+            for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+                if(cause instanceof SQLException) {
+                    final String sqlState = ((SQLException) cause).getSQLState();
+                    if(sqlState != null && sqlState.startsWith("23")) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Bulk equivalent of {@link #createLink(Object, Object)}, returning the links in the same order as the
+         * pairs provided.
+         *
+         * <p>
+         *     The subtype is resolved once per class of polymorphic reference, and (for {@link PersistStrategy#AUTOMATIC})
+         *     the transaction is flushed at most once, and only if some of the references are not yet persistent.  The
+         *     links are then all persisted without any intermediate flush, so that the inserts can be batched, and the
+         *     {@link PolymorphicAssociationLinkCache cache} invalidated for them all at once.
+         * </p>
+         */
+        public List<L> createLinks(final Collection<Pair<S, PR>> subjectsAndReferences) {
+
+            final List<Class<? extends L>> subtypes = new ArrayList<>(subjectsAndReferences.size());
+            final List<PR> polymorphicReferences = new ArrayList<>(subjectsAndReferences.size());
+            for (final Pair<S, PR> subjectAndReference : subjectsAndReferences) {
+                subtypes.add(subtypeElseThrow(subjectAndReference.getSubject(), subjectAndReference.getPolymorphicReference()));
+                polymorphicReferences.add(subjectAndReference.getPolymorphicReference());
+            }
+
+            if(persistStrategy == PersistStrategy.AUTOMATIC) {
+                ensurePersistent(polymorphicReferences);
+            }
+
+            final List<L> links = new ArrayList<>(subjectsAndReferences.size());
+            int i = 0;
+            for (final Pair<S, PR> subjectAndReference : subjectsAndReferences) {
+                links.add(instantiateLink(subtypes.get(i++), subjectAndReference.getSubject(), subjectAndReference.getPolymorphicReference()));
+            }
+            // invalidated together, rather than each scanning the whole cache
+            linkCache.invalidate(links);
+            return links;
+        }
+
+        private Class<? extends L> subtypeElseThrow(final S subject, final PR polymorphicReference) {
+            final Class<? extends L> subtype = subtypeFor(subject, polymorphicReference);
             if(subtype == null) {
                 throw new NonRecoverableException("Cannot create link to " + titleService.titleOf(polymorphicReference) + ", no subtype provided");
             }
+            return subtype;
+        }
 
-            if(persistStrategy == PersistStrategy.AUTOMATIC) {
+        /**
+         * Flushes the transaction (once) if any of the references are not yet persistent, in case there are persists
+         * pending; returns whether it did.
+         */
+        private boolean ensurePersistent(final List<PR> polymorphicReferences) {
+            List<PR> notPersistent = null;
+            for (final PR polymorphicReference : polymorphicReferences) {
                 if(!repositoryService.isPersistent(polymorphicReference)) {
-                    // in case there are persists pending
-                    transactionService.flushTransaction();
-                    if(!repositoryService.isPersistent(polymorphicReference)) {
-                        throw new NonRecoverableException("Link's polymorphic reference " +  titleService.titleOf(polymorphicReference) + " is not persistent");
+                    if(notPersistent == null) {
+                        notPersistent = new ArrayList<>();
                     }
+                    notPersistent.add(polymorphicReference);
                 }
             }
+            if(notPersistent == null) {
+                return false;
+            }
+            flushTransaction();
+            for (final PR polymorphicReference : notPersistent) {
+                if(!repositoryService.isPersistent(polymorphicReference)) {
+                    throw new NonRecoverableException("Link's polymorphic reference " +  titleService.titleOf(polymorphicReference) + " is not persistent");
+                }
+            }
+            return true;
+        }
 
+        private L instantiateLink(final Class<? extends L> subtype, final S subject, final PR polymorphicReference) {
             final L link = repositoryService.instantiate(subtype);
-            link.setPolymorphicReference(polymorphicReference);
+            if(persistStrategy == PersistStrategy.DEFERRED) {
+                link.deferPolymorphicReference(polymorphicReference);
+            } else {
+                link.setPolymorphicReference(polymorphicReference);
+            }
 
             link.setSubject(subject);
 
-            if(persistStrategy == PersistStrategy.AUTOMATIC) {
+            if(persistStrategy != PersistStrategy.MANUAL) {
                 repositoryService.persist(link);
             }
+            linkMemo.invalidateAll();
 
             return link;
         }
 
+        /**
+         * The polymorphic references of the links, in the same order as the links, fetched in bulk using the
+         * {@link PolymorphicReferenceResolver} rather than looked up one link at a time.
+         */
+        public List<PR> resolveAll(final Collection<L> links) {
+            final long start = System.nanoTime();
+            try {
+                return polymorphicReferenceResolver.resolveAll(links);
+            } finally {
+                PolymorphicAssociationLinkMetering.recordTime(
+                        linkMetrics, PolymorphicAssociationLinkMetrics.Operation.REFERENCE_LOOKUP, linkType, start);
+            }
+        }
+
+        /**
+         * Discards all cached subtypes, so that subscribers are consulted afresh.
+         */
+        public void invalidateSubtypeCache() {
+            subtypeByReferenceClass.clear();
+        }
+
+        /**
+         * The subtype to use for the polymorphic reference, or <tt>null</tt> if not supported.
+         *
+         * <p>
+         *     Any {@link LinkSubtypeResolver}s are consulted first, falling back to posting an
+         *     {@link InstantiateEvent} to subscribers.
+         * </p>
+         *
+         * <p>
+         *     Resolvers and subscribers are consulted only once per concrete class of polymorphic reference (they should therefore
+         *     decide on the type of the reference alone); the answer, including a "not supported" answer, is cached
+         *     until a subscriber is next registered or unregistered.
+         * </p>
+         */
+        Class<? extends L> subtypeFor(final S subject, final PR polymorphicReference) {
+            final long start = System.nanoTime();
+            try {
+                return resolveSubtype(subject, polymorphicReference);
+            } finally {
+                PolymorphicAssociationLinkMetering.recordTime(
+                        linkMetrics, PolymorphicAssociationLinkMetrics.Operation.SUBTYPE_RESOLUTION, linkType, start);
+            }
+        }
+
+        private Class<? extends L> resolveSubtype(final S subject, final PR polymorphicReference) {
+            if(polymorphicReference == null) {
+                return postInstantiateEvent(subject, null);
+            }
+            invalidateIfSubscribersChanged();
+
+            final Class<?> referenceClass = polymorphicReference.getClass();
+            Optional<Class<? extends L>> subtype = subtypeByReferenceClass.get(referenceClass);
+            if(subtype == null) {
+                Class<? extends L> resolved = lookupResolverSubtype(referenceClass);
+                if(resolved == null) {
+                    resolved = postInstantiateEvent(subject, polymorphicReference);
+                }
+                subtype = Optional.<Class<? extends L>>fromNullable(resolved);
+                subtypeByReferenceClass.put(referenceClass, subtype);
+            }
+            return subtype.orNull();
+        }
+
+        /**
+         * Searches the class hierarchy and then interfaces of the reference class, nearest first, for a type
+         * registered by a {@link LinkSubtypeResolver}.
+         */
+        private Class<? extends L> lookupResolverSubtype(final Class<?> referenceClass) {
+            final Map<Class<?>, Class<? extends L>> subtypeByReferenceType = resolverSubtypeByReferenceType();
+            if(subtypeByReferenceType.isEmpty()) {
+                return null;
+            }
+            final Deque<Class<?>> candidates = new ArrayDeque<>();
+            final Set<Class<?>> visited = new HashSet<>();
+            candidates.add(referenceClass);
+            while(!candidates.isEmpty()) {
+                final Class<?> candidate = candidates.poll();
+                if(!visited.add(candidate)) {
+                    continue;
+                }
+                final Class<? extends L> subtype = subtypeByReferenceType.get(candidate);
+                if(subtype != null) {
+                    return subtype;
+                }
+                if(candidate.getSuperclass() != null) {
+                    candidates.add(candidate.getSuperclass());
+                }
+                Collections.addAll(candidates, candidate.getInterfaces());
+            }
+            return null;
+        }
+
+        private Map<Class<?>, Class<? extends L>> resolverSubtypeByReferenceType() {
+            Map<Class<?>, Class<? extends L>> subtypeByReferenceType = resolverSubtypeByReferenceType;
+            if(subtypeByReferenceType == null) {
+                subtypeByReferenceType = new HashMap<>();
+                if(linkSubtypeResolvers != null) {
+                    for (final LinkSubtypeResolver resolver : linkSubtypeResolvers) {
+                        if(resolver.getLinkType() != linkType) {
+                            continue;
+                        }
+                        final Class<?> referenceType = resolver.getPolymorphicReferenceType();
+                        final Class<? extends L> subtype = resolver.getSubtype().asSubclass(linkType);
+                        final Class<? extends L> existing = subtypeByReferenceType.put(referenceType, subtype);
+                        if(existing != null && existing != subtype) {
+                            throw new IllegalStateException(String.format(
+                                    "Both '%s' and '%s' are registered as the subtype of '%s' for '%s'",
+                                    existing.getName(), subtype.getName(), linkType.getName(), referenceType.getName()));
+                        }
+                    }
+                }
+                resolverSubtypeByReferenceType = subtypeByReferenceType;
+            }
+            return subtypeByReferenceType;
+        }
+
+        private void invalidateIfSubscribersChanged() {
+            final int generation = subscriberGeneration.get();
+            if(generation != cachedGeneration) {
+                subtypeByReferenceClass.clear();
+                cachedGeneration = generation;
+            }
+        }
+
+        private void flushTransaction() {
+            final long start = System.nanoTime();
+            transactionService.flushTransaction();
+            PolymorphicAssociationLinkMetering.recordTime(
+                    linkMetrics, PolymorphicAssociationLinkMetrics.Operation.FLUSH, linkType, start);
+        }
+
+        private Class<? extends L> postInstantiateEvent(final S subject, final PR polymorphicReference) {
+            final E event = instantiateEvent(eventSource, subject, polymorphicReference);
+            eventBusService.post(event);
+            return event.getSubtype();
+        }
+
+        /**
+         * For tracing only; <tt>null</tt> if not known.
+         */
+        private String objectTypeOf(final PR polymorphicReference) {
+            return polymorphicReference != null && metaModelService != null
+                    ? metaModelService.toObjectType(polymorphicReference.getClass())
+                    : null;
+        }
+
         private E instantiateEvent(final Object eventSource, final S subject, final PR polymorphicReference) {
             try {
-                return eventConstructor.newInstance(eventSource, subject, polymorphicReference);
-            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                return eventType.cast(
+                        (InstantiateEvent) eventConstructor.invokeExact(eventSource, (Object) subject, (Object) polymorphicReference));
+            } catch (final RuntimeException | Error e) {
+                throw e;
+            } catch (final Throwable e) {
                 throw new RuntimeException(e);
             }
         }
@@ -207,6 +698,22 @@ private E instantiateEvent(final Object eventSource, final S subject, final PR p
         DomainObjectContainer container;
         @Inject
         EventBusService eventBusService;
+        @Inject
+        List<LinkSubtypeResolver> linkSubtypeResolvers;
+        @Inject
+        PolymorphicReferenceResolver polymorphicReferenceResolver;
+        @Inject
+        PolymorphicAssociationLinkMemo linkMemo;
+        @Inject
+        PolymorphicAssociationLinkCache linkCache;
+        @Inject
+        IsisJdoSupport isisJdoSupport;
+        @Inject
+        List<PolymorphicAssociationLinkMetrics> linkMetrics;
+        @Inject
+        List<PolymorphicAssociationLinkTracer> linkTracers;
+        @Inject
+        MetaModelService metaModelService;
     }
 
 
@@ -250,22 +757,131 @@ public TranslatableString title() {
 
     //region > polymorphicReference (derived property)
 
+    /**
+     * Resolved through the subtype's {@link TypedPolymorphicReference typed reference property}, if it has one (and
+     * it is set); otherwise looked up from the bookmark, memoized for the duration of the transaction (see
+     * {@link PolymorphicAssociationLinkMemo}).
+     */
     @Programmatic
     public P getPolymorphicReference() {
-        final Bookmark bookmark = new Bookmark(getPolymorphicObjectType(), getPolymorphicIdentifier());
-        return (P) bookmarkService.lookup(bookmark, BookmarkService2.FieldResetPolicy.DONT_RESET);
+        final PolymorphicAssociationLinkTracer.Span span = PolymorphicAssociationLinkTracing.start(
+                linkTracers, PolymorphicAssociationLinkTracer.Operation.GET_POLYMORPHIC_REFERENCE, getClass());
+        try {
+            return lookupPolymorphicReference();
+        } finally {
+            if(span != null) {
+                span.ended(getPolymorphicObjectType());
+            }
+        }
+    }
+
+    private P lookupPolymorphicReference() {
+        if(pendingPolymorphicReference != null) {
+            return pendingPolymorphicReference;
+        }
+        final TypedPolymorphicReferenceProperty typedProperty = TypedPolymorphicReferenceProperty.of(getClass());
+        if(typedProperty != null) {
+            final Object typedReference = typedProperty.get(this);
+            if(typedReference != null) {
+                return (P) typedReference;
+            }
+        }
+        final Bookmark bookmark = new Bookmark(
+                objectTypeMigration.currentObjectTypeOf(getPolymorphicObjectType()), getPolymorphicIdentifier());
+        return (P) linkMemo.memoize(
+                Arrays.asList(PolymorphicAssociationLink.class, "polymorphicReference", bookmark.toString()),
+                new Supplier<Object>() {
+                    @Override
+                    public Object get() {
+                        final long start = System.nanoTime();
+                        try {
+                            return bookmarkService.lookup(bookmark, BookmarkService2.FieldResetPolicy.DONT_RESET);
+                        } finally {
+                            PolymorphicAssociationLinkMetering.recordTime(
+                                    linkMetrics, PolymorphicAssociationLinkMetrics.Operation.REFERENCE_LOOKUP,
+                                    PolymorphicAssociationLink.this.getClass(), start);
+                        }
+                    }
+                });
     }
 
     /**
      * Subclasses should optionally override in order to set the type-safe equivalent.
+     *
+     * <p>
+     *     The reference must be persistent, unless it is being {@link #deferPolymorphicReference(Object) deferred}.
+     * </p>
      */
     @Programmatic
     public void setPolymorphicReference(final P polymorphicReference) {
+        if(polymorphicReference != null && polymorphicReference == pendingPolymorphicReference) {
+            // deferred until stored
+            return;
+        }
+        pendingPolymorphicReference = null;
+        if(!repositoryService.isPersistent(polymorphicReference)) {
+            throw new NonRecoverableException(
+                    "Link's polymorphic reference " + titleService.titleOf(polymorphicReference) + " is not persistent");
+        }
         final Bookmark bookmark = bookmarkService.bookmarkFor(polymorphicReference);
         setPolymorphicObjectType(bookmark.getObjectType());
         setPolymorphicIdentifier(bookmark.getIdentifier());
     }
 
+    /**
+     * As {@link #setPolymorphicReference(Object)}, for {@link Factory.PersistStrategy#DEFERRED}: if the reference is
+     * not yet persistent then its object type and identifier are only set once the link is
+     * {@link #jdoPreStore() stored}.
+     */
+    void deferPolymorphicReference(final P polymorphicReference) {
+        pendingPolymorphicReference =
+                repositoryService.isPersistent(polymorphicReference) ? null : polymorphicReference;
+        setPolymorphicReference(polymorphicReference);
+    }
+
+    /**
+     * The polymorphic reference, if it was not yet persistent when {@link #deferPolymorphicReference(Object) set}.
+     */
+    private P pendingPolymorphicReference;
+
+    //endregion
+
+    //region > jdoPreStore
+
+    /**
+     * Fills in the object type and identifier of a polymorphic reference that was not yet persistent when set; by
+     * now (the reference having been persisted before this link) it will have been assigned its identity.
+     */
+    @Programmatic
+    @Override
+    public void jdoPreStore() {
+        final P polymorphicReference = pendingPolymorphicReference;
+        if(polymorphicReference == null) {
+            return;
+        }
+        if(!repositoryService.isPersistent(polymorphicReference)) {
+            throw new NonRecoverableException(
+                    "Link's polymorphic reference " + titleService.titleOf(polymorphicReference) + " is not persistent");
+        }
+        pendingPolymorphicReference = null;
+        setPolymorphicReference(polymorphicReference);
+        linkCache.invalidate(this);
+    }
+
+    //endregion
+
+    //region > jdoPreDelete
+
+    /**
+     * Discards any lookups memoized in this transaction or cached across transactions, as they may include this link.
+     */
+    @Programmatic
+    @Override
+    public void jdoPreDelete() {
+        linkMemo.invalidateAll();
+        linkCache.invalidate(this);
+    }
+
     //endregion
 
     //region > compareTo
@@ -288,6 +904,21 @@ public int compareTo(final PolymorphicAssociationLink other) {
     @javax.inject.Inject
     protected BookmarkService2 bookmarkService;
 
+    @javax.inject.Inject
+    protected PolymorphicAssociationLinkMemo linkMemo;
+
+    @javax.inject.Inject
+    protected PolymorphicAssociationLinkCache linkCache;
+
+    @javax.inject.Inject
+    protected PolymorphicObjectTypeMigration objectTypeMigration;
+
+    @javax.inject.Inject
+    protected List<PolymorphicAssociationLinkMetrics> linkMetrics;
+
+    @javax.inject.Inject
+    protected List<PolymorphicAssociationLinkTracer> linkTracers;
+
     //endregion
 
 }
@@ -0,0 +1,551 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.jdo.Transaction;
+import javax.transaction.Synchronization;
+
+import com.google.common.base.Supplier;
+
+import org.apache.isis.applib.DomainObjectContainer;
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.bookmark.Bookmark;
+import org.apache.isis.applib.services.bookmark.BookmarkService2;
+import org.apache.isis.applib.services.jdosupport.IsisJdoSupport;
+
+/**
+ * A size-bounded, least-recently-used cache of the results of link queries, shared across transactions.
+ *
+ * <p>
+ *     Each entry holds the {@link Bookmark}s of the links returned by a query "by subject", "by polymorphic reference"
+ *     or "by subject and polymorphic reference"; on a hit the links themselves are fetched by id in bulk (one call per
+ *     object type, see {@link PolymorphicReferenceResolver#lookupAll(List)}) rather than by re-running the query.  No
+ *     domain objects are held by the cache, so it can safely be shared across sessions.
+ * </p>
+ *
+ * <p>
+ *     Entries are invalidated precisely, by subject and by polymorphic reference, whenever a link is created through
+ *     the {@link PolymorphicAssociationLink.Factory} or deleted.  The invalidation is repeated once the transaction
+ *     completes (by a single JDO {@link Synchronization} per transaction, however many links are invalidated), so
+ *     that the entry cannot be repopulated with uncommitted (or pre-commit) state.  The cache knows
+ *     nothing of links written by other JVMs or by plain SQL; {@link #invalidateAll()} if necessary.
+ * </p>
+ *
+ * <p>
+ *     The maximum number of entries is configured using {@value #KEY_MAX_SIZE} (default {@value #DEFAULT_MAX_SIZE});
+ *     a value of zero disables the cache.
+ * </p>
+ */
+@DomainService(
+        nature = NatureOfService.DOMAIN
+)
+public class PolymorphicAssociationLinkCache {
+
+    public static final String KEY_MAX_SIZE = "isis.poly.linkCache.maxSize";
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    //region > Statistics
+    public static class Statistics {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+        private final int size;
+        private final int maxSize;
+
+        Statistics(
+                final long hits,
+                final long misses,
+                final long evictions,
+                final long invalidations,
+                final int size,
+                final int maxSize) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+            this.size = size;
+            this.maxSize = maxSize;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public double getHitRatio() {
+            final long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "hits=%d, misses=%d, hitRatio=%.2f, evictions=%d, invalidations=%d, size=%d/%d",
+                    hits, misses, getHitRatio(), evictions, invalidations, size, maxSize);
+        }
+    }
+    //endregion
+
+    private static class CachedLinks {
+        private final Set<String> tags;
+        private final List<Bookmark> linkBookmarks;
+
+        CachedLinks(final Set<String> tags, final List<Bookmark> linkBookmarks) {
+            this.tags = tags;
+            this.linkBookmarks = linkBookmarks;
+        }
+    }
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private int maxSize = DEFAULT_MAX_SIZE;
+    private Map<List<String>, CachedLinks> entries;
+
+    /**
+     * Incremented by each invalidation; the tags invalidated are recorded against the new value in
+     * {@link #generationByTag} (bounded as for the entries, any tag dropped, or an {@link #invalidateAll()},
+     * raising {@link #invalidatedThrough} instead).  All guarded by the lock on {@link #entries}.
+     */
+    private long generation;
+    private long invalidatedThrough;
+    private Map<String, Long> generationByTag;
+
+    //region > init
+    @PostConstruct
+    @Programmatic
+    public void init(final Map<String, String> properties) {
+        final String maxSizeStr = properties.get(KEY_MAX_SIZE);
+        if(maxSizeStr != null) {
+            try {
+                maxSize = Integer.parseInt(maxSizeStr.trim());
+            } catch(final NumberFormatException ex) {
+                throw new IllegalArgumentException(String.format(
+                        "Invalid value for '%s': '%s'", KEY_MAX_SIZE, maxSizeStr), ex);
+            }
+        }
+        entries = new LinkedHashMap<List<String>, CachedLinks>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<List<String>, CachedLinks> eldest) {
+                if(size() > maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        generationByTag = new LinkedHashMap<String, Long>() {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Long> eldest) {
+                if(size() > maxSize) {
+                    invalidatedThrough = Math.max(invalidatedThrough, eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    //endregion
+
+    //region > allMatches, firstMatch
+    /**
+     * Equivalent to {@link DomainObjectContainer#allMatches(org.apache.isis.applib.query.Query)}, but served from the
+     * cache if possible.
+     *
+     * <p>
+     *     The result is not stored if the subject or polymorphic reference is invalidated while the finder is running
+     *     (eg by a concurrent transaction that has just committed a new link), because it may predate that change.
+     * </p>
+     *
+     * @param resultType - the type of link returned by the finder
+     * @param queryName - uniquely identifies the finder for the result type
+     * @param subject - the subject the finder is by, else <tt>null</tt>
+     * @param polymorphicReference - the polymorphic reference the finder is by (or its {@link Bookmark}), else <tt>null</tt>
+     * @param finder - finds the links, the result depending only on the subject and/or polymorphic reference
+     */
+    @Programmatic
+    public <T> List<T> allMatches(
+            final Class<T> resultType,
+            final String queryName,
+            final Object subject,
+            final Object polymorphicReference,
+            final Supplier<List<T>> finder) {
+        final List<String> key = keyFor(resultType, queryName, "allMatches", subject, polymorphicReference);
+        if(key == null) {
+            return finder.get();
+        }
+        final List<T> cached = lookup(key, resultType);
+        if(cached != null) {
+            return cached;
+        }
+        final long generation = currentGeneration();
+        final List<T> links = finder.get();
+        store(key, subject, polymorphicReference, links, generation);
+        return links;
+    }
+
+    /**
+     * As {@link #allMatches(Class, String, Object, Object, Supplier)}, for finders returning at most one link.
+     */
+    @Programmatic
+    public <T> T firstMatch(
+            final Class<T> resultType,
+            final String queryName,
+            final Object subject,
+            final Object polymorphicReference,
+            final Supplier<T> finder) {
+        final List<String> key = keyFor(resultType, queryName, "firstMatch", subject, polymorphicReference);
+        if(key == null) {
+            return finder.get();
+        }
+        final List<T> cached = lookup(key, resultType);
+        if(cached != null) {
+            return cached.isEmpty() ? null : cached.get(0);
+        }
+        final long generation = currentGeneration();
+        final T link = finder.get();
+        store(key, subject, polymorphicReference,
+                link != null ? Collections.singletonList(link) : Collections.<T>emptyList(), generation);
+        return link;
+    }
+
+    private List<String> keyFor(
+            final Class<?> resultType,
+            final String queryName,
+            final String method,
+            final Object subject,
+            final Object polymorphicReference) {
+        if(entries == null || maxSize <= 0) {
+            return null;
+        }
+        final String subjectTag = tagFor(subject);
+        final String referenceTag = tagFor(polymorphicReference);
+        if(subject != null && subjectTag == null || polymorphicReference != null && referenceTag == null) {
+            // not (yet) persistent, so cannot be cached
+            return null;
+        }
+        return Arrays.asList(resultType.getName(), queryName, method, subjectTag, referenceTag);
+    }
+
+    private <T> List<T> lookup(final List<String> key, final Class<T> resultType) {
+        final CachedLinks entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if(entry == null) {
+            misses.incrementAndGet();
+            PolymorphicAssociationLinkMetering.recordCacheLookup(linkMetrics, resultType, false);
+            return null;
+        }
+        final List<Object> objects;
+        try {
+            objects = polymorphicReferenceResolver.lookupAll(entry.linkBookmarks);
+        } catch(final RuntimeException ex) {
+            // eg deleted by some other means since cached
+            invalidateTags(entry.tags);
+            misses.incrementAndGet();
+            PolymorphicAssociationLinkMetering.recordCacheLookup(linkMetrics, resultType, false);
+            return null;
+        }
+        final List<T> links = new ArrayList<>(objects.size());
+        for (final Object object : objects) {
+            if(!resultType.isInstance(object)) {
+                invalidateTags(entry.tags);
+                misses.incrementAndGet();
+                PolymorphicAssociationLinkMetering.recordCacheLookup(linkMetrics, resultType, false);
+                return null;
+            }
+            links.add(resultType.cast(object));
+        }
+        hits.incrementAndGet();
+        PolymorphicAssociationLinkMetering.recordCacheLookup(linkMetrics, resultType, true);
+        return links;
+    }
+
+    private void store(
+            final List<String> key,
+            final Object subject,
+            final Object polymorphicReference,
+            final List<?> links,
+            final long generation) {
+        final List<Bookmark> linkBookmarks = new ArrayList<>(links.size());
+        for (final Object link : links) {
+            final Bookmark bookmark = bookmarkService.bookmarkFor(link);
+            if(bookmark == null) {
+                return;
+            }
+            linkBookmarks.add(bookmark);
+        }
+        final Set<String> tags = new LinkedHashSet<>();
+        addTagIfAny(tags, tagFor(subject));
+        addTagIfAny(tags, tagFor(polymorphicReference));
+        synchronized (entries) {
+            if(invalidatedSince(tags, generation)) {
+                return;
+            }
+            entries.put(key, new CachedLinks(tags, Collections.unmodifiableList(linkBookmarks)));
+        }
+    }
+
+    private long currentGeneration() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    /**
+     * Whether any of the tags has been invalidated since the generation (conservatively so if its own generation is
+     * no longer known); must be called holding the lock on {@link #entries}.
+     */
+    private boolean invalidatedSince(final Set<String> tags, final long generation) {
+        if(invalidatedThrough > generation) {
+            return true;
+        }
+        for (final String tag : tags) {
+            final Long invalidatedAt = generationByTag.get(tag);
+            if(invalidatedAt != null && invalidatedAt > generation) {
+                return true;
+            }
+        }
+        return false;
+    }
+    //endregion
+
+    //region > invalidate
+    /**
+     * Invalidates all entries for the subject or for the polymorphic reference of the link, now and again once the
+     * current transaction completes.
+     */
+    @Programmatic
+    public void invalidate(final PolymorphicAssociationLink<?, ?, ?> link) {
+        invalidate(Collections.singletonList(link));
+    }
+
+    /**
+     * As {@link #invalidate(PolymorphicAssociationLink)}, for many links (eg all those created in bulk) at once, so
+     * that the entries are scanned just the once.
+     */
+    @Programmatic
+    public void invalidate(final Collection<? extends PolymorphicAssociationLink<?, ?, ?>> links) {
+        if(entries == null || maxSize <= 0) {
+            return;
+        }
+        final Set<String> tags = new LinkedHashSet<>();
+        for (final PolymorphicAssociationLink<?, ?, ?> link : links) {
+            addTagIfAny(tags, tagFor(link.getSubject()));
+            // as stored, the object type may be a former one, whereas the entries are tagged with the current one
+            addTagIfAny(tags, tagFor(
+                    objectTypeMigration.currentObjectTypeOf(link.getPolymorphicObjectType()),
+                    link.getPolymorphicIdentifier()));
+        }
+        invalidateTags(tags);
+        invalidateOnCompletion(tags);
+    }
+
+    @Programmatic
+    public void invalidateAll() {
+        if(entries == null) {
+            return;
+        }
+        synchronized (entries) {
+            invalidations.addAndGet(entries.size());
+            entries.clear();
+            invalidatedThrough = ++generation;
+            generationByTag.clear();
+        }
+    }
+
+    private void invalidateTags(final Set<String> tags) {
+        if(tags.isEmpty()) {
+            return;
+        }
+        synchronized (entries) {
+            generation++;
+            for (final String tag : tags) {
+                // re-inserted, so that the eldest tag is always the least recently invalidated
+                generationByTag.remove(tag);
+                generationByTag.put(tag, generation);
+            }
+            for (final Iterator<CachedLinks> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+                final CachedLinks entry = iterator.next();
+                if(!Collections.disjoint(entry.tags, tags)) {
+                    iterator.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the tags to those to be invalidated once more when the transaction has completed, registering the JDO
+     * {@link Synchronization} to do so (chained to any existing one) if not already.
+     */
+    private void invalidateOnCompletion(final Set<String> tags) {
+        if(tags.isEmpty()) {
+            return;
+        }
+        final Transaction transaction = isisJdoSupport.getJdoPersistenceManager().currentTransaction();
+        if(transaction == null || !transaction.isActive()) {
+            return;
+        }
+        final Synchronization synchronization = transaction.getSynchronization();
+        if(synchronization instanceof InvalidateOnCompletion
+                && ((InvalidateOnCompletion) synchronization).isOf(this)) {
+            ((InvalidateOnCompletion) synchronization).tags.addAll(tags);
+            return;
+        }
+        final InvalidateOnCompletion invalidateOnCompletion = new InvalidateOnCompletion(synchronization);
+        invalidateOnCompletion.tags.addAll(tags);
+        transaction.setSynchronization(invalidateOnCompletion);
+    }
+
+    /**
+     * Remains registered with the (persistence manager's) transaction once it has completed, so gathers the tags of
+     * each subsequent transaction in turn; used only by the thread of that persistence manager.
+     */
+    private class InvalidateOnCompletion implements Synchronization {
+
+        private final Synchronization previous;
+        private final Set<String> tags = new LinkedHashSet<>();
+
+        InvalidateOnCompletion(final Synchronization previous) {
+            this.previous = previous;
+        }
+
+        boolean isOf(final PolymorphicAssociationLinkCache cache) {
+            return cache == PolymorphicAssociationLinkCache.this;
+        }
+
+        @Override
+        public void beforeCompletion() {
+            if(previous != null) {
+                previous.beforeCompletion();
+            }
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+            try {
+                if(previous != null) {
+                    previous.afterCompletion(status);
+                }
+            } finally {
+                final Set<String> completed = new LinkedHashSet<>(tags);
+                tags.clear();
+                invalidateTags(completed);
+            }
+        }
+    }
+    //endregion
+
+    //region > statistics
+    @Programmatic
+    public Statistics getStatistics() {
+        final int size;
+        if(entries == null) {
+            size = 0;
+        } else {
+            synchronized (entries) {
+                size = entries.size();
+            }
+        }
+        return new Statistics(hits.get(), misses.get(), evictions.get(), invalidations.get(), size, maxSize);
+    }
+    //endregion
+
+    //region > helpers
+    private String tagFor(final Object domainObject) {
+        if(domainObject == null) {
+            return null;
+        }
+        final Bookmark bookmark = domainObject instanceof Bookmark
+                ? (Bookmark) domainObject
+                : bookmarkService.bookmarkFor(domainObject);
+        return bookmark != null ? tagFor(bookmark.getObjectType(), bookmark.getIdentifier()) : null;
+    }
+
+    private static String tagFor(final String objectType, final String identifier) {
+        return objectType != null && identifier != null ? objectType + ":" + identifier : null;
+    }
+
+    private static void addTagIfAny(final Set<String> tags, final String tag) {
+        if(tag != null) {
+            tags.add(tag);
+        }
+    }
+    //endregion
+
+    //region > injected services
+
+    @Inject
+    BookmarkService2 bookmarkService;
+
+    @Inject
+    IsisJdoSupport isisJdoSupport;
+
+    @Inject
+    PolymorphicReferenceResolver polymorphicReferenceResolver;
+
+    @Inject
+    List<PolymorphicAssociationLinkMetrics> linkMetrics;
+
+    @Inject
+    PolymorphicObjectTypeMigration objectTypeMigration;
+
+    //endregion
+
+}
@@ -0,0 +1,111 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import com.google.common.eventbus.Subscribe;
+
+import org.apache.isis.applib.AbstractSubscriber;
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.eventbus.ObjectRemovingEvent;
+
+/**
+ * Deletes the links to any object as it is removed, for every family of links (that is, every
+ * {@link PolymorphicAssociationLinkRepository}) whose polymorphic reference type the object is an instance of.
+ *
+ * <p>
+ *     The links of each family are deleted using {@link PolymorphicAssociationLinkRepository#deleteByPolymorphicReference(Object)},
+ *     ie set-based rather than by loading and removing each link.  This relies on Isis posting an
+ *     {@link ObjectRemovingEvent} for the removed object (as it does by default).
+ * </p>
+ *
+ * <p>
+ *     Enabled by default; set {@value #KEY_ENABLED} to <tt>false</tt> to disable.
+ * </p>
+ */
+@DomainService(
+        nature = NatureOfService.DOMAIN
+)
+public class PolymorphicAssociationLinkCascadeDeleteSubscriber extends AbstractSubscriber {
+
+    public static final String KEY_ENABLED = "isis.poly.cascadeDelete.enabled";
+
+    private boolean enabled = true;
+
+    //region > init
+    @PostConstruct
+    @Programmatic
+    public void init(final Map<String, String> properties) {
+        final String enabledStr = properties.get(KEY_ENABLED);
+        if(enabledStr != null) {
+            enabled = Boolean.parseBoolean(enabledStr.trim());
+        }
+        postConstruct();
+    }
+
+    /**
+     * Registers with the event bus, as inherited; called by {@link #init(Map)} rather than by Isis, which allows a
+     * service only the one <tt>@PostConstruct</tt> method.
+     */
+    @Programmatic
+    @Override
+    public void postConstruct() {
+        super.postConstruct();
+    }
+    //endregion
+
+    //region > on(ObjectRemovingEvent)
+    @Programmatic
+    @Subscribe
+    public void on(final ObjectRemovingEvent<?> ev) {
+        if(!enabled || repositories == null) {
+            return;
+        }
+        final Object removed = ev.getSource();
+        for (final Object each : repositories) {
+            final PolymorphicAssociationLinkRepository<?, ?, ?, ?> repository =
+                    (PolymorphicAssociationLinkRepository<?, ?, ?, ?>) each;
+            deleteLinks(repository, removed);
+        }
+    }
+
+    private static <P> void deleteLinks(
+            final PolymorphicAssociationLinkRepository<?, P, ?, ?> repository,
+            final Object removed) {
+        final Class<P> polymorphicReferenceType = repository.getPolymorphicReferenceType();
+        if(polymorphicReferenceType.isInstance(removed)) {
+            repository.deleteByPolymorphicReference(polymorphicReferenceType.cast(removed));
+        }
+    }
+    //endregion
+
+    //region > injected services
+    @SuppressWarnings("rawtypes")
+    @Inject
+    List<PolymorphicAssociationLinkRepository> repositories;
+    //endregion
+
+}
@@ -0,0 +1,85 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Joiner;
+
+import org.apache.isis.applib.annotation.Programmatic;
+
+/**
+ * An index required on the table of a family of links, so that one of the lookups of its
+ * {@link PolymorphicAssociationLinkRepository repository} does not need to scan the table.
+ *
+ * <p>
+ *     The index must <i>start with</i> the {@link #getMembers() members} (in any order); any further columns are
+ *     irrelevant.
+ * </p>
+ */
+public class PolymorphicAssociationLinkIndex {
+
+    private final Class<?> linkType;
+    private final String lookup;
+    private final List<String> members;
+
+    PolymorphicAssociationLinkIndex(final Class<?> linkType, final String lookup, final String... members) {
+        this.linkType = linkType;
+        this.lookup = lookup;
+        this.members = Collections.unmodifiableList(Arrays.asList(members));
+    }
+
+    @Programmatic
+    public Class<?> getLinkType() {
+        return linkType;
+    }
+
+    /**
+     * The repository lookup that the index supports, eg <tt>findByPolymorphicReference</tt>.
+     */
+    @Programmatic
+    public String getLookup() {
+        return lookup;
+    }
+
+    /**
+     * The persistent members (of the {@link #getLinkType() link type}) that the index must start with.
+     */
+    @Programmatic
+    public List<String> getMembers() {
+        return members;
+    }
+
+    /**
+     * The JDO annotation that would declare the index, eg for a diagnostic message.
+     */
+    @Programmatic
+    public String toAnnotation() {
+        return String.format(
+                "@javax.jdo.annotations.Index(name=\"%s_%s_IDX\", members={\"%s\"})",
+                linkType.getSimpleName(), Joiner.on("_").join(members), Joiner.on("\",\"").join(members));
+    }
+
+    @Override
+    public String toString() {
+        return linkType.getSimpleName() + "#" + lookup + " " + members;
+    }
+}
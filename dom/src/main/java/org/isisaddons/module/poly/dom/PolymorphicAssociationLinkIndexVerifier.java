@@ -0,0 +1,300 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.jdo.JDOException;
+import javax.jdo.PersistenceManager;
+import javax.jdo.datastore.JDOConnection;
+import javax.jdo.metadata.ColumnMetadata;
+import javax.jdo.metadata.MemberMetadata;
+import javax.jdo.metadata.TypeMetadata;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.jdosupport.IsisJdoSupport;
+
+/**
+ * Verifies, on startup, that the table of every family of links has the indexes
+ * {@link PolymorphicAssociationLinkRepository#getRequiredIndexes() required} by its repository.
+ *
+ * <p>
+ *     Without them, looking up the links of a subject or (especially) of a polymorphic reference is a full table scan,
+ *     which is only noticed once the table has grown.  The indexes should be declared on the link entity using
+ *     <tt>@javax.jdo.annotations.Index</tt> (a unique constraint leading with the same columns will also do); any that
+ *     are missing are logged along with the annotation that would declare them.
+ * </p>
+ *
+ * <p>
+ *     The behaviour is configured using {@value #KEY_VERIFY}: one of <tt>warn</tt> (the default), <tt>fail</tt>
+ *     (to prevent the application from starting) or <tt>off</tt>.
+ * </p>
+ */
+@DomainService(
+        nature = NatureOfService.DOMAIN
+)
+public class PolymorphicAssociationLinkIndexVerifier {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PolymorphicAssociationLinkIndexVerifier.class);
+
+    public static final String KEY_VERIFY = "isis.poly.indexes.verify";
+
+    public enum Mode {
+        WARN,
+        FAIL,
+        OFF
+    }
+
+    private Mode mode = Mode.WARN;
+
+    //region > init
+    @PostConstruct
+    @Programmatic
+    public void init(final Map<String, String> properties) {
+        final String modeStr = properties.get(KEY_VERIFY);
+        if(modeStr != null) {
+            try {
+                mode = Mode.valueOf(modeStr.trim().toUpperCase());
+            } catch(final IllegalArgumentException ex) {
+                throw new IllegalArgumentException(String.format(
+                        "Invalid value for '%s': '%s'", KEY_VERIFY, modeStr), ex);
+            }
+        }
+        if(mode == Mode.OFF || repositories == null || repositories.isEmpty()) {
+            return;
+        }
+
+        final List<PolymorphicAssociationLinkIndex> missing = verify();
+        if(missing.isEmpty()) {
+            return;
+        }
+        for (final PolymorphicAssociationLinkIndex index : missing) {
+            LOG.warn("No index on {} for {}; declare using {}",
+                    index.getLinkType().getName(), index.getLookup(), index.toAnnotation());
+        }
+        if(mode == Mode.FAIL) {
+            throw new IllegalStateException(String.format(
+                    "Link tables are missing %d index(es) (see log); set '%s' to 'warn' to start anyway",
+                    missing.size(), KEY_VERIFY));
+        }
+    }
+    //endregion
+
+    //region > verify
+    /**
+     * The required indexes that are missing from the database.
+     *
+     * <p>
+     *     Link types whose table or columns cannot be determined are logged and skipped, rather than reported as
+     *     missing.
+     * </p>
+     */
+    @Programmatic
+    public List<PolymorphicAssociationLinkIndex> verify() {
+        final List<PolymorphicAssociationLinkIndex> missing = new ArrayList<>();
+        final PersistenceManager persistenceManager =
+                isisJdoSupport.getJdoPersistenceManager().getPersistenceManagerFactory().getPersistenceManager();
+        try {
+            final JDOConnection jdoConnection = persistenceManager.getDataStoreConnection();
+            try {
+                final DatabaseMetaData databaseMetaData = ((Connection) jdoConnection.getNativeConnection()).getMetaData();
+                for (final Object each : repositories) {
+                    final PolymorphicAssociationLinkRepository<?, ?, ?, ?> repository =
+                            (PolymorphicAssociationLinkRepository<?, ?, ?, ?>) each;
+                    try {
+                        missing.addAll(verify(persistenceManager, databaseMetaData, repository));
+                    } catch (final SQLException | JDOException ex) {
+                        LOG.warn("Unable to verify the indexes of " + repository.getLinkType().getName(), ex);
+                    }
+                }
+            } finally {
+                jdoConnection.close();
+            }
+        } catch (final SQLException | JDOException ex) {
+            LOG.warn("Unable to verify the indexes of link tables", ex);
+        } finally {
+            persistenceManager.close();
+        }
+        return missing;
+    }
+
+    private static List<PolymorphicAssociationLinkIndex> verify(
+            final PersistenceManager persistenceManager,
+            final DatabaseMetaData databaseMetaData,
+            final PolymorphicAssociationLinkRepository<?, ?, ?, ?> repository) throws SQLException {
+
+        final Class<?> linkType = repository.getLinkType();
+        final TypeMetadata typeMetadata =
+                persistenceManager.getPersistenceManagerFactory().getMetadata(linkType.getName());
+
+        final List<List<String>> indexes = indexesOf(databaseMetaData, tableOf(linkType, typeMetadata));
+        if(indexes == null) {
+            LOG.warn("Unable to find the table for {}; not verifying its indexes", linkType.getName());
+            return Collections.emptyList();
+        }
+
+        final List<PolymorphicAssociationLinkIndex> missing = new ArrayList<>();
+        for (final PolymorphicAssociationLinkIndex required : repository.getRequiredIndexes()) {
+            if(!isSatisfied(required, typeMetadata, indexes)) {
+                missing.add(required);
+            }
+        }
+        return missing;
+    }
+    //endregion
+
+    //region > helpers
+    private static String tableOf(final Class<?> linkType, final TypeMetadata typeMetadata) {
+        final String table = typeMetadata != null ? typeMetadata.getTable() : null;
+        return table != null ? table : linkType.getSimpleName();
+    }
+
+    /**
+     * The columns of each index of the table (in index order, lower case), or <tt>null</tt> if no such table.
+     */
+    private static List<List<String>> indexesOf(
+            final DatabaseMetaData databaseMetaData,
+            final String table) throws SQLException {
+        // the database may have folded the case of the (unquoted) identifier either way
+        for (final String candidate : new LinkedHashSet<>(
+                        Arrays.asList(table, table.toUpperCase(), table.toLowerCase()))) {
+            final Map<String, TreeMap<Short, String>> columnsByIndex = new TreeMap<>();
+            boolean found = false;
+            try (final ResultSet rs = databaseMetaData.getIndexInfo(null, null, candidate, false, true)) {
+                while (rs.next()) {
+                    found = true;
+                    final String indexName = rs.getString("INDEX_NAME");
+                    final String columnName = rs.getString("COLUMN_NAME");
+                    if(indexName == null || columnName == null) {
+                        continue; // table statistics
+                    }
+                    TreeMap<Short, String> columns = columnsByIndex.get(indexName);
+                    if(columns == null) {
+                        columns = new TreeMap<>();
+                        columnsByIndex.put(indexName, columns);
+                    }
+                    columns.put(rs.getShort("ORDINAL_POSITION"), columnName.toLowerCase());
+                }
+            }
+            if(found) {
+                final List<List<String>> indexes = new ArrayList<>();
+                for (final TreeMap<Short, String> columns : columnsByIndex.values()) {
+                    indexes.add(new ArrayList<>(columns.values()));
+                }
+                return indexes;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether some index starts with the columns of the required members, in any order.
+     */
+    private static boolean isSatisfied(
+            final PolymorphicAssociationLinkIndex required,
+            final TypeMetadata typeMetadata,
+            final List<List<String>> indexes) {
+        final int numMembers = required.getMembers().size();
+        for (final List<String> index : indexes) {
+            if(index.size() < numMembers) {
+                continue;
+            }
+            final Set<String> leading = new LinkedHashSet<>(index.subList(0, numMembers));
+            boolean all = true;
+            for (final String member : required.getMembers()) {
+                if(Collections.disjoint(leading, candidateColumnsOf(typeMetadata, member))) {
+                    all = false;
+                    break;
+                }
+            }
+            if(all) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The (lower case) names that the column of the member may have: as mapped explicitly, else as defaulted by
+     * DataNucleus for a value or for a reference to another entity.
+     */
+    private static Set<String> candidateColumnsOf(final TypeMetadata typeMetadata, final String member) {
+        final Set<String> candidates = new LinkedHashSet<>();
+        final MemberMetadata memberMetadata = memberOf(typeMetadata, member);
+        if(memberMetadata != null) {
+            if(memberMetadata.getColumn() != null) {
+                candidates.add(memberMetadata.getColumn().toLowerCase());
+            }
+            final ColumnMetadata[] columns = memberMetadata.getColumns();
+            if(columns != null) {
+                for (final ColumnMetadata column : columns) {
+                    if(column.getName() != null) {
+                        candidates.add(column.getName().toLowerCase());
+                    }
+                }
+            }
+        }
+        final String name = member.toLowerCase();
+        candidates.add(name);
+        candidates.add(name + "_id");
+        candidates.add(name + "_id_oid");
+        return candidates;
+    }
+
+    private static MemberMetadata memberOf(final TypeMetadata typeMetadata, final String member) {
+        if(typeMetadata == null || typeMetadata.getMembers() == null) {
+            return null;
+        }
+        for (final MemberMetadata memberMetadata : typeMetadata.getMembers()) {
+            if(member.equals(memberMetadata.getName())) {
+                return memberMetadata;
+            }
+        }
+        return null;
+    }
+    //endregion
+
+    //region > injected services
+    @SuppressWarnings("rawtypes")
+    @Inject
+    List<PolymorphicAssociationLinkRepository> repositories;
+
+    @Inject
+    IsisJdoSupport isisJdoSupport;
+    //endregion
+
+}
@@ -0,0 +1,118 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+
+import com.google.common.base.Supplier;
+
+import org.apache.isis.applib.DomainObjectContainer;
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.xactn.Transaction;
+import org.apache.isis.applib.services.xactn.TransactionService;
+
+/**
+ * Memoizes link lookups (and resolved {@link PolymorphicAssociationLink#getPolymorphicReference() polymorphic
+ * references}) for the duration of the current transaction.
+ *
+ * <p>
+ *     A single action invocation typically runs the same lookup from its <tt>disableXxx()</tt>,
+ *     <tt>validateXxx()</tt> and <tt>choicesXxx()</tt> supporting methods as well as from the action itself; with this
+ *     service those lookups hit the database only once.
+ * </p>
+ *
+ * <p>
+ *     All memoized values are discarded when a new transaction starts, when a link is created through the
+ *     {@link PolymorphicAssociationLink.Factory} and when a link is deleted.  Note that, unless the link is
+ *     {@link #removeIfNotAlready(Object) removed} through this service, a deletion is only seen once it has been flushed.
+ * </p>
+ */
+@DomainService(
+        nature = NatureOfService.DOMAIN
+)
+@RequestScoped
+public class PolymorphicAssociationLinkMemo {
+
+    private final Map<List<?>, Object> values = new HashMap<>();
+    private String transactionKey;
+
+    /**
+     * Returns the value previously memoized in this transaction under the key, else obtains (and memoizes) it from
+     * the supplier.
+     *
+     * <p>
+     *     Keys are typically of the form <tt>Arrays.asList(LinkType.class, "findByXxx", arg1, arg2...)</tt>.
+     * </p>
+     */
+    @Programmatic
+    public <T> T memoize(final List<?> key, final Supplier<T> supplier) {
+        resetIfNewTransaction();
+        if(values.containsKey(key)) {
+            @SuppressWarnings("unchecked")
+            final T value = (T) values.get(key);
+            return value;
+        }
+        final T value = supplier.get();
+        values.put(key, value);
+        return value;
+    }
+
+    /**
+     * Removes the object (typically a link) and discards any memoized values.
+     */
+    @Programmatic
+    public void removeIfNotAlready(final Object domainObject) {
+        container.removeIfNotAlready(domainObject);
+        invalidateAll();
+    }
+
+    @Programmatic
+    public void invalidateAll() {
+        values.clear();
+    }
+
+    private void resetIfNewTransaction() {
+        final Transaction transaction = transactionService.currentTransaction();
+        final String currentKey = transaction != null
+                ? transaction.getTransactionId() + ":" + transaction.getSequence()
+                : null;
+        if(currentKey == null || !currentKey.equals(transactionKey)) {
+            values.clear();
+            transactionKey = currentKey;
+        }
+    }
+
+    //region > injected services
+
+    @Inject
+    TransactionService transactionService;
+
+    @Inject
+    DomainObjectContainer container;
+
+    //endregion
+
+}
@@ -0,0 +1,60 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import java.util.List;
+
+/**
+ * Reports to the registered {@link PolymorphicAssociationLinkMetrics} on behalf of the factory, links, repositories
+ * and cache; every method is a no-op (without reading the clock) if none is registered.
+ */
+final class PolymorphicAssociationLinkMetering {
+
+    private PolymorphicAssociationLinkMetering() {}
+
+    /**
+     * Records the time elapsed since <tt>start</tt> (as per {@link System#nanoTime()}).
+     */
+    static void recordTime(
+            final List<PolymorphicAssociationLinkMetrics> linkMetrics,
+            final PolymorphicAssociationLinkMetrics.Operation operation,
+            final Class<?> linkType,
+            final long start) {
+        if(linkMetrics == null || linkMetrics.isEmpty()) {
+            return;
+        }
+        final long elapsedNanos = System.nanoTime() - start;
+        for (final PolymorphicAssociationLinkMetrics metrics : linkMetrics) {
+            metrics.recordTime(linkType, operation, elapsedNanos);
+        }
+    }
+
+    static void recordCacheLookup(
+            final List<PolymorphicAssociationLinkMetrics> linkMetrics,
+            final Class<?> linkType,
+            final boolean hit) {
+        if(linkMetrics == null) {
+            return;
+        }
+        for (final PolymorphicAssociationLinkMetrics metrics : linkMetrics) {
+            metrics.recordCacheLookup(linkType, hit);
+        }
+    }
+
+}
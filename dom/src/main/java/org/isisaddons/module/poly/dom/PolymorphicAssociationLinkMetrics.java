@@ -0,0 +1,106 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import org.apache.isis.applib.annotation.Programmatic;
+
+/**
+ * SPI to record how often, and how long, the link operations of each family of links take; the module provides an
+ * in-memory implementation, {@link PolymorphicAssociationLinkMetricsDefault}.
+ *
+ * <p>
+ *     Implementations should be registered as domain services; all those registered are called, so an application can
+ *     add its own (eg to publish to its monitoring system) alongside the default.  They are called on the hot path of
+ *     every link operation, and so must be cheap and thread-safe.
+ * </p>
+ *
+ * <p>
+ *     The link type passed is that of the operation, which may be the (abstract) link type of the family, eg
+ *     <tt>CommunicationChannelOwnerLink</tt>, or one of its subtypes, eg <tt>CommunicationChannelOwnerLinkForParty</tt>;
+ *     see {@link PolymorphicAssociationLinkMetricsDefault#familyOf(Class)}.
+ * </p>
+ */
+public interface PolymorphicAssociationLinkMetrics {
+
+    enum Operation {
+        /**
+         * {@link PolymorphicAssociationLink.Factory} resolving the subtype of link to instantiate for a polymorphic
+         * reference (usually answered from its own cache).
+         */
+        SUBTYPE_RESOLUTION("subtypeResolution"),
+        /**
+         * {@link PolymorphicAssociationLink.Factory#createLink(Object, Object)}, as a whole.
+         */
+        CREATE_LINK("createLink"),
+        /**
+         * {@link PolymorphicAssociationLink.Factory#createOrGet(Object, Object, com.google.common.base.Supplier)}, as a
+         * whole.
+         */
+        CREATE_OR_GET("createOrGet"),
+        /**
+         * A flush of the transaction by {@link PolymorphicAssociationLink.Factory#createLink(Object, Object)}, because
+         * the polymorphic reference was not yet persistent, or (always) by
+         * {@link PolymorphicAssociationLink.Factory#createOrGet(Object, Object, com.google.common.base.Supplier)}.
+         */
+        FLUSH("flush"),
+        /**
+         * Looking up the polymorphic reference of a link from its bookmark, or of several links in bulk.
+         */
+        REFERENCE_LOOKUP("referenceLookup"),
+        /**
+         * A query (JDOQL or native SQL) run by a {@link PolymorphicAssociationLinkRepository}, ie not served from the
+         * {@link PolymorphicAssociationLinkMemo memo} or {@link PolymorphicAssociationLinkCache cache}.
+         */
+        QUERY("query"),
+        /**
+         * {@link PolymorphicAssociationLinkRepository#deleteByPolymorphicReference(Object)}, as a whole.
+         */
+        DELETE_BY_POLYMORPHIC_REFERENCE("deleteByPolymorphicReference"),
+        /**
+         * {@link PolymorphicAssociationLinkRepository#reparent(Object, Object, int)}, as a whole.
+         */
+        REPARENT("reparent");
+
+        private final String name;
+
+        Operation(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * Camel-cased, as used in reports and JMX object names.
+         */
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Records an operation on links of the type, taking the elapsed time.
+     */
+    @Programmatic
+    void recordTime(Class<?> linkType, Operation operation, long elapsedNanos);
+
+    /**
+     * Records a lookup in the {@link PolymorphicAssociationLinkCache} for links of the type.
+     */
+    @Programmatic
+    void recordCacheLookup(Class<?> linkType, boolean hit);
+
+}
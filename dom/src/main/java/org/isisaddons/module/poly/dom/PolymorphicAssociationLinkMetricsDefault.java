@@ -0,0 +1,430 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+
+/**
+ * In-memory implementation of {@link PolymorphicAssociationLinkMetrics}, keeping a count and a latency histogram for
+ * each {@link PolymorphicAssociationLinkMetrics.Operation operation} and the hit ratio of the
+ * {@link PolymorphicAssociationLinkCache}, per {@link #familyOf(Class) family} of links.
+ *
+ * <p>
+ *     Latencies are held in power-of-two buckets (of nanoseconds), so percentiles are reported as the upper bound of
+ *     the bucket they fall in, ie to within a factor of two.  Nothing is ever discarded, other than by {@link #reset()},
+ *     so the figures are since startup (or the last reset).
+ * </p>
+ *
+ * <p>
+ *     Each family's figures are also published as platform MXBeans, named
+ *     <tt>org.isisaddons.module.poly:type=LinkMetrics,family=...,operation=...</tt> and
+ *     <tt>org.isisaddons.module.poly:type=LinkCacheMetrics,family=...</tt>, as soon as the family is first seen.  Set
+ *     {@value #KEY_JMX_ENABLED} to <tt>false</tt> to disable.
+ * </p>
+ *
+ * @see PolymorphicAssociationLinkMetricsMenu
+ */
+@DomainService(
+        nature = NatureOfService.DOMAIN
+)
+public class PolymorphicAssociationLinkMetricsDefault implements PolymorphicAssociationLinkMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PolymorphicAssociationLinkMetricsDefault.class);
+
+    public static final String KEY_JMX_ENABLED = "isis.poly.metrics.jmx.enabled";
+    public static final String JMX_DOMAIN = "org.isisaddons.module.poly";
+
+    //region > MXBeans
+    public interface TimerMXBean {
+        String getFamily();
+        String getOperation();
+        long getCount();
+        double getMeanMicros();
+        double getMaxMicros();
+        double getPercentile50Micros();
+        double getPercentile95Micros();
+        double getPercentile99Micros();
+        void reset();
+    }
+
+    public interface CacheMXBean {
+        String getFamily();
+        long getHits();
+        long getMisses();
+        double getHitRatio();
+        void reset();
+    }
+    //endregion
+
+    //region > Timer
+    public static class Timer implements TimerMXBean {
+
+        private static final int BUCKETS = 64;
+
+        private final String family;
+        private final Operation operation;
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        /**
+         * Bucket <tt>i</tt> counts the times of less than <tt>2^(i+1)</tt> nanoseconds (and, but for the first, at
+         * least <tt>2^i</tt>).
+         */
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        Timer(final String family, final Operation operation) {
+            this.family = family;
+            this.operation = operation;
+        }
+
+        void record(final long elapsedNanos) {
+            final long nanos = Math.max(elapsedNanos, 0L);
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            buckets.incrementAndGet(bucketOf(nanos));
+            long max = maxNanos.get();
+            while(nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        private static int bucketOf(final long nanos) {
+            return nanos == 0 ? 0 : BUCKETS - 1 - Long.numberOfLeadingZeros(nanos);
+        }
+
+        @Override
+        public String getFamily() {
+            return family;
+        }
+
+        @Override
+        public String getOperation() {
+            return operation.getName();
+        }
+
+        @Override
+        public long getCount() {
+            return count.get();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            final long count = this.count.get();
+            return count == 0 ? 0.0 : micros(totalNanos.get()) / count;
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return micros(maxNanos.get());
+        }
+
+        @Override
+        public double getPercentile50Micros() {
+            return getPercentileMicros(0.50);
+        }
+
+        @Override
+        public double getPercentile95Micros() {
+            return getPercentileMicros(0.95);
+        }
+
+        @Override
+        public double getPercentile99Micros() {
+            return getPercentileMicros(0.99);
+        }
+
+        /**
+         * The upper bound of the bucket holding the percentile (<tt>0 &lt; percentile &lt;= 1</tt>), capped by the
+         * maximum time recorded.
+         */
+        public double getPercentileMicros(final double percentile) {
+            final long count = this.count.get();
+            if(count == 0) {
+                return 0.0;
+            }
+            final long rank = (long) Math.ceil(percentile * count);
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                cumulative += buckets.get(i);
+                if(cumulative >= rank) {
+                    final long upperBound = i >= BUCKETS - 2 ? Long.MAX_VALUE : 1L << (i + 1);
+                    return micros(Math.min(upperBound, maxNanos.get()));
+                }
+            }
+            return getMaxMicros();
+        }
+
+        @Override
+        public void reset() {
+            count.set(0);
+            totalNanos.set(0);
+            maxNanos.set(0);
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+        }
+
+        private static double micros(final long nanos) {
+            return nanos / 1000.0;
+        }
+    }
+    //endregion
+
+    //region > Cache
+    public static class Cache implements CacheMXBean {
+
+        private final String family;
+
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+
+        Cache(final String family) {
+            this.family = family;
+        }
+
+        void record(final boolean hit) {
+            (hit ? hits : misses).incrementAndGet();
+        }
+
+        @Override
+        public String getFamily() {
+            return family;
+        }
+
+        @Override
+        public long getHits() {
+            return hits.get();
+        }
+
+        @Override
+        public long getMisses() {
+            return misses.get();
+        }
+
+        @Override
+        public double getHitRatio() {
+            final long hits = this.hits.get();
+            final long lookups = hits + misses.get();
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public void reset() {
+            hits.set(0);
+            misses.set(0);
+        }
+    }
+    //endregion
+
+    //region > Family
+    public static class Family {
+
+        private final String name;
+        private final Timer[] timers;
+        private final Cache cache;
+
+        Family(final String name) {
+            this.name = name;
+            final Operation[] operations = Operation.values();
+            timers = new Timer[operations.length];
+            for (final Operation operation : operations) {
+                timers[operation.ordinal()] = new Timer(name, operation);
+            }
+            cache = new Cache(name);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Timer getTimer(final Operation operation) {
+            return timers[operation.ordinal()];
+        }
+
+        public Cache getCache() {
+            return cache;
+        }
+
+        void reset() {
+            for (final Timer timer : timers) {
+                timer.reset();
+            }
+            cache.reset();
+        }
+    }
+    //endregion
+
+    private final ConcurrentMap<Class<?>, Family> familyByLinkType = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Family> familyByName = new ConcurrentHashMap<>();
+    private final List<ObjectName> registered = new ArrayList<>();
+
+    private boolean jmxEnabled = true;
+
+    //region > init, shutdown
+    @PostConstruct
+    @Programmatic
+    public void init(final Map<String, String> properties) {
+        final String jmxEnabledStr = properties.get(KEY_JMX_ENABLED);
+        if(jmxEnabledStr != null) {
+            jmxEnabled = Boolean.parseBoolean(jmxEnabledStr.trim());
+        }
+    }
+
+    @PreDestroy
+    @Programmatic
+    public void shutdown() {
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        synchronized (registered) {
+            for (final ObjectName objectName : registered) {
+                try {
+                    mBeanServer.unregisterMBean(objectName);
+                } catch(final JMException ex) {
+                    // already unregistered
+                }
+            }
+            registered.clear();
+        }
+    }
+    //endregion
+
+    //region > recordTime, recordCacheLookup
+    @Programmatic
+    @Override
+    public void recordTime(final Class<?> linkType, final Operation operation, final long elapsedNanos) {
+        familyFor(linkType).getTimer(operation).record(elapsedNanos);
+    }
+
+    @Programmatic
+    @Override
+    public void recordCacheLookup(final Class<?> linkType, final boolean hit) {
+        familyFor(linkType).getCache().record(hit);
+    }
+    //endregion
+
+    //region > getFamilies, reset
+    /**
+     * The families of links recorded so far, sorted by name.
+     */
+    @Programmatic
+    public List<Family> getFamilies() {
+        return new ArrayList<>(new TreeMap<>(familyByName).values());
+    }
+
+    @Programmatic
+    public void reset() {
+        for (final Family family : familyByName.values()) {
+            family.reset();
+        }
+    }
+    //endregion
+
+    //region > familyOf
+    /**
+     * The family of the link type: its topmost superclass below {@link PolymorphicAssociationLink} (or
+     * {@link CompactPolymorphicAssociationLink}), eg <tt>CommunicationChannelOwnerLink</tt> for
+     * <tt>CommunicationChannelOwnerLinkForParty</tt>.
+     */
+    @Programmatic
+    public static Class<?> familyOf(final Class<?> linkType) {
+        Class<?> family = linkType;
+        for (Class<?> superclass = family.getSuperclass();
+             superclass != null
+                     && superclass != PolymorphicAssociationLink.class
+                     && superclass != CompactPolymorphicAssociationLink.class
+                     && PolymorphicAssociationLink.class.isAssignableFrom(superclass);
+             superclass = family.getSuperclass()) {
+            family = superclass;
+        }
+        return family;
+    }
+    //endregion
+
+    //region > helpers
+    private Family familyFor(final Class<?> linkType) {
+        final Family family = familyByLinkType.get(linkType);
+        if(family != null) {
+            return family;
+        }
+        final String name = familyOf(linkType).getSimpleName();
+        Family newFamily = new Family(name);
+        final Family existing = familyByName.putIfAbsent(name, newFamily);
+        if(existing == null) {
+            register(newFamily);
+        } else {
+            newFamily = existing;
+        }
+        familyByLinkType.put(linkType, newFamily);
+        return newFamily;
+    }
+
+    private void register(final Family family) {
+        if(!jmxEnabled) {
+            return;
+        }
+        for (final Operation operation : Operation.values()) {
+            register(String.format("%s:type=LinkMetrics,family=%s,operation=%s",
+                    JMX_DOMAIN, family.getName(), operation.getName()), family.getTimer(operation));
+        }
+        register(String.format("%s:type=LinkCacheMetrics,family=%s",
+                JMX_DOMAIN, family.getName()), family.getCache());
+    }
+
+    /**
+     * Registers the MXBean, replacing any left over by an earlier instance (eg of a bounced integration test system).
+     */
+    private void register(final String name, final Object mxBean) {
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName objectName = new ObjectName(name);
+            synchronized (registered) {
+                if(mBeanServer.isRegistered(objectName)) {
+                    mBeanServer.unregisterMBean(objectName);
+                }
+                mBeanServer.registerMBean(mxBean, objectName);
+                registered.add(objectName);
+            }
+        } catch(final JMException ex) {
+            LOG.warn("Unable to register " + name, ex);
+        }
+    }
+    //endregion
+
+}
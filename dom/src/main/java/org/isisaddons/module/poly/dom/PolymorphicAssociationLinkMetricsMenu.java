@@ -0,0 +1,90 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import java.util.Locale;
+
+import javax.inject.Inject;
+
+import org.apache.isis.applib.annotation.Action;
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.DomainServiceLayout;
+import org.apache.isis.applib.annotation.MemberOrder;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.RestrictTo;
+import org.apache.isis.applib.annotation.SemanticsOf;
+import org.apache.isis.applib.value.Clob;
+
+/**
+ * Prototyping actions to download (as CSV) or reset the figures recorded by
+ * {@link PolymorphicAssociationLinkMetricsDefault}: one row per family of links and operation, plus one per family for
+ * the hit ratio of the {@link PolymorphicAssociationLinkCache}.
+ */
+@DomainService(
+        nature = NatureOfService.VIEW_MENU_ONLY
+)
+@DomainServiceLayout(
+        named = "Prototyping",
+        menuBar = DomainServiceLayout.MenuBar.SECONDARY,
+        menuOrder = "500.20"
+)
+public class PolymorphicAssociationLinkMetricsMenu {
+
+    //region > downloadLinkMetrics (action)
+    @Action(
+            semantics = SemanticsOf.SAFE,
+            restrictTo = RestrictTo.PROTOTYPING
+    )
+    @MemberOrder(sequence = "1")
+    public Clob downloadLinkMetrics() {
+        final StringBuilder buf = new StringBuilder(
+                "family,metric,count,meanMicros,p50Micros,p95Micros,p99Micros,maxMicros,hitRatio\n");
+        for (final PolymorphicAssociationLinkMetricsDefault.Family family : linkMetrics.getFamilies()) {
+            for (final PolymorphicAssociationLinkMetrics.Operation operation : PolymorphicAssociationLinkMetrics.Operation.values()) {
+                final PolymorphicAssociationLinkMetricsDefault.Timer timer = family.getTimer(operation);
+                buf.append(String.format(Locale.ROOT, "%s,%s,%d,%.1f,%.1f,%.1f,%.1f,%.1f,\n",
+                        family.getName(), operation.getName(), timer.getCount(),
+                        timer.getMeanMicros(), timer.getPercentile50Micros(), timer.getPercentile95Micros(),
+                        timer.getPercentile99Micros(), timer.getMaxMicros()));
+            }
+            final PolymorphicAssociationLinkMetricsDefault.Cache cache = family.getCache();
+            buf.append(String.format(Locale.ROOT, "%s,cacheLookup,%d,,,,,,%.3f\n",
+                    family.getName(), cache.getHits() + cache.getMisses(), cache.getHitRatio()));
+        }
+        return new Clob("link-metrics.csv", "text/csv", buf.toString());
+    }
+    //endregion
+
+    //region > resetLinkMetrics (action)
+    @Action(
+            semantics = SemanticsOf.IDEMPOTENT,
+            restrictTo = RestrictTo.PROTOTYPING
+    )
+    @MemberOrder(sequence = "2")
+    public void resetLinkMetrics() {
+        linkMetrics.reset();
+    }
+    //endregion
+
+    //region > injected services
+    @Inject
+    PolymorphicAssociationLinkMetricsDefault linkMetrics;
+    //endregion
+
+}
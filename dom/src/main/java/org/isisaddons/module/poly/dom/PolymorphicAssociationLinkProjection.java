@@ -0,0 +1,88 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.bookmark.Bookmark;
+
+/**
+ * A lightweight, read-only view of a {@link PolymorphicAssociationLink}: the identities of the link and its subject,
+ * and the object type and identifier of its polymorphic reference.
+ *
+ * <p>
+ *     Obtained from the <tt>findProjectionsXxx</tt> methods of {@link PolymorphicAssociationLinkRepository}, for
+ *     read-only uses (such as rendering a contributed collection) where the links themselves are never needed.  The
+ *     repository can {@link PolymorphicAssociationLinkRepository#promote(PolymorphicAssociationLinkProjection) promote}
+ *     a projection to its link, or resolve the subjects or polymorphic references of projections in bulk.
+ * </p>
+ */
+public class PolymorphicAssociationLinkProjection {
+
+    private final Object linkId;
+    private final Object subjectId;
+    private final String polymorphicObjectType;
+    private final String polymorphicIdentifier;
+
+    PolymorphicAssociationLinkProjection(
+            final Object linkId,
+            final Object subjectId,
+            final String polymorphicObjectType,
+            final String polymorphicIdentifier) {
+        this.linkId = linkId;
+        this.subjectId = subjectId;
+        this.polymorphicObjectType = polymorphicObjectType;
+        this.polymorphicIdentifier = polymorphicIdentifier;
+    }
+
+    /**
+     * The JDO identity of the link.
+     */
+    @Programmatic
+    public Object getLinkId() {
+        return linkId;
+    }
+
+    /**
+     * The JDO identity of the link's subject.
+     */
+    @Programmatic
+    public Object getSubjectId() {
+        return subjectId;
+    }
+
+    @Programmatic
+    public String getPolymorphicObjectType() {
+        return polymorphicObjectType;
+    }
+
+    @Programmatic
+    public String getPolymorphicIdentifier() {
+        return polymorphicIdentifier;
+    }
+
+    @Programmatic
+    public Bookmark getPolymorphicBookmark() {
+        return new Bookmark(polymorphicObjectType, polymorphicIdentifier);
+    }
+
+    @Override
+    public String toString() {
+        return linkId + ": " + subjectId + " -> " + polymorphicObjectType + ":" + polymorphicIdentifier;
+    }
+}
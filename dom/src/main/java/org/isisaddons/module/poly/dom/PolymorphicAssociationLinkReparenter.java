@@ -0,0 +1,103 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+
+/**
+ * Moves all links from one object to another - typically when merging a duplicate into the object that survives -
+ * for every family of links (that is, every {@link PolymorphicAssociationLinkRepository}) whose polymorphic reference
+ * type both objects are instances of.
+ *
+ * <p>
+ *     The links of each family are moved using {@link PolymorphicAssociationLinkRepository#reparent(Object, Object, int)},
+ *     in chunks whose size is set by {@value #KEY_CHUNK_SIZE} (default
+ *     {@value PolymorphicAssociationLinkRepository#DEFAULT_REPARENT_CHUNK_SIZE}).
+ * </p>
+ */
+@DomainService(
+        nature = NatureOfService.DOMAIN
+)
+public class PolymorphicAssociationLinkReparenter {
+
+    public static final String KEY_CHUNK_SIZE = "isis.poly.reparent.chunkSize";
+
+    private int chunkSize = PolymorphicAssociationLinkRepository.DEFAULT_REPARENT_CHUNK_SIZE;
+
+    //region > init
+    @PostConstruct
+    @Programmatic
+    public void init(final Map<String, String> properties) {
+        final String chunkSizeStr = properties.get(KEY_CHUNK_SIZE);
+        if(chunkSizeStr != null) {
+            chunkSize = Integer.parseInt(chunkSizeStr.trim());
+            if(chunkSize < 1) {
+                throw new IllegalArgumentException(String.format(
+                        "%s must be positive, was %d", KEY_CHUNK_SIZE, chunkSize));
+            }
+        }
+    }
+    //endregion
+
+    //region > reparent
+    /**
+     * Moves the links of <tt>from</tt> to <tt>to</tt>, returning the number moved (links of <tt>from</tt> to subjects
+     * already linked to <tt>to</tt> are deleted instead, and not counted).
+     */
+    @Programmatic
+    public long reparent(final Object from, final Object to) {
+        long reparented = 0;
+        if(repositories == null) {
+            return reparented;
+        }
+        for (final Object each : repositories) {
+            final PolymorphicAssociationLinkRepository<?, ?, ?, ?> repository =
+                    (PolymorphicAssociationLinkRepository<?, ?, ?, ?>) each;
+            reparented += reparent(repository, from, to);
+        }
+        return reparented;
+    }
+
+    private <P> long reparent(
+            final PolymorphicAssociationLinkRepository<?, P, ?, ?> repository,
+            final Object from,
+            final Object to) {
+        final Class<P> polymorphicReferenceType = repository.getPolymorphicReferenceType();
+        if(!polymorphicReferenceType.isInstance(from) || !polymorphicReferenceType.isInstance(to)) {
+            return 0L;
+        }
+        return repository.reparent(polymorphicReferenceType.cast(from), polymorphicReferenceType.cast(to), chunkSize);
+    }
+    //endregion
+
+    //region > injected services
+    @SuppressWarnings("rawtypes")
+    @Inject
+    List<PolymorphicAssociationLinkRepository> repositories;
+    //endregion
+
+}
@@ -0,0 +1,1526 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+import javax.jdo.annotations.InheritanceStrategy;
+import javax.jdo.datastore.JDOConnection;
+import javax.jdo.metadata.ColumnMetadata;
+import javax.jdo.metadata.MemberMetadata;
+import javax.jdo.metadata.TypeMetadata;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+import org.apache.isis.applib.DomainObjectContainer;
+import org.apache.isis.applib.NonRecoverableException;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.bookmark.Bookmark;
+import org.apache.isis.applib.services.bookmark.BookmarkService2;
+import org.apache.isis.applib.services.jdosupport.IsisJdoSupport;
+import org.apache.isis.applib.services.xactn.TransactionService;
+
+/**
+ * Convenience superclass for the repository of a family of links, providing the lookups by subject, by polymorphic
+ * reference and by both, along with the corresponding <tt>exists</tt> and <tt>count</tt> queries, and creation of
+ * links through a {@link PolymorphicAssociationLink.Factory}.
+ *
+ * <p>
+ *     The JDOQL of each lookup is built once (from the names of the link's persistent members), so that DataNucleus
+ *     need only compile it once.  The bookmark of the polymorphic reference is computed once per lookup, and the
+ *     results are memoized per transaction ({@link PolymorphicAssociationLinkMemo}) and cached across transactions
+ *     ({@link PolymorphicAssociationLinkCache}).
+ * </p>
+ *
+ * <p>
+ *     For read-only uses, the <tt>findProjectionsXxx</tt> lookups return lightweight
+ *     {@link PolymorphicAssociationLinkProjection projections} rather than the links; these can be served by native
+ *     SQL, see {@link #useNativeSql(String, String, String, String, String)}.
+ * </p>
+ *
+ * <p>
+ *     Subclasses should be annotated as domain services, and call the constructor with the link family's types and
+ *     the names of its persistent members, for example:
+ * </p>
+ * <pre>
+ *     &#64;DomainService(nature = NatureOfService.DOMAIN, repositoryFor = CommunicationChannelOwnerLink.class)
+ *     public class CommunicationChannelOwnerLinks
+ *             extends PolymorphicAssociationLinkRepository&lt;...&gt; {
+ *         public CommunicationChannelOwnerLinks() {
+ *             super(CommunicationChannel.class, CommunicationChannelOwner.class,
+ *                   CommunicationChannelOwnerLink.class, CommunicationChannelOwnerLink.InstantiateEvent.class,
+ *                   "communicationChannel", "ownerObjectType", "ownerIdentifier");
+ *         }
+ *     }
+ * </pre>
+ */
+public abstract class PolymorphicAssociationLinkRepository<S, P, L extends PolymorphicAssociationLink<S, P, L>, E extends PolymorphicAssociationLink.InstantiateEvent<S, P, L>> {
+
+    private static final String FIND_BY_SUBJECT = "findBySubject";
+    private static final String FIND_BY_POLYMORPHIC_REFERENCE = "findByPolymorphicReference";
+    private static final String FIND_BY_SUBJECT_AND_POLYMORPHIC_REFERENCE = "findBySubjectAndPolymorphicReference";
+    private static final String EXISTS_BY_SUBJECT = "existsBySubject";
+    private static final String EXISTS_BY_POLYMORPHIC_REFERENCE = "existsByPolymorphicReference";
+    private static final String EXISTS_BY_SUBJECT_AND_POLYMORPHIC_REFERENCE = "existsBySubjectAndPolymorphicReference";
+    private static final String COUNT_BY_SUBJECT = "countBySubject";
+    private static final String COUNT_BY_POLYMORPHIC_REFERENCE = "countByPolymorphicReference";
+    private static final String FIND_PROJECTIONS_BY_SUBJECT = "findProjectionsBySubject";
+    private static final String FIND_PROJECTIONS_BY_POLYMORPHIC_REFERENCE = "findProjectionsByPolymorphicReference";
+    private static final String FIND_PROJECTION_BY_SUBJECT_AND_POLYMORPHIC_REFERENCE = "findProjectionBySubjectAndPolymorphicReference";
+
+    private final Class<S> subjectType;
+    private final Class<P> polymorphicReferenceType;
+    private final Class<L> linkType;
+    private final Class<E> eventType;
+
+    /**
+     * Whether the link is a {@link CompactPolymorphicAssociationLink}.
+     */
+    private final boolean compact;
+
+    private final String subjectFilter;
+    private final String polymorphicReferenceFilter;
+    private final String polymorphicReferencesFilter;
+    private final String polymorphicReferenceNumberFilter;
+    private final String polymorphicReferenceNumbersFilter;
+
+    /**
+     * For object types that have been renamed (see {@link PolymorphicObjectTypeMigration}), matching any of the
+     * object types.
+     */
+    private final String polymorphicReferenceAnyObjectTypeFilter;
+    private final String polymorphicReferenceNumberAnyObjectTypeFilter;
+    private final String polymorphicObjectTypeFilter;
+
+    private final List<PolymorphicAssociationLinkIndex> requiredIndexes;
+
+    /**
+     * The native SQL of the projection lookups, if {@link #useNativeSql(String, String, String, String, String) enabled}.
+     */
+    private String subjectSql;
+    private String polymorphicReferenceSql;
+    private String subjectAndPolymorphicReferenceSql;
+
+    /**
+     * For the set-based {@link #deleteByPolymorphicReference(Object) delete} and
+     * {@link #reparent(Object, Object) reparent}, if native SQL is enabled.
+     */
+    private String table;
+    private String idColumn;
+    private String subjectColumn;
+    private String objectTypeColumn;
+    private String identifierColumn;
+    private String polymorphicReferenceCondition;
+
+    private PolymorphicAssociationLink.Factory.PersistStrategy persistStrategy =
+            PolymorphicAssociationLink.Factory.PersistStrategy.AUTOMATIC;
+
+    /**
+     * For links storing the object type and identifier of the polymorphic reference as strings.
+     */
+    protected PolymorphicAssociationLinkRepository(
+            final Class<S> subjectType,
+            final Class<P> polymorphicReferenceType,
+            final Class<L> linkType,
+            final Class<E> eventType,
+            final String subjectMember,
+            final String polymorphicObjectTypeMember,
+            final String polymorphicIdentifierMember) {
+        this(subjectType, polymorphicReferenceType, linkType, eventType,
+                false, subjectMember, polymorphicObjectTypeMember, polymorphicIdentifierMember, null);
+    }
+
+    /**
+     * For {@link CompactPolymorphicAssociationLink}s, storing the object type of the polymorphic reference as a code
+     * and its identifier as a number (else as a string).
+     */
+    protected PolymorphicAssociationLinkRepository(
+            final Class<S> subjectType,
+            final Class<P> polymorphicReferenceType,
+            final Class<L> linkType,
+            final Class<E> eventType,
+            final String subjectMember,
+            final String polymorphicObjectTypeCodeMember,
+            final String polymorphicIdentifierNumberMember,
+            final String polymorphicIdentifierStringMember) {
+        this(subjectType, polymorphicReferenceType, linkType, eventType,
+                true, subjectMember, polymorphicObjectTypeCodeMember, polymorphicIdentifierStringMember,
+                polymorphicIdentifierNumberMember);
+    }
+
+    private PolymorphicAssociationLinkRepository(
+            final Class<S> subjectType,
+            final Class<P> polymorphicReferenceType,
+            final Class<L> linkType,
+            final Class<E> eventType,
+            final boolean compact,
+            final String subjectMember,
+            final String objectTypeMember,
+            final String identifierMember,
+            final String identifierNumberMember) {
+        if(compact && !CompactPolymorphicAssociationLink.class.isAssignableFrom(linkType)) {
+            throw new IllegalArgumentException(String.format(
+                    "%s is not a subclass of %s", linkType.getName(), CompactPolymorphicAssociationLink.class.getName()));
+        }
+        this.subjectType = subjectType;
+        this.polymorphicReferenceType = polymorphicReferenceType;
+        this.linkType = linkType;
+        this.eventType = eventType;
+        this.compact = compact;
+
+        this.subjectFilter = subjectMember + " == :subject";
+        this.polymorphicReferenceFilter =
+                objectTypeMember + " == :objectType && " + identifierMember + " == :identifier";
+        this.polymorphicReferencesFilter =
+                objectTypeMember + " == :objectType && :identifiers.contains(" + identifierMember + ")";
+        this.polymorphicReferenceNumberFilter = compact
+                ? objectTypeMember + " == :objectType && " + identifierNumberMember + " == :identifier"
+                : null;
+        this.polymorphicReferenceNumbersFilter = compact
+                ? objectTypeMember + " == :objectType && :identifiers.contains(" + identifierNumberMember + ")"
+                : null;
+        this.polymorphicReferenceAnyObjectTypeFilter =
+                ":objectTypes.contains(" + objectTypeMember + ") && " + identifierMember + " == :identifier";
+        this.polymorphicReferenceNumberAnyObjectTypeFilter = compact
+                ? ":objectTypes.contains(" + objectTypeMember + ") && " + identifierNumberMember + " == :identifier"
+                : null;
+        this.polymorphicObjectTypeFilter = objectTypeMember + " == :objectType";
+
+        final List<PolymorphicAssociationLinkIndex> indexes = new ArrayList<>();
+        indexes.add(new PolymorphicAssociationLinkIndex(
+                linkType, FIND_BY_SUBJECT, subjectMember));
+        if(compact) {
+            indexes.add(new PolymorphicAssociationLinkIndex(
+                    linkType, FIND_BY_POLYMORPHIC_REFERENCE, objectTypeMember, identifierNumberMember));
+            indexes.add(new PolymorphicAssociationLinkIndex(
+                    linkType, FIND_BY_POLYMORPHIC_REFERENCE, objectTypeMember, identifierMember));
+            indexes.add(new PolymorphicAssociationLinkIndex(
+                    linkType, FIND_BY_SUBJECT_AND_POLYMORPHIC_REFERENCE, subjectMember, objectTypeMember, identifierNumberMember));
+        } else {
+            indexes.add(new PolymorphicAssociationLinkIndex(
+                    linkType, FIND_BY_POLYMORPHIC_REFERENCE, objectTypeMember, identifierMember));
+            indexes.add(new PolymorphicAssociationLinkIndex(
+                    linkType, FIND_BY_SUBJECT_AND_POLYMORPHIC_REFERENCE, subjectMember, objectTypeMember, identifierMember));
+        }
+        this.requiredIndexes = Collections.unmodifiableList(indexes);
+    }
+
+    /**
+     * The indexes that the link table requires to support the lookups of this repository, as checked by the
+     * {@link PolymorphicAssociationLinkIndexVerifier}.
+     */
+    @Programmatic
+    public List<PolymorphicAssociationLinkIndex> getRequiredIndexes() {
+        return requiredIndexes;
+    }
+
+    @Programmatic
+    public Class<L> getLinkType() {
+        return linkType;
+    }
+
+    @Programmatic
+    public Class<P> getPolymorphicReferenceType() {
+        return polymorphicReferenceType;
+    }
+
+    /**
+     * Changes the {@link PolymorphicAssociationLink.Factory.PersistStrategy strategy} of the factory used to
+     * {@link #createLink(Object, Object) create links}, by default
+     * {@link PolymorphicAssociationLink.Factory.PersistStrategy#AUTOMATIC}; to be called from the constructor.
+     */
+    protected void usePersistStrategy(final PolymorphicAssociationLink.Factory.PersistStrategy persistStrategy) {
+        this.persistStrategy = persistStrategy;
+    }
+
+    /**
+     * Enables the native SQL fast path for the <tt>findProjectionsXxx</tt> lookups (and for
+     * {@link #deleteByPolymorphicReference(Object)} and {@link #reparent(Object, Object)}): a prepared statement selecting
+     * just the four columns from the table of the link family (the table of the root type, whatever the inheritance
+     * strategy of its subtypes), so that no links are instantiated.  Without it, those lookups are derived from the
+     * corresponding <tt>findXxx</tt> lookups.
+     *
+     * <p>
+     *     The names are quoted; the subject and the link must have numeric datastore identity.  Not supported for
+     *     {@link CompactPolymorphicAssociationLink}s.
+     * </p>
+     */
+    protected void useNativeSql(
+            final String table,
+            final String idColumn,
+            final String subjectColumn,
+            final String objectTypeColumn,
+            final String identifierColumn) {
+        if(compact) {
+            throw new IllegalStateException(String.format(
+                    "Native SQL is not supported for %s, a compact link", linkType.getName()));
+        }
+        final String select = "SELECT " + quote(idColumn) + ", " + quote(subjectColumn) + ", "
+                + quote(objectTypeColumn) + ", " + quote(identifierColumn) + " FROM " + quote(table);
+        this.subjectSql = select + " WHERE " + quote(subjectColumn) + " = ?";
+        this.polymorphicReferenceSql =
+                select + " WHERE " + quote(objectTypeColumn) + " = ? AND " + quote(identifierColumn) + " = ?";
+        this.subjectAndPolymorphicReferenceSql = polymorphicReferenceSql + " AND " + quote(subjectColumn) + " = ?";
+
+        this.table = quote(table);
+        this.idColumn = quote(idColumn);
+        this.subjectColumn = quote(subjectColumn);
+        this.objectTypeColumn = quote(objectTypeColumn);
+        this.identifierColumn = quote(identifierColumn);
+        this.polymorphicReferenceCondition = quote(objectTypeColumn) + " = ? AND " + quote(identifierColumn) + " = ?";
+    }
+
+    private static String quote(final String name) {
+        return "\"" + name + "\"";
+    }
+
+    //region > init
+    protected PolymorphicAssociationLink.Factory<S, P, L, E> linkFactory;
+
+    @PostConstruct
+    @Programmatic
+    public void init() {
+        linkFactory = container.injectServicesInto(
+                new PolymorphicAssociationLink.Factory<>(
+                        this,
+                        subjectType,
+                        polymorphicReferenceType,
+                        linkType,
+                        eventType,
+                        persistStrategy
+                ));
+    }
+    //endregion
+
+    //region > findBySubject, findByPolymorphicReference, findBySubjectAndPolymorphicReference
+    @Programmatic
+    public List<L> findBySubject(final S subject) {
+        if(subject == null) {
+            return null;
+        }
+        final PolymorphicAssociationLinkTracer.Span span = PolymorphicAssociationLinkTracing.start(
+                linkTracers, PolymorphicAssociationLinkTracer.Operation.FIND_BY_SUBJECT, linkType);
+        try {
+            return linkMemo.memoize(
+                    Arrays.asList(linkType, FIND_BY_SUBJECT, subject),
+                    new Supplier<List<L>>() {
+                        @Override
+                        public List<L> get() {
+                            return linkCache.allMatches(linkType, FIND_BY_SUBJECT, subject, null,
+                                    new Supplier<List<L>>() {
+                                        @Override
+                                        public List<L> get() {
+                                            return execute(subjectFilter, ImmutableMap.<String, Object>of("subject", subject));
+                                        }
+                                    });
+                        }
+                    });
+        } finally {
+            PolymorphicAssociationLinkTracing.ended(span, null);
+        }
+    }
+
+    @Programmatic
+    public List<L> findByPolymorphicReference(final P polymorphicReference) {
+        final Bookmark bookmark = bookmarkFor(polymorphicReference);
+        if(bookmark == null) {
+            return null;
+        }
+        final PolymorphicAssociationLinkTracer.Span span = PolymorphicAssociationLinkTracing.start(
+                linkTracers, PolymorphicAssociationLinkTracer.Operation.FIND_BY_POLYMORPHIC_REFERENCE, linkType);
+        try {
+            return linkMemo.memoize(
+                    Arrays.asList(linkType, FIND_BY_POLYMORPHIC_REFERENCE, bookmark.toString()),
+                    new Supplier<List<L>>() {
+                        @Override
+                        public List<L> get() {
+                            return linkCache.allMatches(linkType, FIND_BY_POLYMORPHIC_REFERENCE, null, bookmark,
+                                    new Supplier<List<L>>() {
+                                        @Override
+                                        public List<L> get() {
+                                            final Criteria criteria = criteriaFor(polymorphicReference, bookmark);
+                                            if(criteria == null) {
+                                                return new ArrayList<L>();
+                                            }
+                                            return execute(criteria.type, criteria.filter, criteria.args);
+                                        }
+                                    });
+                        }
+                    });
+        } finally {
+            PolymorphicAssociationLinkTracing.ended(span, bookmark.getObjectType());
+        }
+    }
+
+    /**
+     * The link (if any) between the subject and polymorphic reference; if there are several, then the first.
+     */
+    @Programmatic
+    public L findBySubjectAndPolymorphicReference(final S subject, final P polymorphicReference) {
+        if(subject == null) {
+            return null;
+        }
+        final Bookmark bookmark = bookmarkFor(polymorphicReference);
+        if(bookmark == null) {
+            return null;
+        }
+        final PolymorphicAssociationLinkTracer.Span span = PolymorphicAssociationLinkTracing.start(
+                linkTracers, PolymorphicAssociationLinkTracer.Operation.FIND_BY_SUBJECT_AND_POLYMORPHIC_REFERENCE, linkType);
+        try {
+            return linkMemo.memoize(
+                    Arrays.asList(linkType, FIND_BY_SUBJECT_AND_POLYMORPHIC_REFERENCE, subject, bookmark.toString()),
+                    new Supplier<L>() {
+                        @Override
+                        public L get() {
+                            return linkCache.firstMatch(linkType, FIND_BY_SUBJECT_AND_POLYMORPHIC_REFERENCE, subject, bookmark,
+                                    new Supplier<L>() {
+                                        @Override
+                                        public L get() {
+                                            final Criteria criteria = criteriaFor(polymorphicReference, bookmark, subject);
+                                            if(criteria == null) {
+                                                return null;
+                                            }
+                                            final List<L> links = execute(criteria.type, criteria.filter, criteria.args);
+                                            return links.isEmpty() ? null : links.get(0);
+                                        }
+                                    });
+                        }
+                    });
+        } finally {
+            PolymorphicAssociationLinkTracing.ended(span, bookmark.getObjectType());
+        }
+    }
+    //endregion
+
+    //region > findByPolymorphicReferences
+    /**
+     * Multi-reference equivalent of {@link #findByPolymorphicReference(Object)}, running a single query per object
+     * type (or, for references whose subtype has a {@link TypedPolymorphicReference typed reference property}, per
+     * subtype).
+     *
+     * <p>
+     *     Every (non-null) reference is a key of the returned map, mapped to an empty list if it has no links.
+     * </p>
+     */
+    @Programmatic
+    public Map<P, List<L>> findByPolymorphicReferences(final Collection<? extends P> polymorphicReferences) {
+        final PolymorphicAssociationLinkTracer.Span span = PolymorphicAssociationLinkTracing.start(
+                linkTracers, PolymorphicAssociationLinkTracer.Operation.FIND_BY_POLYMORPHIC_REFERENCES, linkType);
+        try {
+            return doFindByPolymorphicReferences(polymorphicReferences);
+        } finally {
+            PolymorphicAssociationLinkTracing.ended(span, null);
+        }
+    }
+
+    private Map<P, List<L>> doFindByPolymorphicReferences(final Collection<? extends P> polymorphicReferences) {
+
+        final Map<P, List<L>> linksByReference = new LinkedHashMap<>();
+        final Map<String, P> referenceByBookmark = new LinkedHashMap<>();
+        final Map<String, List<String>> identifiersByObjectType = new LinkedHashMap<>();
+        final Map<Class<? extends L>, List<P>> typedReferencesBySubtype = new LinkedHashMap<>();
+        for (final P polymorphicReference : polymorphicReferences) {
+            if(polymorphicReference == null) {
+                continue;
+            }
+            linksByReference.put(polymorphicReference, new ArrayList<L>());
+            final Bookmark bookmark = bookmarkService.bookmarkFor(polymorphicReference);
+            if(bookmark == null) {
+                continue;
+            }
+            referenceByBookmark.put(bookmark.toString(), polymorphicReference);
+            final Class<? extends L> subtype = linkFactory.subtypeFor(null, polymorphicReference);
+            if(subtype != null && TypedPolymorphicReferenceProperty.of(subtype) != null) {
+                List<P> typedReferences = typedReferencesBySubtype.get(subtype);
+                if(typedReferences == null) {
+                    typedReferences = new ArrayList<>();
+                    typedReferencesBySubtype.put(subtype, typedReferences);
+                }
+                typedReferences.add(polymorphicReference);
+                continue;
+            }
+            List<String> identifiers = identifiersByObjectType.get(bookmark.getObjectType());
+            if(identifiers == null) {
+                identifiers = new ArrayList<>();
+                identifiersByObjectType.put(bookmark.getObjectType(), identifiers);
+            }
+            identifiers.add(bookmark.getIdentifier());
+        }
+        final List<L> links = new ArrayList<>();
+        for (final Map.Entry<Class<? extends L>, List<P>> entry : typedReferencesBySubtype.entrySet()) {
+            final String typedPropertyName = TypedPolymorphicReferenceProperty.of(entry.getKey()).getName();
+            links.addAll(execute(entry.getKey(), ":polymorphicReferences.contains(" + typedPropertyName + ")",
+                    ImmutableMap.<String, Object>of("polymorphicReferences", entry.getValue())));
+        }
+        for (final Map.Entry<String, List<String>> entry : identifiersByObjectType.entrySet()) {
+            links.addAll(findByIdentifiers(entry.getKey(), entry.getValue()));
+        }
+        for (final L link : links) {
+            final String bookmarkStr = new Bookmark(
+                    objectTypeMigration.currentObjectTypeOf(link.getPolymorphicObjectType()),
+                    link.getPolymorphicIdentifier()).toString();
+            linksByReference.get(referenceByBookmark.get(bookmarkStr)).add(link);
+        }
+        return linksByReference;
+    }
+    //endregion
+
+    //region > findProjectionsBySubject, findProjectionsByPolymorphicReference, findProjectionBySubjectAndPolymorphicReference
+    /**
+     * As {@link #findBySubject(Object)}, but returning {@link PolymorphicAssociationLinkProjection projections} of
+     * the links, for read-only use.
+     */
+    @Programmatic
+    public List<PolymorphicAssociationLinkProjection> findProjectionsBySubject(final S subject) {
+        if(subject == null) {
+            return null;
+        }
+        return linkMemo.memoize(
+                Arrays.asList(linkType, FIND_PROJECTIONS_BY_SUBJECT, subject),
+                new Supplier<List<PolymorphicAssociationLinkProjection>>() {
+                    @Override
+                    public List<PolymorphicAssociationLinkProjection> get() {
+                        final Long subjectKey = subjectSql != null ? keyOf(subject) : null;
+                        return subjectKey != null
+                                ? executeSql(subjectSql, subjectKey)
+                                : projectionsOf(findBySubject(subject));
+                    }
+                });
+    }
+
+    /**
+     * As {@link #findByPolymorphicReference(Object)}, but returning
+     * {@link PolymorphicAssociationLinkProjection projections} of the links, for read-only use.
+     */
+    @Programmatic
+    public List<PolymorphicAssociationLinkProjection> findProjectionsByPolymorphicReference(final P polymorphicReference) {
+        final Bookmark bookmark = bookmarkFor(polymorphicReference);
+        if(bookmark == null) {
+            return null;
+        }
+        return linkMemo.memoize(
+                Arrays.asList(linkType, FIND_PROJECTIONS_BY_POLYMORPHIC_REFERENCE, bookmark.toString()),
+                new Supplier<List<PolymorphicAssociationLinkProjection>>() {
+                    @Override
+                    public List<PolymorphicAssociationLinkProjection> get() {
+                        return polymorphicReferenceSql != null && !isRenamed(bookmark)
+                                ? executeSql(polymorphicReferenceSql, bookmark.getObjectType(), bookmark.getIdentifier())
+                                : projectionsOf(findByPolymorphicReference(polymorphicReference));
+                    }
+                });
+    }
+
+    /**
+     * As {@link #findBySubjectAndPolymorphicReference(Object, Object)}, but returning a
+     * {@link PolymorphicAssociationLinkProjection projection} of the link, for read-only use.
+     */
+    @Programmatic
+    public PolymorphicAssociationLinkProjection findProjectionBySubjectAndPolymorphicReference(
+            final S subject,
+            final P polymorphicReference) {
+        if(subject == null) {
+            return null;
+        }
+        final Bookmark bookmark = bookmarkFor(polymorphicReference);
+        if(bookmark == null) {
+            return null;
+        }
+        return linkMemo.memoize(
+                Arrays.asList(linkType, FIND_PROJECTION_BY_SUBJECT_AND_POLYMORPHIC_REFERENCE, subject, bookmark.toString()),
+                new Supplier<PolymorphicAssociationLinkProjection>() {
+                    @Override
+                    public PolymorphicAssociationLinkProjection get() {
+                        final Long subjectKey = subjectAndPolymorphicReferenceSql != null && !isRenamed(bookmark)
+                                ? keyOf(subject)
+                                : null;
+                        if(subjectKey == null) {
+                            final L link = findBySubjectAndPolymorphicReference(subject, polymorphicReference);
+                            return link != null ? projectionOf(link) : null;
+                        }
+                        final List<PolymorphicAssociationLinkProjection> projections = executeSql(
+                                subjectAndPolymorphicReferenceSql,
+                                bookmark.getObjectType(), bookmark.getIdentifier(), subjectKey);
+                        return projections.isEmpty() ? null : projections.get(0);
+                    }
+                });
+    }
+    //endregion
+
+    //region > promote, promoteAll, subjectsOf, polymorphicReferencesOf
+    /**
+     * The link of the projection.
+     */
+    @Programmatic
+    public L promote(final PolymorphicAssociationLinkProjection projection) {
+        return linkType.cast(isisJdoSupport.getJdoPersistenceManager().getObjectById(projection.getLinkId()));
+    }
+
+    /**
+     * The links of the projections (in the same order).
+     */
+    @Programmatic
+    public List<L> promoteAll(final List<PolymorphicAssociationLinkProjection> projections) {
+        final List<Object> linkIds = new ArrayList<>();
+        for (final PolymorphicAssociationLinkProjection projection : projections) {
+            linkIds.add(projection.getLinkId());
+        }
+        final List<L> links = new ArrayList<>();
+        for (final Object link : isisJdoSupport.getJdoPersistenceManager().getObjectsById(linkIds)) {
+            links.add(linkType.cast(link));
+        }
+        return links;
+    }
+
+    /**
+     * The subjects of the projections (in the same order), without instantiating the links.
+     */
+    @Programmatic
+    public List<S> subjectsOf(final List<PolymorphicAssociationLinkProjection> projections) {
+        final List<Object> subjectIds = new ArrayList<>();
+        for (final PolymorphicAssociationLinkProjection projection : projections) {
+            subjectIds.add(projection.getSubjectId());
+        }
+        final List<S> subjects = new ArrayList<>();
+        for (final Object subject : isisJdoSupport.getJdoPersistenceManager().getObjectsById(subjectIds)) {
+            subjects.add(subjectType.cast(subject));
+        }
+        return subjects;
+    }
+
+    /**
+     * The polymorphic references of the projections (in the same order), fetched in bulk without instantiating the
+     * links.
+     */
+    @Programmatic
+    public List<P> polymorphicReferencesOf(final List<PolymorphicAssociationLinkProjection> projections) {
+        final List<Bookmark> bookmarks = new ArrayList<>();
+        for (final PolymorphicAssociationLinkProjection projection : projections) {
+            bookmarks.add(projection.getPolymorphicBookmark());
+        }
+        final long start = System.nanoTime();
+        final List<Object> objects = polymorphicReferenceResolver.lookupAll(bookmarks);
+        PolymorphicAssociationLinkMetering.recordTime(
+                linkMetrics, PolymorphicAssociationLinkMetrics.Operation.REFERENCE_LOOKUP, linkType, start);
+        final List<P> polymorphicReferences = new ArrayList<>();
+        for (final Object polymorphicReference : objects) {
+            polymorphicReferences.add(polymorphicReferenceType.cast(polymorphicReference));
+        }
+        return polymorphicReferences;
+    }
+    //endregion
+
+    //region > existsBySubject, existsByPolymorphicReference, existsBySubjectAndPolymorphicReference
+    /**
+     * Whether there are any links for the subject, without materializing them (the query is limited to one row).
+     */
+    @Programmatic
+    public boolean existsBySubject(final S subject) {
+        if(subject == null) {
+            return false;
+        }
+        return linkMemo.memoize(
+                Arrays.asList(linkType, EXISTS_BY_SUBJECT, subject),
+                new Supplier<Boolean>() {
+                    @Override
+                    public Boolean get() {
+                        return exists(subjectFilter, ImmutableMap.<String, Object>of("subject", subject));
+                    }
+                });
+    }
+
+    @Programmatic
+    public boolean existsByPolymorphicReference(final P polymorphicReference) {
+        final Bookmark bookmark = bookmarkFor(polymorphicReference);
+        if(bookmark == null) {
+            return false;
+        }
+        return linkMemo.memoize(
+                Arrays.asList(linkType, EXISTS_BY_POLYMORPHIC_REFERENCE, bookmark.toString()),
+                new Supplier<Boolean>() {
+                    @Override
+                    public Boolean get() {
+                        final Criteria criteria = criteriaFor(polymorphicReference, bookmark);
+                        return criteria != null && exists(criteria.type, criteria.filter, criteria.args);
+                    }
+                });
+    }
+
+    @Programmatic
+    public boolean existsBySubjectAndPolymorphicReference(final S subject, final P polymorphicReference) {
+        if(subject == null) {
+            return false;
+        }
+        final Bookmark bookmark = bookmarkFor(polymorphicReference);
+        if(bookmark == null) {
+            return false;
+        }
+        return linkMemo.memoize(
+                Arrays.asList(linkType, EXISTS_BY_SUBJECT_AND_POLYMORPHIC_REFERENCE, subject, bookmark.toString()),
+                new Supplier<Boolean>() {
+                    @Override
+                    public Boolean get() {
+                        final Criteria criteria = criteriaFor(polymorphicReference, bookmark, subject);
+                        return criteria != null && exists(criteria.type, criteria.filter, criteria.args);
+                    }
+                });
+    }
+    //endregion
+
+    //region > countBySubject, countByPolymorphicReference
+    /**
+     * The number of links for the subject, using a <tt>COUNT</tt> query rather than materializing them.
+     */
+    @Programmatic
+    public long countBySubject(final S subject) {
+        if(subject == null) {
+            return 0L;
+        }
+        return linkMemo.memoize(
+                Arrays.asList(linkType, COUNT_BY_SUBJECT, subject),
+                new Supplier<Long>() {
+                    @Override
+                    public Long get() {
+                        return count(subjectFilter, ImmutableMap.<String, Object>of("subject", subject));
+                    }
+                });
+    }
+
+    @Programmatic
+    public long countByPolymorphicReference(final P polymorphicReference) {
+        final Bookmark bookmark = bookmarkFor(polymorphicReference);
+        if(bookmark == null) {
+            return 0L;
+        }
+        return linkMemo.memoize(
+                Arrays.asList(linkType, COUNT_BY_POLYMORPHIC_REFERENCE, bookmark.toString()),
+                new Supplier<Long>() {
+                    @Override
+                    public Long get() {
+                        final Criteria criteria = criteriaFor(polymorphicReference, bookmark);
+                        return criteria != null ? count(criteria.type, criteria.filter, criteria.args) : 0L;
+                    }
+                });
+    }
+    //endregion
+
+    //region > createLink, createOrGet, createLinks
+    @Programmatic
+    public L createLink(final S subject, final P polymorphicReference) {
+        return linkFactory.createLink(subject, polymorphicReference);
+    }
+
+    /**
+     * Idempotent equivalent of {@link #createLink(Object, Object)}: the link between the subject and polymorphic
+     * reference, created unless it already exists.  Relies on a unique constraint on the subject and polymorphic
+     * reference, see {@link PolymorphicAssociationLink.Factory#createOrGet(Object, Object, Supplier)}.
+     */
+    @Programmatic
+    public L createOrGet(final S subject, final P polymorphicReference) {
+        return linkFactory.createOrGet(subject, polymorphicReference, new Supplier<L>() {
+            @Override
+            public L get() {
+                return findBySubjectAndPolymorphicReference(subject, polymorphicReference);
+            }
+        });
+    }
+
+    /**
+     * Bulk equivalent of {@link #createLink(Object, Object)}, eg for imports.
+     */
+    @Programmatic
+    public List<L> createLinks(final Collection<PolymorphicAssociationLink.Pair<S, P>> subjectsAndReferences) {
+        return linkFactory.createLinks(subjectsAndReferences);
+    }
+    //endregion
+
+    //region > deleteByPolymorphicReference
+    /**
+     * Deletes all links to the polymorphic reference, without instantiating them, returning the number deleted;
+     * called by the {@link PolymorphicAssociationLinkCascadeDeleteSubscriber} as the reference is being removed.
+     *
+     * <p>
+     *     With {@link #useNativeSql(String, String, String, String, String) native SQL} this is a single
+     *     <tt>DELETE ... WHERE objectType = ? AND identifier = ?</tt> (preceded, if the subtype for the reference has
+     *     its own table, by a <tt>DELETE</tt> of the matching rows of that table), after which any links already
+     *     loaded are evicted; otherwise a JDOQL delete by query.  The transaction is <i>not</i> flushed (this is called
+     *     from within a flush), so links to the reference that are yet to be inserted are not deleted.
+     * </p>
+     *
+     * <p>
+     *     The {@link PolymorphicAssociationLinkMemo memo} and {@link PolymorphicAssociationLinkCache cache} are
+     *     invalidated, but any other request-scoped state derived from the links (such as a {@link BatchLoader} keyed
+     *     by the reference) is not known to the repository: subclasses should override this method to invalidate it.
+     * </p>
+     */
+    @Programmatic
+    public long deleteByPolymorphicReference(final P polymorphicReference) {
+        final Bookmark bookmark = bookmarkFor(polymorphicReference);
+        if(bookmark == null) {
+            return 0L;
+        }
+        final long start = System.nanoTime();
+        try {
+            return deleteByPolymorphicReference(polymorphicReference, bookmark);
+        } finally {
+            PolymorphicAssociationLinkMetering.recordTime(
+                    linkMetrics, PolymorphicAssociationLinkMetrics.Operation.DELETE_BY_POLYMORPHIC_REFERENCE,
+                    linkType, start);
+        }
+    }
+
+    private long deleteByPolymorphicReference(final P polymorphicReference, final Bookmark bookmark) {
+        linkMemo.invalidateAll();
+        // the subjects of the deleted links are not known, so neither are the cache entries to invalidate
+        linkCache.invalidateAll();
+
+        if(table == null) {
+            final Criteria criteria = criteriaFor(polymorphicReference, bookmark);
+            if(criteria == null) {
+                return 0L;
+            }
+            final Query query = isisJdoSupport.getJdoPersistenceManager().newQuery(criteria.type);
+            query.setFilter(criteria.filter);
+            return query.deletePersistentAll(criteria.args);
+        }
+
+        final String subtypeTable = subtypeTableFor(polymorphicReference);
+        long deleted = 0;
+        for (final String objectType : objectTypeMigration.objectTypesFor(bookmark.getObjectType())) {
+            if(subtypeTable != null) {
+                executeUpdate("DELETE FROM " + quote(subtypeTable) + " WHERE " + idColumn + " IN "
+                                + "(SELECT " + idColumn + " FROM " + table + " WHERE " + polymorphicReferenceCondition + ")",
+                        objectType, bookmark.getIdentifier());
+            }
+            deleted += executeUpdate("DELETE FROM " + table + " WHERE " + polymorphicReferenceCondition,
+                    objectType, bookmark.getIdentifier());
+        }
+        evictLinks();
+        return deleted;
+    }
+
+    /**
+     * The table of the subtype of link used for the reference, if it has its own (<tt>NEW_TABLE</tt>), else
+     * <tt>null</tt>.
+     */
+    private String subtypeTableFor(final P polymorphicReference) {
+        final Class<? extends L> subtype = linkFactory.subtypeFor(null, polymorphicReference);
+        return subtype != null && subtype != linkType ? ownTableOf(subtype, metadataOf(subtype)) : null;
+    }
+
+    /**
+     * Evicts the links already loaded (in this persistence manager, or the level 2 cache), following an update using
+     * native SQL; only clean links are evicted, any changes pending being unaffected.
+     */
+    private void evictLinks() {
+        final PersistenceManager persistenceManager = isisJdoSupport.getJdoPersistenceManager();
+        persistenceManager.evictAll(true, linkType);
+        persistenceManager.getPersistenceManagerFactory().getDataStoreCache().evictAll(true, linkType);
+    }
+
+    private long executeUpdate(final String sql, final Object... args) {
+        return executeUpdate(isisJdoSupport.getJdoPersistenceManager(), sql, args);
+    }
+
+    private long executeUpdate(final PersistenceManager persistenceManager, final String sql, final Object... args) {
+        final JDOConnection jdoConnection = persistenceManager.getDataStoreConnection();
+        try (final PreparedStatement statement =
+                     ((Connection) jdoConnection.getNativeConnection()).prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement.executeUpdate();
+        } catch (final SQLException ex) {
+            throw new NonRecoverableException(String.format(
+                    "Unable to update links of %s: %s", linkType.getName(), sql), ex);
+        } finally {
+            jdoConnection.close();
+        }
+    }
+    //endregion
+
+    //region > reparent
+    public static final int DEFAULT_REPARENT_CHUNK_SIZE = 1000;
+
+    /**
+     * As {@link #reparent(Object, Object, int)}, in chunks of {@value #DEFAULT_REPARENT_CHUNK_SIZE}.
+     */
+    @Programmatic
+    public long reparent(final P fromReference, final P toReference) {
+        return reparent(fromReference, toReference, DEFAULT_REPARENT_CHUNK_SIZE);
+    }
+
+    /**
+     * Moves all links from one polymorphic reference to another (for example when merging duplicates), returning the
+     * number of links moved; both references must be persistent and use the same subtype of link.
+     *
+     * <p>
+     *     Where a subject is already linked to <tt>toReference</tt>, its link to <tt>fromReference</tt> is deleted
+     *     rather than moved (so that any unique constraint on the subject and reference is not violated): the link
+     *     of the surviving reference is always the one kept.
+     * </p>
+     *
+     * <p>
+     *     With {@link #useNativeSql(String, String, String, String, String) native SQL} the links are neither
+     *     instantiated nor bookmarked one by one: their ids are selected (in id order), then deleted or updated
+     *     <tt>chunkSize</tt> at a time by <tt>... WHERE id IN (...)</tt>, including the typed foreign key column (eg
+     *     <tt>party_id</tt>) of the subtype, in its own table if <tt>NEW_TABLE</tt>; any links already loaded are then
+     *     evicted.  Otherwise the links are found and each has its polymorphic reference set.
+     * </p>
+     *
+     * <p>
+     *     As for {@link #deleteByPolymorphicReference(Object)}, subclasses should override this method to invalidate
+     *     any other request-scoped state derived from the links of either reference.
+     * </p>
+     */
+    @Programmatic
+    public long reparent(final P fromReference, final P toReference, final int chunkSize) {
+        if(chunkSize < 1) {
+            throw new IllegalArgumentException(String.format("Chunk size must be positive, was %d", chunkSize));
+        }
+        final Bookmark fromBookmark = bookmarkFor(fromReference);
+        final Bookmark toBookmark = bookmarkFor(toReference);
+        if(fromBookmark == null || toBookmark == null) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot reparent links of %s: both references must be persistent", linkType.getName()));
+        }
+        if(fromBookmark.equals(toBookmark)) {
+            return 0L;
+        }
+        final Class<? extends L> subtype = linkFactory.subtypeFor(null, fromReference);
+        final Class<? extends L> toSubtype = linkFactory.subtypeFor(null, toReference);
+        if(subtype != toSubtype) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot reparent links of %s from %s to %s: the subtype of link would change from %s to %s",
+                    linkType.getName(), fromBookmark, toBookmark,
+                    subtype != null ? subtype.getName() : null, toSubtype != null ? toSubtype.getName() : null));
+        }
+
+        final long start = System.nanoTime();
+        try {
+            return table != null && !isRenamed(fromBookmark)
+                    ? reparentUsingSql(fromBookmark, toBookmark, subtype, toReference, chunkSize)
+                    : reparentLinks(fromReference, toReference);
+        } finally {
+            linkMemo.invalidateAll();
+            // as for deleteByPolymorphicReference, the subjects of the links are not known
+            linkCache.invalidateAll();
+            PolymorphicAssociationLinkMetering.recordTime(
+                    linkMetrics, PolymorphicAssociationLinkMetrics.Operation.REPARENT, linkType, start);
+        }
+    }
+
+    private long reparentLinks(final P fromReference, final P toReference) {
+        final Set<S> subjectsOfToReference = new HashSet<>();
+        for (final L link : findByPolymorphicReference(toReference)) {
+            subjectsOfToReference.add(link.getSubject());
+        }
+        long reparented = 0;
+        for (final L link : new ArrayList<>(findByPolymorphicReference(fromReference))) {
+            if(subjectsOfToReference.contains(link.getSubject())) {
+                container.remove(link);
+            } else {
+                link.setPolymorphicReference(toReference);
+                reparented++;
+            }
+        }
+        return reparented;
+    }
+
+    private long reparentUsingSql(
+            final Bookmark fromBookmark,
+            final Bookmark toBookmark,
+            final Class<? extends L> subtype,
+            final P toReference,
+            final int chunkSize) {
+        transactionService.flushTransaction();
+
+        final String subtypeTable;
+        final String typedReferenceColumn;
+        if(subtype != null && subtype != linkType) {
+            final TypeMetadata typeMetadata = metadataOf(subtype);
+            subtypeTable = ownTableOf(subtype, typeMetadata);
+            typedReferenceColumn = typedReferenceColumnOf(subtype, typeMetadata, toReference);
+        } else {
+            subtypeTable = null;
+            typedReferenceColumn = null;
+        }
+
+        // the links to toReference may yet be stored with a former object type
+        final List<String> toObjectTypes = objectTypeMigration.objectTypesFor(toBookmark.getObjectType());
+        final String linkedToSubjectOfToReference = "EXISTS (SELECT 1 FROM " + table + " t"
+                + " WHERE t." + subjectColumn + " = f." + subjectColumn
+                + " AND " + in("t." + objectTypeColumn, toObjectTypes.size())
+                + " AND t." + identifierColumn + " = ?)";
+        final String selectIds = "SELECT f." + idColumn + " FROM " + table + " f"
+                + " WHERE f." + objectTypeColumn + " = ? AND f." + identifierColumn + " = ? AND ";
+        final List<Object> selectArgs = new ArrayList<>();
+        selectArgs.add(fromBookmark.getObjectType());
+        selectArgs.add(fromBookmark.getIdentifier());
+        selectArgs.addAll(toObjectTypes);
+        selectArgs.add(toBookmark.getIdentifier());
+        final Object[] args = selectArgs.toArray();
+        final List<Long> collidingIds =
+                selectIds(selectIds + linkedToSubjectOfToReference + " ORDER BY f." + idColumn, args);
+        final List<Long> reparentedIds =
+                selectIds(selectIds + "NOT " + linkedToSubjectOfToReference + " ORDER BY f." + idColumn, args);
+
+        for (final List<Long> chunk : Lists.partition(collidingIds, chunkSize)) {
+            if(subtypeTable != null) {
+                executeUpdate("DELETE FROM " + quote(subtypeTable) + " WHERE " + idIn(chunk), chunk.toArray());
+            }
+            executeUpdate("DELETE FROM " + table + " WHERE " + idIn(chunk), chunk.toArray());
+        }
+        for (final List<Long> chunk : Lists.partition(reparentedIds, chunkSize)) {
+            if(typedReferenceColumn != null) {
+                final List<Object> typedArgs = new ArrayList<>();
+                typedArgs.add(Identifiers.asLong(toBookmark.getIdentifier()));
+                typedArgs.addAll(chunk);
+                executeUpdate("UPDATE " + (subtypeTable != null ? quote(subtypeTable) : table)
+                                + " SET " + quote(typedReferenceColumn) + " = ? WHERE " + idIn(chunk),
+                        typedArgs.toArray());
+            }
+            final List<Object> updateArgs = new ArrayList<>();
+            updateArgs.add(toBookmark.getObjectType());
+            updateArgs.add(toBookmark.getIdentifier());
+            updateArgs.addAll(chunk);
+            executeUpdate("UPDATE " + table + " SET " + objectTypeColumn + " = ?, " + identifierColumn + " = ?"
+                            + " WHERE " + idIn(chunk),
+                    updateArgs.toArray());
+        }
+
+        evictLinks();
+
+        return reparentedIds.size();
+    }
+
+    private String idIn(final List<Long> ids) {
+        return in(idColumn, ids.size());
+    }
+
+    private static String in(final String column, final int size) {
+        final StringBuilder buf = new StringBuilder(column).append(" IN (");
+        for (int i = 0; i < size; i++) {
+            buf.append(i == 0 ? "?" : ", ?");
+        }
+        return buf.append(")").toString();
+    }
+
+    private List<Long> selectIds(final String sql, final Object... args) {
+        final Query query = isisJdoSupport.getJdoPersistenceManager().newQuery("javax.jdo.query.SQL", sql);
+        try {
+            final List<?> rows = (List<?>) query.executeWithArray(args);
+            final List<Long> ids = new ArrayList<>(rows.size());
+            for (final Object row : rows) {
+                ids.add(((Number) row).longValue());
+            }
+            return ids;
+        } finally {
+            query.closeAll();
+        }
+    }
+
+    /**
+     * The column of the subtype's own property referencing the polymorphic reference (eg <tt>party_id</tt>), if any:
+     * its {@link TypedPolymorphicReference typed reference property} if declared, else the (first) property of a type
+     * that the reference is an instance of.  The property must map its column explicitly.
+     */
+    private static String typedReferenceColumnOf(
+            final Class<?> subtype,
+            final TypeMetadata typeMetadata,
+            final Object polymorphicReference) {
+        if(typeMetadata == null || typeMetadata.getMembers() == null) {
+            return null;
+        }
+        final TypedPolymorphicReferenceProperty typedProperty = TypedPolymorphicReferenceProperty.of(subtype);
+        for (final MemberMetadata memberMetadata : typeMetadata.getMembers()) {
+            final Class<?> propertyType = propertyTypeOf(subtype, memberMetadata.getName());
+            if(propertyType == null
+                    || (typedProperty != null
+                            ? !typedProperty.getName().equals(memberMetadata.getName())
+                            : !propertyType.isInstance(polymorphicReference))) {
+                continue;
+            }
+            if(memberMetadata.getColumn() != null) {
+                return memberMetadata.getColumn();
+            }
+            final ColumnMetadata[] columns = memberMetadata.getColumns();
+            if(columns != null && columns.length == 1 && columns[0].getName() != null) {
+                return columns[0].getName();
+            }
+            throw new IllegalStateException(String.format(
+                    "%s#%s references %s but does not name its column",
+                    subtype.getName(), memberMetadata.getName(), propertyType.getName()));
+        }
+        return null;
+    }
+
+    private static Class<?> propertyTypeOf(final Class<?> type, final String property) {
+        if(property == null || property.isEmpty()) {
+            return null;
+        }
+        try {
+            return type.getDeclaredField(property).getType();
+        } catch (final NoSuchFieldException ex) {
+            return null;
+        }
+    }
+    //endregion
+
+    //region > migrateObjectType
+    /**
+     * Rewrites the object type of (up to) <tt>chunkSize</tt> links from a former object type to its renamed object
+     * type, returning the number rewritten; called by {@link PolymorphicObjectTypeMigration} within a transaction of
+     * the persistence manager provided (not the Isis one).
+     *
+     * <p>
+     *     With {@link #useNativeSql(String, String, String, String, String) native SQL} the ids of the links are
+     *     selected and then updated by <tt>... WHERE id IN (...)</tt>, otherwise the links are queried and updated.
+     * </p>
+     */
+    @Programmatic
+    public int migrateObjectType(
+            final PersistenceManager persistenceManager,
+            final String formerObjectType,
+            final String objectType,
+            final int chunkSize) {
+        if(table != null) {
+            return migrateObjectTypeUsingSql(persistenceManager, formerObjectType, objectType, chunkSize);
+        }
+        final Object formerValue;
+        final Integer objectTypeCode;
+        if(compact) {
+            formerValue = objectTypeDictionary.codeIfAnyFor(formerObjectType);
+            if(formerValue == null) {
+                return 0;
+            }
+            objectTypeCode = objectTypeDictionary.codeFor(objectType);
+        } else {
+            formerValue = formerObjectType;
+            objectTypeCode = null;
+        }
+        final Query query = persistenceManager.newQuery(linkType);
+        query.setFilter(polymorphicObjectTypeFilter);
+        query.setRange(0, chunkSize);
+        try {
+            final List<?> links = (List<?>) query.executeWithMap(ImmutableMap.of("objectType", formerValue));
+            for (final Object each : links) {
+                // the links are not managed by Isis, so have no services injected
+                if(compact) {
+                    ((CompactPolymorphicAssociationLink<?, ?, ?>) each).setPolymorphicObjectTypeCode(objectTypeCode);
+                } else {
+                    linkType.cast(each).setPolymorphicObjectType(objectType);
+                }
+            }
+            return links.size();
+        } finally {
+            query.closeAll();
+        }
+    }
+
+    private int migrateObjectTypeUsingSql(
+            final PersistenceManager persistenceManager,
+            final String formerObjectType,
+            final String objectType,
+            final int chunkSize) {
+        final List<Long> ids = new ArrayList<>();
+        final JDOConnection jdoConnection = persistenceManager.getDataStoreConnection();
+        try (final PreparedStatement statement = ((Connection) jdoConnection.getNativeConnection()).prepareStatement(
+                "SELECT " + idColumn + " FROM " + table + " WHERE " + objectTypeColumn + " = ?")) {
+            statement.setMaxRows(chunkSize);
+            statement.setString(1, formerObjectType);
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    ids.add(resultSet.getLong(1));
+                }
+            }
+        } catch (final SQLException ex) {
+            throw new NonRecoverableException(String.format("Unable to query links of %s", linkType.getName()), ex);
+        } finally {
+            jdoConnection.close();
+        }
+        if(ids.isEmpty()) {
+            return 0;
+        }
+        final List<Object> args = new ArrayList<>();
+        args.add(objectType);
+        args.addAll(ids);
+        args.add(formerObjectType);
+        executeUpdate(persistenceManager,
+                "UPDATE " + table + " SET " + objectTypeColumn + " = ? WHERE " + idIn(ids)
+                        + " AND " + objectTypeColumn + " = ?",
+                args.toArray());
+        return ids.size();
+    }
+    //endregion
+
+    //region > resolveAll
+    /**
+     * The polymorphic references of the links (in the same order), fetched in bulk.
+     */
+    @Programmatic
+    public List<P> resolveAll(final List<L> links) {
+        return linkFactory.resolveAll(links);
+    }
+    //endregion
+
+    //region > helpers
+    private TypeMetadata metadataOf(final Class<?> type) {
+        return isisJdoSupport.getJdoPersistenceManager().getPersistenceManagerFactory().getMetadata(type.getName());
+    }
+
+    /**
+     * The table of the type, if it has its own (<tt>NEW_TABLE</tt>), else <tt>null</tt>.
+     */
+    private static String ownTableOf(final Class<?> type, final TypeMetadata typeMetadata) {
+        if(typeMetadata == null
+                || typeMetadata.getInheritanceMetadata() == null
+                || typeMetadata.getInheritanceMetadata().getStrategy() != InheritanceStrategy.NEW_TABLE) {
+            return null;
+        }
+        return typeMetadata.getTable() != null ? typeMetadata.getTable() : type.getSimpleName();
+    }
+
+    private Bookmark bookmarkFor(final P polymorphicReference) {
+        return polymorphicReference != null ? bookmarkService.bookmarkFor(polymorphicReference) : null;
+    }
+
+    /**
+     * Whether links to the referenced object may yet be stored with a former object type, so cannot be queried by
+     * native SQL.
+     */
+    private boolean isRenamed(final Bookmark bookmark) {
+        return objectTypeMigration.objectTypesFor(bookmark.getObjectType()).size() > 1;
+    }
+
+    private class Criteria {
+        private final Class<? extends L> type;
+        private final String filter;
+        private final Map<String, Object> args;
+
+        Criteria(final String filter, final Map<String, Object> args) {
+            this(linkType, filter, args);
+        }
+
+        Criteria(final Class<? extends L> type, final String filter, final Map<String, Object> args) {
+            this.type = type;
+            this.filter = filter;
+            this.args = args;
+        }
+    }
+
+    /**
+     * The criteria to find links to the referenced object: by the foreign key of the subtype's
+     * {@link TypedPolymorphicReference typed reference property} if the subtype for the reference has one, else as per
+     * {@link #criteriaFor(Bookmark)}.
+     */
+    private Criteria criteriaFor(final P polymorphicReference, final Bookmark bookmark) {
+        final Class<? extends L> subtype = linkFactory.subtypeFor(null, polymorphicReference);
+        final TypedPolymorphicReferenceProperty typedProperty =
+                subtype != null ? TypedPolymorphicReferenceProperty.of(subtype) : null;
+        if(typedProperty == null) {
+            return criteriaFor(bookmark);
+        }
+        return new Criteria(subtype, typedProperty.getName() + " == :polymorphicReference",
+                ImmutableMap.<String, Object>of("polymorphicReference", polymorphicReference));
+    }
+
+    /**
+     * As {@link #criteriaFor(Object, Bookmark)}, additionally restricted to the subject.
+     */
+    private Criteria criteriaFor(final P polymorphicReference, final Bookmark bookmark, final S subject) {
+        final Criteria criteria = criteriaFor(polymorphicReference, bookmark);
+        if(criteria == null) {
+            return null;
+        }
+        final Map<String, Object> args = new LinkedHashMap<>(criteria.args);
+        args.put("subject", subject);
+        return new Criteria(criteria.type, subjectFilter + " && " + criteria.filter, args);
+    }
+
+    /**
+     * The criteria to find links to the referenced object, translated for the storage of the link; <tt>null</tt> if
+     * there can be no such links (a compact link, and the object type is not in the dictionary).
+     */
+    private Criteria criteriaFor(final Bookmark bookmark) {
+        final List<String> objectTypes = objectTypeMigration.objectTypesFor(bookmark.getObjectType());
+        if(!compact) {
+            return objectTypes.size() == 1
+                    ? new Criteria(polymorphicReferenceFilter, ImmutableMap.<String, Object>of(
+                            "objectType", bookmark.getObjectType(),
+                            "identifier", bookmark.getIdentifier()))
+                    : new Criteria(polymorphicReferenceAnyObjectTypeFilter, ImmutableMap.<String, Object>of(
+                            "objectTypes", objectTypes,
+                            "identifier", bookmark.getIdentifier()));
+        }
+        final List<Integer> objectTypeCodes = new ArrayList<>();
+        for (final String objectType : objectTypes) {
+            final Integer objectTypeCode = objectTypeDictionary.codeIfAnyFor(objectType);
+            if(objectTypeCode != null) {
+                objectTypeCodes.add(objectTypeCode);
+            }
+        }
+        if(objectTypeCodes.isEmpty()) {
+            return null;
+        }
+        final Long identifierNumber = Identifiers.asLong(bookmark.getIdentifier());
+        final Object identifier = identifierNumber != null ? identifierNumber : bookmark.getIdentifier();
+        if(objectTypeCodes.size() > 1) {
+            return new Criteria(
+                    identifierNumber != null
+                            ? polymorphicReferenceNumberAnyObjectTypeFilter
+                            : polymorphicReferenceAnyObjectTypeFilter,
+                    ImmutableMap.<String, Object>of(
+                            "objectTypes", objectTypeCodes,
+                            "identifier", identifier));
+        }
+        return new Criteria(
+                identifierNumber != null ? polymorphicReferenceNumberFilter : polymorphicReferenceFilter,
+                ImmutableMap.<String, Object>of(
+                        "objectType", objectTypeCodes.get(0),
+                        "identifier", identifier));
+    }
+
+    /**
+     * The links to any of the identified objects of the object type, stored with that object type or (until migrated)
+     * any of its former object types.
+     */
+    private List<L> findByIdentifiers(final String objectType, final List<String> identifiers) {
+        final List<String> objectTypes = objectTypeMigration.objectTypesFor(objectType);
+        if(objectTypes.size() == 1) {
+            return findByIdentifiersOfObjectType(objectType, identifiers);
+        }
+        final List<L> links = new ArrayList<>();
+        for (final String eachObjectType : objectTypes) {
+            links.addAll(findByIdentifiersOfObjectType(eachObjectType, identifiers));
+        }
+        return links;
+    }
+
+    /**
+     * The links to any of the identified objects stored with exactly the object type; a single query, or (for a
+     * compact link having both numeric and other identifiers) two.
+     */
+    private List<L> findByIdentifiersOfObjectType(final String objectType, final List<String> identifiers) {
+        if(!compact) {
+            return execute(polymorphicReferencesFilter, ImmutableMap.<String, Object>of(
+                    "objectType", objectType,
+                    "identifiers", identifiers));
+        }
+        final Integer objectTypeCode = objectTypeDictionary.codeIfAnyFor(objectType);
+        if(objectTypeCode == null) {
+            return new ArrayList<>();
+        }
+        final List<Long> identifierNumbers = new ArrayList<>();
+        final List<String> identifierStrings = new ArrayList<>();
+        for (final String identifier : identifiers) {
+            final Long identifierNumber = Identifiers.asLong(identifier);
+            if(identifierNumber != null) {
+                identifierNumbers.add(identifierNumber);
+            } else {
+                identifierStrings.add(identifier);
+            }
+        }
+        final List<L> links = new ArrayList<>();
+        if(!identifierNumbers.isEmpty()) {
+            links.addAll(execute(polymorphicReferenceNumbersFilter, ImmutableMap.<String, Object>of(
+                    "objectType", objectTypeCode,
+                    "identifiers", identifierNumbers)));
+        }
+        if(!identifierStrings.isEmpty()) {
+            links.addAll(execute(polymorphicReferencesFilter, ImmutableMap.<String, Object>of(
+                    "objectType", objectTypeCode,
+                    "identifiers", identifierStrings)));
+        }
+        return links;
+    }
+
+    private List<L> execute(final String filter, final Map<String, Object> args) {
+        return execute(linkType, filter, args);
+    }
+
+    private List<L> execute(final Class<? extends L> type, final String filter, final Map<String, Object> args) {
+        final Query query = newQuery(type, filter);
+        final long start = System.nanoTime();
+        try {
+            @SuppressWarnings("unchecked")
+            final List<L> links = (List<L>) query.executeWithMap(args);
+            return new ArrayList<>(links);
+        } finally {
+            query.closeAll();
+            PolymorphicAssociationLinkMetering.recordTime(
+                    linkMetrics, PolymorphicAssociationLinkMetrics.Operation.QUERY, linkType, start);
+        }
+    }
+
+    private boolean exists(final String filter, final Map<String, Object> args) {
+        return exists(linkType, filter, args);
+    }
+
+    private boolean exists(final Class<? extends L> type, final String filter, final Map<String, Object> args) {
+        final Query query = newQuery(type, filter);
+        query.setRange(0, 1);
+        final long start = System.nanoTime();
+        try {
+            return !((List<?>) query.executeWithMap(args)).isEmpty();
+        } finally {
+            query.closeAll();
+            PolymorphicAssociationLinkMetering.recordTime(
+                    linkMetrics, PolymorphicAssociationLinkMetrics.Operation.QUERY, linkType, start);
+        }
+    }
+
+    private long count(final String filter, final Map<String, Object> args) {
+        return count(linkType, filter, args);
+    }
+
+    private long count(final Class<? extends L> type, final String filter, final Map<String, Object> args) {
+        final Query query = newQuery(type, filter);
+        query.setResult("count(this)");
+        query.setUnique(true);
+        final long start = System.nanoTime();
+        try {
+            return (Long) query.executeWithMap(args);
+        } finally {
+            query.closeAll();
+            PolymorphicAssociationLinkMetering.recordTime(
+                    linkMetrics, PolymorphicAssociationLinkMetrics.Operation.QUERY, linkType, start);
+        }
+    }
+
+    /**
+     * The datastore key of the (persistent) object, or <tt>null</tt> if not numeric.
+     */
+    private Long keyOf(final Object object) {
+        final Bookmark bookmark = bookmarkService.bookmarkFor(object);
+        return bookmark != null ? Identifiers.asLong(bookmark.getIdentifier()) : null;
+    }
+
+    private PolymorphicAssociationLinkProjection projectionOf(final L link) {
+        final PersistenceManager persistenceManager = isisJdoSupport.getJdoPersistenceManager();
+        return new PolymorphicAssociationLinkProjection(
+                persistenceManager.getObjectId(link),
+                persistenceManager.getObjectId(link.getSubject()),
+                link.getPolymorphicObjectType(),
+                link.getPolymorphicIdentifier());
+    }
+
+    private List<PolymorphicAssociationLinkProjection> projectionsOf(final List<L> links) {
+        final List<PolymorphicAssociationLinkProjection> projections = new ArrayList<>();
+        for (final L link : links) {
+            projections.add(projectionOf(link));
+        }
+        return projections;
+    }
+
+    /**
+     * Runs one of the native SQL lookups, any pending changes being flushed first.
+     */
+    private List<PolymorphicAssociationLinkProjection> executeSql(final String sql, final Object... args) {
+        transactionService.flushTransaction();
+        final PersistenceManager persistenceManager = isisJdoSupport.getJdoPersistenceManager();
+        final Query query = persistenceManager.newQuery("javax.jdo.query.SQL", sql);
+        final long start = System.nanoTime();
+        try {
+            final List<?> rows = (List<?>) query.executeWithArray(args);
+            final List<PolymorphicAssociationLinkProjection> projections = new ArrayList<>(rows.size());
+            for (final Object each : rows) {
+                final Object[] row = (Object[]) each;
+                projections.add(new PolymorphicAssociationLinkProjection(
+                        Identifiers.datastoreIdFor(persistenceManager, linkType, ((Number) row[0]).longValue()),
+                        Identifiers.datastoreIdFor(persistenceManager, subjectType, ((Number) row[1]).longValue()),
+                        (String) row[2],
+                        (String) row[3]));
+            }
+            return projections;
+        } finally {
+            query.closeAll();
+            PolymorphicAssociationLinkMetering.recordTime(
+                    linkMetrics, PolymorphicAssociationLinkMetrics.Operation.QUERY, linkType, start);
+        }
+    }
+
+    /**
+     * As for {@link DomainObjectContainer#allMatches(org.apache.isis.applib.query.Query)}, any pending changes are
+     * flushed first, so that the query sees them.
+     */
+    private Query newQuery(final Class<? extends L> type, final String filter) {
+        transactionService.flushTransaction();
+        final Query query = isisJdoSupport.getJdoPersistenceManager().newQuery(type);
+        query.setFilter(filter);
+        return query;
+    }
+
+    //endregion
+
+    //region > injected services
+
+    @Inject
+    protected DomainObjectContainer container;
+
+    @Inject
+    protected BookmarkService2 bookmarkService;
+
+    @Inject
+    IsisJdoSupport isisJdoSupport;
+
+    @Inject
+    TransactionService transactionService;
+
+    @Inject
+    PolymorphicAssociationLinkMemo linkMemo;
+
+    @Inject
+    PolymorphicAssociationLinkCache linkCache;
+
+    @Inject
+    PolymorphicObjectTypeDictionary objectTypeDictionary;
+
+    @Inject
+    PolymorphicReferenceResolver polymorphicReferenceResolver;
+
+    @Inject
+    PolymorphicObjectTypeMigration objectTypeMigration;
+
+    @Inject
+    List<PolymorphicAssociationLinkMetrics> linkMetrics;
+
+    @Inject
+    List<PolymorphicAssociationLinkTracer> linkTracers;
+
+    //endregion
+
+}
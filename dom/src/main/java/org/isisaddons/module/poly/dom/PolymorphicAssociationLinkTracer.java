@@ -0,0 +1,119 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import org.apache.isis.applib.annotation.Programmatic;
+
+/**
+ * SPI to trace individual link operations as they happen, eg as events for a profiler; complements the aggregate
+ * figures of {@link PolymorphicAssociationLinkMetrics}.
+ *
+ * <p>
+ *     Implementations should be registered as domain services; all those registered are called.  Each is asked to
+ *     {@link #start(Operation, Class) start} a {@link Span} as an operation begins, and should return <tt>null</tt>
+ *     if it is not (currently) interested in that operation: this is checked on the hot path of every link
+ *     operation, and so must be cheap and thread-safe.  Nothing else is computed for a tracer that returns
+ *     <tt>null</tt>.
+ * </p>
+ */
+public interface PolymorphicAssociationLinkTracer {
+
+    enum Operation {
+        /**
+         * {@link PolymorphicAssociationLink.Factory#supportsLink(Object)}.
+         */
+        SUPPORTS_LINK("supportsLink"),
+        /**
+         * {@link PolymorphicAssociationLink.Factory#createLink(Object, Object)}; flushed if the polymorphic reference
+         * was not yet persistent.
+         */
+        CREATE_LINK("createLink"),
+        /**
+         * {@link PolymorphicAssociationLink.Factory#createOrGet(Object, Object, com.google.common.base.Supplier)};
+         * always flushed.
+         */
+        CREATE_OR_GET("createOrGet"),
+        /**
+         * {@link PolymorphicAssociationLink#getPolymorphicReference()}.
+         */
+        GET_POLYMORPHIC_REFERENCE("getPolymorphicReference"),
+        /**
+         * {@link PolymorphicAssociationLinkRepository#findBySubject(Object)}.
+         */
+        FIND_BY_SUBJECT("findBySubject"),
+        /**
+         * {@link PolymorphicAssociationLinkRepository#findByPolymorphicReference(Object)}.
+         */
+        FIND_BY_POLYMORPHIC_REFERENCE("findByPolymorphicReference"),
+        /**
+         * {@link PolymorphicAssociationLinkRepository#findBySubjectAndPolymorphicReference(Object, Object)}.
+         */
+        FIND_BY_SUBJECT_AND_POLYMORPHIC_REFERENCE("findBySubjectAndPolymorphicReference"),
+        /**
+         * {@link PolymorphicAssociationLinkRepository#findByPolymorphicReferences(java.util.Collection)}.
+         */
+        FIND_BY_POLYMORPHIC_REFERENCES("findByPolymorphicReferences");
+
+        private final String name;
+
+        Operation(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * As per the name of the method traced.
+         */
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * An operation in progress.
+     */
+    interface Span {
+
+        /**
+         * The transaction was flushed during the operation (only ever called for {@link Operation#CREATE_LINK}; the
+         * finders flush any pending changes before a query, but cannot tell whether there were any).
+         */
+        void flushed();
+
+        /**
+         * The operation has completed (or failed).
+         *
+         * @param polymorphicObjectType - the object type of the polymorphic reference, if known and applicable (ie
+         *                              <tt>null</tt> for {@link Operation#FIND_BY_SUBJECT} or
+         *                              {@link Operation#FIND_BY_POLYMORPHIC_REFERENCES}).
+         */
+        void ended(String polymorphicObjectType);
+    }
+
+    /**
+     * Starts an operation on links of the type, returning <tt>null</tt> if this tracer is not interested.
+     *
+     * <p>
+     *     The link type passed is that of the operation, which may be the (abstract) link type of the family or one
+     *     of its subtypes, as for {@link PolymorphicAssociationLinkMetrics}.
+     * </p>
+     */
+    @Programmatic
+    Span start(Operation operation, Class<?> linkType);
+
+}
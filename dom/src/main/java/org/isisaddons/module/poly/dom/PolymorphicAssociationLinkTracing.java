@@ -0,0 +1,94 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calls the registered {@link PolymorphicAssociationLinkTracer}s on behalf of the factory, links and repositories;
+ * every method is a no-op (without allocating) if no tracer is interested.
+ */
+final class PolymorphicAssociationLinkTracing {
+
+    private PolymorphicAssociationLinkTracing() {}
+
+    static PolymorphicAssociationLinkTracer.Span start(
+            final List<PolymorphicAssociationLinkTracer> tracers,
+            final PolymorphicAssociationLinkTracer.Operation operation,
+            final Class<?> linkType) {
+        if(tracers == null || tracers.isEmpty()) {
+            return null;
+        }
+        if(tracers.size() == 1) {
+            return tracers.get(0).start(operation, linkType);
+        }
+        List<PolymorphicAssociationLinkTracer.Span> spans = null;
+        for (final PolymorphicAssociationLinkTracer tracer : tracers) {
+            final PolymorphicAssociationLinkTracer.Span span = tracer.start(operation, linkType);
+            if(span == null) {
+                continue;
+            }
+            if(spans == null) {
+                spans = new ArrayList<>(tracers.size());
+            }
+            spans.add(span);
+        }
+        if(spans == null) {
+            return null;
+        }
+        return spans.size() == 1 ? spans.get(0) : new CompositeSpan(spans);
+    }
+
+    static void flushed(final PolymorphicAssociationLinkTracer.Span span) {
+        if(span != null) {
+            span.flushed();
+        }
+    }
+
+    static void ended(final PolymorphicAssociationLinkTracer.Span span, final String polymorphicObjectType) {
+        if(span != null) {
+            span.ended(polymorphicObjectType);
+        }
+    }
+
+    private static class CompositeSpan implements PolymorphicAssociationLinkTracer.Span {
+
+        private final List<PolymorphicAssociationLinkTracer.Span> spans;
+
+        CompositeSpan(final List<PolymorphicAssociationLinkTracer.Span> spans) {
+            this.spans = spans;
+        }
+
+        @Override
+        public void flushed() {
+            for (final PolymorphicAssociationLinkTracer.Span span : spans) {
+                span.flushed();
+            }
+        }
+
+        @Override
+        public void ended(final String polymorphicObjectType) {
+            for (final PolymorphicAssociationLinkTracer.Span span : spans) {
+                span.ended(polymorphicObjectType);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import javax.jdo.annotations.Column;
+import javax.jdo.annotations.IdGeneratorStrategy;
+import javax.jdo.annotations.IdentityType;
+import javax.jdo.annotations.Persistent;
+import javax.jdo.annotations.PrimaryKey;
+
+import org.apache.isis.applib.annotation.DomainObject;
+import org.apache.isis.applib.annotation.Editing;
+import org.apache.isis.applib.annotation.Property;
+import org.apache.isis.applib.annotation.Title;
+import org.apache.isis.applib.util.ObjectContracts;
+
+/**
+ * An entry in the dictionary of object types, used by {@link CompactPolymorphicAssociationLink}s to store the object
+ * type of their polymorphic reference as a small integer {@link #getCode() code}.
+ *
+ * <p>
+ *     Entries are only ever added (by the {@link PolymorphicObjectTypeDictionary}), never changed or removed.
+ * </p>
+ */
+@javax.jdo.annotations.PersistenceCapable(identityType = IdentityType.APPLICATION)
+@javax.jdo.annotations.Queries({
+        @javax.jdo.annotations.Query(
+                name = "findAll", language = "JDOQL",
+                value = "SELECT "
+                        + "FROM org.isisaddons.module.poly.dom.PolymorphicObjectType ")
+})
+@javax.jdo.annotations.Unique(name = "PolymorphicObjectType_objectType_UNQ", members = {"objectType"})
+@DomainObject(
+        objectType = "poly.PolymorphicObjectType",
+        editing = Editing.DISABLED
+)
+public class PolymorphicObjectType implements Comparable<PolymorphicObjectType> {
+
+    public PolymorphicObjectType() {
+    }
+
+    PolymorphicObjectType(final String objectType) {
+        this.objectType = objectType;
+    }
+
+    //region > code (property)
+    private Integer code;
+
+    @PrimaryKey
+    @Persistent(valueStrategy = IdGeneratorStrategy.IDENTITY)
+    @Column(name = "id")
+    public Integer getCode() {
+        return code;
+    }
+
+    public void setCode(final Integer code) {
+        this.code = code;
+    }
+    //endregion
+
+    //region > objectType (property)
+    private String objectType;
+
+    @Column(allowsNull = "false", length = 255)
+    @Title
+    @Property(
+            editing = Editing.DISABLED
+    )
+    public String getObjectType() {
+        return objectType;
+    }
+
+    public void setObjectType(final String objectType) {
+        this.objectType = objectType;
+    }
+    //endregion
+
+    //region > compareTo
+
+    @Override
+    public int compareTo(final PolymorphicObjectType other) {
+        return ObjectContracts.compare(this, other, "objectType");
+    }
+
+    //endregion
+
+}
@@ -0,0 +1,209 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.jdo.JDOException;
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+import javax.jdo.Transaction;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.jdosupport.IsisJdoSupport;
+
+/**
+ * Interns object types as small integer codes (and back again), for {@link CompactPolymorphicAssociationLink}s.
+ *
+ * <p>
+ *     The dictionary is small and append-only, so it is read in its entirety and cached.  New entries are inserted
+ *     and committed in a separate, short-lived transaction (akin to a sequence), so that a code is never handed out
+ *     for an entry that might yet be rolled back.  If another node concurrently inserts the same object type then the
+ *     unique constraint fails our insert, and the dictionary is simply re-read.
+ * </p>
+ *
+ * <p>
+ *     An object type that is not in the dictionary is remembered as such for {@value #KEY_ABSENT_MILLIS} milliseconds
+ *     (default {@value #DEFAULT_ABSENT_MILLIS}; zero to always re-read), so that looking up the links to objects of a
+ *     type never linked to does not re-read the dictionary every time.  An object type added by this node is seen
+ *     straight away; one added by another node only once that time has passed.
+ * </p>
+ */
+@DomainService(
+        nature = NatureOfService.DOMAIN
+)
+public class PolymorphicObjectTypeDictionary {
+
+    public static final String KEY_ABSENT_MILLIS = "isis.poly.objectTypeDictionary.absentMillis";
+    public static final long DEFAULT_ABSENT_MILLIS = 10000L;
+
+    private final ConcurrentMap<String, Integer> codeByObjectType = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, String> objectTypeByCode = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> absentUntilByObjectType = new ConcurrentHashMap<>();
+
+    private long absentMillis = DEFAULT_ABSENT_MILLIS;
+
+    //region > init
+    @PostConstruct
+    @Programmatic
+    public void init(final Map<String, String> properties) {
+        final String absentMillisStr = properties.get(KEY_ABSENT_MILLIS);
+        if(absentMillisStr != null) {
+            try {
+                absentMillis = Long.parseLong(absentMillisStr.trim());
+            } catch(final NumberFormatException ex) {
+                throw new IllegalArgumentException(String.format(
+                        "Invalid value for '%s': '%s'", KEY_ABSENT_MILLIS, absentMillisStr), ex);
+            }
+        }
+    }
+    //endregion
+
+    /**
+     * The code for the object type, adding it to the dictionary if need be.
+     */
+    @Programmatic
+    public int codeFor(final String objectType) {
+        if(objectType == null) {
+            throw new IllegalArgumentException("objectType cannot be null");
+        }
+        Integer code = codeByObjectType.get(objectType);
+        if(code != null) {
+            return code;
+        }
+        synchronized (this) {
+            reload();
+            code = codeByObjectType.get(objectType);
+            if(code != null) {
+                return code;
+            }
+            try {
+                insert(objectType);
+            } catch(final JDOException ex) {
+                // most likely inserted concurrently by some other node; fall through and re-read
+            }
+            reload();
+            code = codeByObjectType.get(objectType);
+            if(code == null) {
+                throw new IllegalStateException(String.format(
+                        "Unable to add object type '%s' to the dictionary", objectType));
+            }
+            return code;
+        }
+    }
+
+    /**
+     * The code for the object type, or <tt>null</tt> if it is not in the dictionary (in which case there can be no
+     * links referencing objects of that type).
+     */
+    @Programmatic
+    public Integer codeIfAnyFor(final String objectType) {
+        Integer code = codeByObjectType.get(objectType);
+        if(code != null) {
+            return code;
+        }
+        final Long absentUntil = absentUntilByObjectType.get(objectType);
+        if(absentUntil != null && System.currentTimeMillis() < absentUntil) {
+            return null;
+        }
+        synchronized (this) {
+            reload();
+            code = codeByObjectType.get(objectType);
+        }
+        if(code == null && absentMillis > 0) {
+            absentUntilByObjectType.put(objectType, System.currentTimeMillis() + absentMillis);
+        }
+        return code;
+    }
+
+    /**
+     * The object type for the code.
+     */
+    @Programmatic
+    public String objectTypeFor(final int code) {
+        String objectType = objectTypeByCode.get(code);
+        if(objectType != null) {
+            return objectType;
+        }
+        synchronized (this) {
+            reload();
+            objectType = objectTypeByCode.get(code);
+        }
+        if(objectType == null) {
+            throw new IllegalStateException(String.format("No object type in the dictionary for code %d", code));
+        }
+        return objectType;
+    }
+
+    private void reload() {
+        final PersistenceManager persistenceManager = newPersistenceManager();
+        try {
+            final Query query = persistenceManager.newNamedQuery(PolymorphicObjectType.class, "findAll");
+            try {
+                final Collection<?> entries = (Collection<?>) query.execute();
+                for (final Object each : entries) {
+                    final PolymorphicObjectType entry = (PolymorphicObjectType) each;
+                    codeByObjectType.put(entry.getObjectType(), entry.getCode());
+                    objectTypeByCode.put(entry.getCode(), entry.getObjectType());
+                }
+            } finally {
+                query.closeAll();
+            }
+        } finally {
+            persistenceManager.close();
+        }
+    }
+
+    private void insert(final String objectType) {
+        final PersistenceManager persistenceManager = newPersistenceManager();
+        final Transaction transaction = persistenceManager.currentTransaction();
+        try {
+            transaction.begin();
+            persistenceManager.makePersistent(new PolymorphicObjectType(objectType));
+            transaction.commit();
+        } finally {
+            if(transaction.isActive()) {
+                transaction.rollback();
+            }
+            persistenceManager.close();
+        }
+    }
+
+    /**
+     * A persistence manager of our own, independent of the current Isis transaction.
+     */
+    private PersistenceManager newPersistenceManager() {
+        return isisJdoSupport.getJdoPersistenceManager().getPersistenceManagerFactory().getPersistenceManager();
+    }
+
+    //region > injected services
+
+    @Inject
+    IsisJdoSupport isisJdoSupport;
+
+    //endregion
+
+}
@@ -0,0 +1,253 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Transaction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.jdosupport.IsisJdoSupport;
+
+/**
+ * Migrates the links to objects whose object type (<tt>@DomainObject(objectType=...)</tt>) has been renamed, without
+ * taking the application down.
+ *
+ * <p>
+ *     The renames are configured as {@value #KEY_RENAMES}, a comma separated list of
+ *     <tt>formerObjectType:objectType</tt> pairs, for example <tt>PARTY:party.Party</tt>.  Until they have been
+ *     {@link #migrate() migrated}, every {@link PolymorphicAssociationLinkRepository} looks up links by either object
+ *     type, and links (and projections) stored with the former object type resolve to the renamed type.
+ * </p>
+ *
+ * <p>
+ *     {@link #migrate()} rewrites the object type of the links of every repository in chunks (sized by {@value #KEY_CHUNK_SIZE},
+ *     default {@value #DEFAULT_CHUNK_SIZE}), each chunk in a short transaction of its own, independent of the
+ *     current Isis transaction, optionally pausing between chunks ({@value #KEY_PAUSE_MILLIS}).  So the link tables
+ *     are only ever locked briefly, and every chunk committed is a checkpoint: if the run is interrupted, running it
+ *     again carries on with the links not yet migrated.  Once the run finishes the former object types are no longer
+ *     looked up (the renames can then be removed from the configuration).
+ * </p>
+ */
+@DomainService(
+        nature = NatureOfService.DOMAIN
+)
+public class PolymorphicObjectTypeMigration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PolymorphicObjectTypeMigration.class);
+
+    public static final String KEY_RENAMES = "isis.poly.objectTypeMigration.renames";
+    public static final String KEY_CHUNK_SIZE = "isis.poly.objectTypeMigration.chunkSize";
+    public static final String KEY_PAUSE_MILLIS = "isis.poly.objectTypeMigration.pauseMillis";
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    /**
+     * The renamed object type for each former object type not yet migrated.
+     */
+    private final ConcurrentMap<String, String> objectTypeByFormerObjectType = new ConcurrentHashMap<>();
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private long pauseMillis;
+
+    //region > init
+    @PostConstruct
+    @Programmatic
+    public void init(final Map<String, String> properties) {
+        final String renamesStr = properties.get(KEY_RENAMES);
+        if(renamesStr != null) {
+            for (final String rename : renamesStr.split(",")) {
+                if(rename.trim().isEmpty()) {
+                    continue;
+                }
+                final String[] parts = rename.split(":");
+                if(parts.length != 2 || parts[0].trim().isEmpty() || parts[1].trim().isEmpty()) {
+                    throw new IllegalArgumentException(String.format(
+                            "%s: '%s' is not of the form formerObjectType:objectType", KEY_RENAMES, rename.trim()));
+                }
+                if(parts[0].trim().equals(parts[1].trim())) {
+                    // would never finish migrating
+                    throw new IllegalArgumentException(String.format(
+                            "%s: '%s' renames an object type to itself", KEY_RENAMES, rename.trim()));
+                }
+                objectTypeByFormerObjectType.put(parts[0].trim(), parts[1].trim());
+            }
+        }
+        final String chunkSizeStr = properties.get(KEY_CHUNK_SIZE);
+        if(chunkSizeStr != null) {
+            chunkSize = Integer.parseInt(chunkSizeStr.trim());
+            if(chunkSize < 1) {
+                throw new IllegalArgumentException(String.format(
+                        "%s must be positive, was %d", KEY_CHUNK_SIZE, chunkSize));
+            }
+        }
+        final String pauseMillisStr = properties.get(KEY_PAUSE_MILLIS);
+        if(pauseMillisStr != null) {
+            pauseMillis = Long.parseLong(pauseMillisStr.trim());
+        }
+    }
+    //endregion
+
+    //region > objectTypesFor, currentObjectTypeOf
+    /**
+     * The object types that links to objects of the object type may be stored with: the object type itself, followed
+     * by any former object types not yet migrated.
+     */
+    @Programmatic
+    public List<String> objectTypesFor(final String objectType) {
+        if(objectTypeByFormerObjectType.isEmpty() || !objectTypeByFormerObjectType.containsValue(objectType)) {
+            return Collections.singletonList(objectType);
+        }
+        final List<String> objectTypes = new ArrayList<>();
+        objectTypes.add(objectType);
+        for (final Map.Entry<String, String> entry : objectTypeByFormerObjectType.entrySet()) {
+            if(entry.getValue().equals(objectType)) {
+                objectTypes.add(entry.getKey());
+            }
+        }
+        return objectTypes;
+    }
+
+    /**
+     * The object type that a link stored with the object type should resolve to: the renamed object type if a former
+     * object type not yet migrated, else the object type as is.
+     */
+    @Programmatic
+    public String currentObjectTypeOf(final String storedObjectType) {
+        if(storedObjectType == null || objectTypeByFormerObjectType.isEmpty()) {
+            return storedObjectType;
+        }
+        final String objectType = objectTypeByFormerObjectType.get(storedObjectType);
+        return objectType != null ? objectType : storedObjectType;
+    }
+    //endregion
+
+    //region > migrate
+    /**
+     * Migrates the links of every repository for every configured rename, returning the number of links migrated.
+     *
+     * <p>
+     *     Runs synchronously, so should be called from a background command or a scheduled job rather than from a
+     *     user's interaction.
+     * </p>
+     */
+    @Programmatic
+    public synchronized long migrate() {
+        final PersistenceManagerFactory persistenceManagerFactory =
+                isisJdoSupport.getJdoPersistenceManager().getPersistenceManagerFactory();
+        long migrated = 0;
+        for (final Map.Entry<String, String> entry : new ArrayList<>(objectTypeByFormerObjectType.entrySet())) {
+            final String formerObjectType = entry.getKey();
+            final String objectType = entry.getValue();
+            if(repositories != null) {
+                for (final Object each : repositories) {
+                    final PolymorphicAssociationLinkRepository<?, ?, ?, ?> repository =
+                            (PolymorphicAssociationLinkRepository<?, ?, ?, ?>) each;
+                    migrated += migrate(persistenceManagerFactory, repository, formerObjectType, objectType);
+                }
+            }
+            objectTypeByFormerObjectType.remove(formerObjectType);
+            LOG.info("Migrated all links from object type '{}' to '{}'", formerObjectType, objectType);
+        }
+        linkCache.invalidateAll();
+        return migrated;
+    }
+
+    private long migrate(
+            final PersistenceManagerFactory persistenceManagerFactory,
+            final PolymorphicAssociationLinkRepository<?, ?, ?, ?> repository,
+            final String formerObjectType,
+            final String objectType) {
+        long migrated = 0;
+        int chunk;
+        do {
+            chunk = migrateChunk(persistenceManagerFactory, repository, formerObjectType, objectType);
+            migrated += chunk;
+            // links already in the level 2 cache hold the former object type
+            persistenceManagerFactory.getDataStoreCache().evictAll(true, repository.getLinkType());
+            if(chunk > 0) {
+                LOG.info("{}: migrated {} links from object type '{}' to '{}'",
+                        repository.getLinkType().getName(), migrated, formerObjectType, objectType);
+                pause();
+            }
+        } while (chunk == chunkSize);
+        return migrated;
+    }
+
+    private int migrateChunk(
+            final PersistenceManagerFactory persistenceManagerFactory,
+            final PolymorphicAssociationLinkRepository<?, ?, ?, ?> repository,
+            final String formerObjectType,
+            final String objectType) {
+        final PersistenceManager persistenceManager = persistenceManagerFactory.getPersistenceManager();
+        final Transaction transaction = persistenceManager.currentTransaction();
+        try {
+            transaction.begin();
+            final int migrated =
+                    repository.migrateObjectType(persistenceManager, formerObjectType, objectType, chunkSize);
+            transaction.commit();
+            return migrated;
+        } finally {
+            if(transaction.isActive()) {
+                transaction.rollback();
+            }
+            persistenceManager.close();
+        }
+    }
+
+    private void pause() {
+        if(pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while migrating object types", ex);
+        }
+    }
+    //endregion
+
+    //region > injected services
+    @Inject
+    IsisJdoSupport isisJdoSupport;
+
+    @Inject
+    PolymorphicAssociationLinkCache linkCache;
+
+    @SuppressWarnings("rawtypes")
+    @Inject
+    List<PolymorphicAssociationLinkRepository> repositories;
+    //endregion
+
+}
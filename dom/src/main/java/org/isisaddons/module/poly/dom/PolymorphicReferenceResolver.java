@@ -0,0 +1,163 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+import org.apache.isis.applib.services.bookmark.Bookmark;
+import org.apache.isis.applib.services.bookmark.BookmarkService2;
+import org.apache.isis.applib.services.jdosupport.IsisJdoSupport;
+import org.apache.isis.applib.services.metamodel.MetaModelService;
+
+/**
+ * Resolves the polymorphic references of many links at once.
+ *
+ * <p>
+ *     Rather than a {@link BookmarkService2#lookup(Bookmark, BookmarkService2.FieldResetPolicy) bookmark lookup} per
+ *     link, the links are grouped by {@link PolymorphicAssociationLink#getPolymorphicObjectType() object type} and the
+ *     references of each type are fetched by a single query (on their datastore identities).  References whose
+ *     identifier is not a (numeric) datastore identity are looked up individually, as before.  As for a bookmark
+ *     lookup, a reference that no longer exists resolves to <tt>null</tt>.
+ * </p>
+ */
+@DomainService(nature = NatureOfService.DOMAIN)
+public class PolymorphicReferenceResolver {
+
+    /**
+     * The polymorphic references of the links, in the same order as the links.
+     */
+    @Programmatic
+    public <P> List<P> resolveAll(final Collection<? extends PolymorphicAssociationLink<?, P, ?>> links) {
+        final List<Bookmark> bookmarks = new ArrayList<>(links.size());
+        for (final PolymorphicAssociationLink<?, P, ?> link : links) {
+            bookmarks.add(new Bookmark(link.getPolymorphicObjectType(), link.getPolymorphicIdentifier()));
+        }
+        @SuppressWarnings("unchecked")
+        final List<P> references = (List<P>) lookupAll(bookmarks);
+        return references;
+    }
+
+    /**
+     * The objects identified by the bookmarks, in the same order as the bookmarks, fetched in bulk per object type.
+     *
+     * <p>
+     *     Bookmarks with a former object type not yet migrated (see {@link PolymorphicObjectTypeMigration}) are
+     *     looked up using the renamed object type.
+     * </p>
+     */
+    @Programmatic
+    public List<Object> lookupAll(final List<Bookmark> bookmarks) {
+
+        final Map<String, Set<String>> identifiersByObjectType = new LinkedHashMap<>();
+        for (final Bookmark bookmark : bookmarks) {
+            final String objectType = objectTypeMigration.currentObjectTypeOf(bookmark.getObjectType());
+            Set<String> identifiers = identifiersByObjectType.get(objectType);
+            if(identifiers == null) {
+                identifiers = new LinkedHashSet<>();
+                identifiersByObjectType.put(objectType, identifiers);
+            }
+            identifiers.add(bookmark.getIdentifier());
+        }
+
+        final Map<String, Object> objectByBookmark = new HashMap<>();
+        for (final Map.Entry<String, Set<String>> entry : identifiersByObjectType.entrySet()) {
+            lookupAll(entry.getKey(), entry.getValue(), objectByBookmark);
+        }
+
+        final List<Object> objects = new ArrayList<>(bookmarks.size());
+        for (final Bookmark bookmark : bookmarks) {
+            objects.add(objectByBookmark.get(bookmarkStr(
+                    objectTypeMigration.currentObjectTypeOf(bookmark.getObjectType()), bookmark.getIdentifier())));
+        }
+        return objects;
+    }
+
+    private void lookupAll(
+            final String objectType,
+            final Set<String> identifiers,
+            final Map<String, Object> referenceByBookmark) {
+
+        final Class<?> domainType = metaModelService.fromObjectType(objectType);
+        final PersistenceManager persistenceManager = isisJdoSupport.getJdoPersistenceManager();
+
+        final List<Object> objectIds = new ArrayList<>(identifiers.size());
+        for (final String identifier : identifiers) {
+            final Long datastoreKey = domainType != null ? Identifiers.asLong(identifier) : null;
+            if(datastoreKey == null) {
+                final Object reference = bookmarkService.lookup(
+                        new Bookmark(objectType, identifier), BookmarkService2.FieldResetPolicy.DONT_RESET);
+                referenceByBookmark.put(bookmarkStr(objectType, identifier), reference);
+                continue;
+            }
+            objectIds.add(Identifiers.datastoreIdFor(persistenceManager, domainType, datastoreKey));
+        }
+        if(objectIds.isEmpty()) {
+            return;
+        }
+
+        // rather than getObjectsById, which fails if any object no longer exists (and validates each id in turn)
+        final Query query = persistenceManager.newQuery(domainType);
+        query.setFilter(":objectIds.contains(JDOHelper.getObjectId(this))");
+        try {
+            final Collection<?> objects = (Collection<?>) query.execute(objectIds);
+            for (final Object object : objects) {
+                final String identifier = Identifiers.keyOf(JDOHelper.getObjectId(object));
+                referenceByBookmark.put(bookmarkStr(objectType, identifier), object);
+            }
+        } finally {
+            query.closeAll();
+        }
+    }
+
+    private static String bookmarkStr(final String objectType, final String identifier) {
+        return objectType + ":" + identifier;
+    }
+
+    //region > injected services
+
+    @Inject
+    IsisJdoSupport isisJdoSupport;
+
+    @Inject
+    MetaModelService metaModelService;
+
+    @Inject
+    BookmarkService2 bookmarkService;
+
+    @Inject
+    PolymorphicObjectTypeMigration objectTypeMigration;
+
+    //endregion
+
+}
@@ -0,0 +1,42 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotates the getter of the property of a link subtype that holds its polymorphic reference as a typed reference,
+ * that is, mapped to a real foreign key; for example <tt>CommunicationChannelOwnerLinkForParty#getParty()</tt>.
+ *
+ * <p>
+ *     The link then {@link PolymorphicAssociationLink#getPolymorphicReference() resolves} its polymorphic reference
+ *     through this property rather than by looking up a bookmark, and the {@link PolymorphicAssociationLinkRepository}
+ *     queries by the foreign key when the subtype for the reference is known.  The subtype must still set the property
+ *     whenever its {@link PolymorphicAssociationLink#setPolymorphicReference(Object) polymorphic reference is set}.
+ * </p>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface TypedPolymorphicReference {
+}
@@ -0,0 +1,102 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.dom;
+
+import java.beans.Introspector;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.base.Optional;
+
+/**
+ * The property of a link subtype annotated as its {@link TypedPolymorphicReference}, looked up reflectively once per
+ * class.
+ */
+final class TypedPolymorphicReferenceProperty {
+
+    private static final ConcurrentMap<Class<?>, Optional<TypedPolymorphicReferenceProperty>> propertyByLinkClass =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The typed reference property of the link class, or <tt>null</tt> if it has none.
+     */
+    static TypedPolymorphicReferenceProperty of(final Class<?> linkClass) {
+        Optional<TypedPolymorphicReferenceProperty> property = propertyByLinkClass.get(linkClass);
+        if(property == null) {
+            property = Optional.fromNullable(lookup(linkClass));
+            propertyByLinkClass.putIfAbsent(linkClass, property);
+        }
+        return property.orNull();
+    }
+
+    private static TypedPolymorphicReferenceProperty lookup(final Class<?> linkClass) {
+        TypedPolymorphicReferenceProperty property = null;
+        for (final Method method : linkClass.getMethods()) {
+            if(!method.isAnnotationPresent(TypedPolymorphicReference.class)) {
+                continue;
+            }
+            if(!method.getName().startsWith("get") || method.getName().length() == 3
+                    || method.getParameterTypes().length != 0) {
+                throw new IllegalStateException(String.format(
+                        "%s#%s is annotated as a typed polymorphic reference but is not a getter",
+                        linkClass.getName(), method.getName()));
+            }
+            if(property != null) {
+                throw new IllegalStateException(String.format(
+                        "%s has more than one typed polymorphic reference (%s and %s)",
+                        linkClass.getName(), property.getter.getName(), method.getName()));
+            }
+            property = new TypedPolymorphicReferenceProperty(
+                    Introspector.decapitalize(method.getName().substring(3)), method);
+        }
+        return property;
+    }
+
+    private final String name;
+    private final Method getter;
+
+    private TypedPolymorphicReferenceProperty(final String name, final Method getter) {
+        this.name = name;
+        this.getter = getter;
+    }
+
+    /**
+     * The name of the (persistent) property, eg <tt>party</tt>.
+     */
+    String getName() {
+        return name;
+    }
+
+    Object get(final Object link) {
+        try {
+            return getter.invoke(link);
+        } catch (final IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        } catch (final InvocationTargetException ex) {
+            final Throwable cause = ex.getCause();
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+}
@@ -21,8 +21,8 @@
 import java.util.List;
 import javax.inject.Inject;
 import com.google.common.base.Predicate;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkMemo;
 import org.apache.isis.applib.DomainObjectContainer;
 import org.apache.isis.applib.Identifier;
 import org.apache.isis.applib.annotation.Action;
@@ -44,7 +44,7 @@ public class CaseContentContributions {
             contributed = Contributed.AS_ACTION
     )
     public Case addToCase(final Case aCase, final CaseContent caseContent) {
-        caseContentLinks.createLink(aCase, caseContent);
+        caseContentLinks.createOrGet(aCase, caseContent);
         return aCase;
     }
     public String disableAddToCase(final Case aCase, final CaseContent caseContent) {
@@ -92,41 +92,31 @@ public CaseContent getContent() {
             contributed = Contributed.AS_ACTION
     )
     public Case removeFromCase(final Case aCase, final CaseContent caseContent) {
-        final List<CaseContentLink> contentLinks = caseContentLinks.findByCase(aCase);
-        for (CaseContentLink contentLink : contentLinks) {
-            if(contentLink.getPolymorphicReference() == caseContent) {
-                container.removeIfNotAlready(contentLink);
-                break;
-            }
+        final CaseContentLink contentLink = caseContentLinks.findBySubjectAndPolymorphicReference(aCase, caseContent);
+        if(contentLink != null) {
+            linkMemo.removeIfNotAlready(contentLink);
         }
         return aCase;
     }
 
     public String disableRemoveFromCase(final Case aCase, final CaseContent caseContent) {
         if (caseContent != null) {
-            return choices0RemoveFromCase(null, caseContent).isEmpty()? "Not contained in any case": null;
+            return !caseContentLinks.existsByPolymorphicReference(caseContent)? "Not contained in any case": null;
         } else {
-            return choices1RemoveFromCase(aCase).isEmpty()? "No contents to remove": null;
+            return !caseContentLinks.existsBySubject(aCase)? "No contents to remove": null;
         }
     }
 
     public List<Case> choices0RemoveFromCase(final Case aCase, final CaseContent caseContent) {
-        final List<CaseContentLink> contentLinks = caseContentLinks.findByContent(caseContent);
-        return Lists.newArrayList(Iterables.transform(contentLinks, CaseContentLink.Functions.GET_CASE));
+        return caseContentLinks.casesOf(caseContent);
     }
     public List<CaseContent> choices1RemoveFromCase(final Case aCase) {
-        final List<CaseContentLink> contentLinks = caseContentLinks.findByCase(aCase);
-        return Lists.newArrayList(Iterables.transform(contentLinks, CaseContentLink.Functions.GET_CONTENT));
+        return caseContentLinks.contentsOf(aCase);
     }
 
     public String validateRemoveFromCase(final Case aCase, final CaseContent caseContent) {
-        final List<CaseContentLink> contentLinks = caseContentLinks.findByCase(aCase);
-        for (CaseContentLink contentLink : contentLinks) {
-            if(contentLink.getPolymorphicReference() == caseContent) {
-                return null;
-            }
-        }
-        return "Not contained within case";
+        return caseContentLinks.existsBySubjectAndPolymorphicReference(aCase, caseContent)
+                ? null: "Not contained within case";
     }
 
 
@@ -138,10 +128,7 @@ public String validateRemoveFromCase(final Case aCase, final CaseContent caseCon
             contributed = Contributed.AS_ASSOCIATION
     )
     public List<CaseContent> contents(final Case aCase) {
-        final List<CaseContentLink> links = caseContentLinks.findByCase(aCase);
-        return Lists.newArrayList(
-                Iterables.transform(links, CaseContentLink.Functions.GET_CONTENT)
-        );
+        return caseContentLinks.contentsOf(aCase);
     }
     //endregion
 
@@ -153,10 +140,7 @@ public List<CaseContent> contents(final Case aCase) {
             contributed = Contributed.AS_ASSOCIATION
     )
     public List<Case> cases(final CaseContent caseContent) {
-        final List<CaseContentLink> links = caseContentLinks.findByContent(caseContent);
-        return Lists.newArrayList(
-                Iterables.transform(links, CaseContentLink.Functions.GET_CASE)
-        );
+        return caseContentLinks.casesOf(caseContent);
     }
     //endregion
 
@@ -185,5 +169,7 @@ public String title(final CaseContent caseContent) {
     private CaseContentLinks caseContentLinks;
     @Inject
     private DomainObjectContainer container;
+    @Inject
+    private PolymorphicAssociationLinkMemo linkMemo;
 
 }
@@ -19,6 +19,7 @@
 package org.isisaddons.module.poly.fixture.dom.modules.casemgmt;
 
 import javax.jdo.annotations.Column;
+import javax.jdo.annotations.DiscriminatorStrategy;
 import javax.jdo.annotations.IdGeneratorStrategy;
 import javax.jdo.annotations.IdentityType;
 import javax.jdo.annotations.InheritanceStrategy;
@@ -32,6 +33,10 @@
 @javax.jdo.annotations.DatastoreIdentity(strategy = IdGeneratorStrategy.IDENTITY, column = "id")
 @javax.jdo.annotations.Inheritance(
         strategy = InheritanceStrategy.NEW_TABLE)
+@javax.jdo.annotations.Discriminator(
+        strategy = DiscriminatorStrategy.VALUE_MAP,
+        column = "discriminator",
+        value = "casemgmt.CaseContentLink")
 @javax.jdo.annotations.Queries({
         @javax.jdo.annotations.Query(
                 name = "findByCase", language = "JDOQL",
@@ -46,6 +51,7 @@
                         + "   && contentIdentifier == :contentIdentifier ")
 })
 @javax.jdo.annotations.Unique(name="CaseContentLink_case_content_UNQ", members = {"case","contentObjectType","contentIdentifier"})
+@javax.jdo.annotations.Index(name="CaseContentLink_content_IDX", members = {"contentObjectType","contentIdentifier"})
 @DomainObject(
         objectType = "casemgmt.CaseContentLink"
 )
@@ -152,6 +158,9 @@ public Case apply(final CaseContentLink input) {
                 return input.getSubject();
             }
         };
+        /**
+         * Looks up the content of each link individually; for many links prefer {@link CaseContentLinks#contentsOf(java.util.List)}.
+         */
         public static Function<CaseContentLink, CaseContent> GET_CONTENT = new Function<CaseContentLink, CaseContent>() {
             @Override
             public CaseContent apply(final CaseContentLink input) {
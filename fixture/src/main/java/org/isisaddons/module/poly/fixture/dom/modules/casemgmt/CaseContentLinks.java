@@ -19,82 +19,69 @@
 package org.isisaddons.module.poly.fixture.dom.modules.casemgmt;
 
 import java.util.List;
-import javax.annotation.PostConstruct;
-import org.isisaddons.module.poly.dom.PolymorphicAssociationLink;
-import org.apache.isis.applib.DomainObjectContainer;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkRepository;
 import org.apache.isis.applib.annotation.DomainService;
 import org.apache.isis.applib.annotation.NatureOfService;
 import org.apache.isis.applib.annotation.Programmatic;
-import org.apache.isis.applib.query.QueryDefault;
-import org.apache.isis.applib.services.bookmark.Bookmark;
-import org.apache.isis.applib.services.bookmark.BookmarkService;
 
 @DomainService(
         nature = NatureOfService.DOMAIN,
         repositoryFor = CaseContentLink.class
 )
-public class CaseContentLinks {
-
-    //region > init
-    PolymorphicAssociationLink.Factory<Case,CaseContent,CaseContentLink,CaseContentLink.InstantiateEvent> linkFactory;
-
-    @PostConstruct
-    public void init() {
-        linkFactory = container.injectServicesInto(
-                new PolymorphicAssociationLink.Factory<>(
-                        this,
-                        Case.class,
-                        CaseContent.class,
-                        CaseContentLink.class,
-                        CaseContentLink.InstantiateEvent.class
-                ));
+public class CaseContentLinks
+        extends PolymorphicAssociationLinkRepository<Case,CaseContent,CaseContentLink,CaseContentLink.InstantiateEvent> {
 
+    //region > constructor
+    public CaseContentLinks() {
+        super(Case.class,
+                CaseContent.class,
+                CaseContentLink.class,
+                CaseContentLink.InstantiateEvent.class,
+                "case", "contentObjectType", "contentIdentifier");
+        useNativeSql("CaseContentLink", "id", "case_id", "contentObjectType", "contentIdentifier");
     }
     //endregion
 
     //region > findByCase (programmatic)
     @Programmatic
     public List<CaseContentLink> findByCase(final Case aCase) {
-        return container.allMatches(
-                new QueryDefault<>(CaseContentLink.class,
-                        "findByCase",
-                        "case", aCase));
+        return findBySubject(aCase);
     }
     //endregion
 
     //region > findByContent (programmatic)
     @Programmatic
     public List<CaseContentLink> findByContent(final CaseContent caseContent) {
-        if(caseContent == null) {
-            return null;
-        }
-        final Bookmark bookmark = bookmarkService.bookmarkFor(caseContent);
-        if(bookmark == null) {
-            return null;
-        }
-        return container.allMatches(
-                new QueryDefault<>(CaseContentLink.class,
-                        "findByContent",
-                        "contentObjectType", bookmark.getObjectType(),
-                        "contentIdentifier", bookmark.getIdentifier()));
+        return findByPolymorphicReference(caseContent);
     }
     //endregion
 
-    //region > createLink
+    //region > contentsOf (programmatic)
+    /**
+     * The contents referenced by the links (in the same order), resolved in bulk.
+     */
     @Programmatic
-    public void createLink(final Case aCase, final CaseContent content) {
-        linkFactory.createLink(aCase, content);
+    public List<CaseContent> contentsOf(final List<CaseContentLink> links) {
+        return resolveAll(links);
     }
-    //endregion
-
-    //region > injected services
-
-    @javax.inject.Inject
-    private DomainObjectContainer container;
 
-    @javax.inject.Inject
-    private BookmarkService bookmarkService;
+    /**
+     * The contents of the case, without instantiating its links.
+     */
+    @Programmatic
+    public List<CaseContent> contentsOf(final Case aCase) {
+        return polymorphicReferencesOf(findProjectionsBySubject(aCase));
+    }
+    //endregion
 
+    //region > casesOf (programmatic)
+    /**
+     * The cases containing the content, without instantiating their links.
+     */
+    @Programmatic
+    public List<Case> casesOf(final CaseContent caseContent) {
+        return subjectsOf(findProjectionsByPolymorphicReference(caseContent));
+    }
     //endregion
 
 }
@@ -20,6 +20,7 @@
 
 import java.util.List;
 import javax.inject.Inject;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkMemo;
 import org.apache.isis.applib.DomainObjectContainer;
 import org.apache.isis.applib.annotation.Action;
 import org.apache.isis.applib.annotation.ActionLayout;
@@ -66,10 +67,10 @@ public Case resetPrimary(
     private Case setPrimary(final Case aCase, final CaseContent caseContent) {
         final CasePrimaryContentLink contentLink = casePrimaryContentLinks.findByCase(aCase);
         if(contentLink != null) {
-            container.removeIfNotAlready(contentLink);
+            linkMemo.removeIfNotAlready(contentLink);
         }
         if(caseContent != null) {
-            casePrimaryContentLinks.createLink(aCase, caseContent);
+            casePrimaryContentLinks.createOrGet(aCase, caseContent);
         }
         return aCase;
     }
@@ -91,5 +92,7 @@ public List<CaseContent> choices1MakePrimary(final Case aCase) {
     private CasePrimaryContentLinks casePrimaryContentLinks;
     @Inject
     private DomainObjectContainer container;
+    @Inject
+    private PolymorphicAssociationLinkMemo linkMemo;
 
 }
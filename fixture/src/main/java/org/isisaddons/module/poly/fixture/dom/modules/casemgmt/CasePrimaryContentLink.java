@@ -53,6 +53,7 @@
                         + "   && contentIdentifier == :contentIdentifier ")
 })
 @javax.jdo.annotations.Unique(name="CasePrimaryContentLink_case_content_UNQ", members = {"case","contentObjectType","contentIdentifier"})
+@javax.jdo.annotations.Index(name="CasePrimaryContentLink_content_IDX", members = {"contentObjectType","contentIdentifier"})
 @DomainObject(
         objectType = "casemgmt.CasePrimaryContentLink"
 )
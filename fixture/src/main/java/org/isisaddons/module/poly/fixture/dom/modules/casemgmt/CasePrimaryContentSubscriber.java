@@ -20,8 +20,8 @@
 
 import javax.inject.Inject;
 import com.google.common.eventbus.Subscribe;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkMemo;
 import org.apache.isis.applib.AbstractSubscriber;
-import org.apache.isis.applib.DomainObjectContainer;
 import org.apache.isis.applib.annotation.DomainService;
 import org.apache.isis.applib.annotation.NatureOfService;
 import org.apache.isis.applib.annotation.Programmatic;
@@ -41,7 +41,7 @@ public void on(final CaseContentContributions.RemoveFromCaseDomainEvent ev) {
             case EXECUTING:
                 final CasePrimaryContentLink link = casePrimaryContentLinks.findByCaseAndContent(ev.getCase(), ev.getContent());
                 if(link != null) {
-                    container.remove(link);
+                    linkMemo.removeIfNotAlready(link);
                 }
                 break;
         }
@@ -50,6 +50,6 @@ public void on(final CaseContentContributions.RemoveFromCaseDomainEvent ev) {
     @Inject
     private CasePrimaryContentLinks casePrimaryContentLinks;
     @Inject
-    private DomainObjectContainer container;
+    private PolymorphicAssociationLinkMemo linkMemo;
 
 }
@@ -45,6 +45,7 @@
                         + "   && ownerIdentifier == :ownerIdentifier ")
 })
 @javax.jdo.annotations.Unique(name="CommunicationChannelOwnerLink_commchannel_owner_UNQ", members = {"communicationChannel","ownerObjectType","ownerIdentifier"})
+@javax.jdo.annotations.Index(name="CommunicationChannelOwnerLink_owner_IDX", members = {"ownerObjectType","ownerIdentifier"})
 @DomainObject(
         objectType = "comms.CommunicationChannelOwnerLink"
 )
@@ -109,6 +110,8 @@ public void setPolymorphicIdentifier(final String polymorphicIdentifier) {
             allowsNull = "false",
             name = "communicationChannel_id"
     )
+    // fetched with the link, rather than once per link by the owner's communicationChannels
+    @javax.jdo.annotations.Persistent(defaultFetchGroup = "true")
     public CommunicationChannel getCommunicationChannel() {
         return communicationChannel;
     }
@@ -0,0 +1,60 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.fixture.dom.modules.comms;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import javax.enterprise.context.RequestScoped;
+import org.isisaddons.module.poly.dom.BatchLoader;
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+
+/**
+ * Batches up the {@link CommunicationChannelOwnerLinks#findByOwner(CommunicationChannelOwner) findByOwner} queries
+ * of the owners rendered in a table, so that their communication channels are fetched with a single
+ * {@link CommunicationChannelOwnerLinks#findByOwners(Collection) findByOwners} query (per owner type).
+ *
+ * <p>
+ *     Being request-scoped (and reset by each new transaction), it only batches the owners primed in the same
+ *     transaction, by the <tt>listAll()</tt> that returned them; a table rendered by a later request queries each
+ *     owner on its own.
+ * </p>
+ */
+@DomainService(
+        nature = NatureOfService.DOMAIN
+)
+@RequestScoped
+public class CommunicationChannelOwnerLinkLoader
+        extends BatchLoader<CommunicationChannelOwner, List<CommunicationChannelOwnerLink>> {
+
+    @Override
+    protected Map<CommunicationChannelOwner, List<CommunicationChannelOwnerLink>> loadAll(
+            final Collection<CommunicationChannelOwner> owners) {
+        return communicationChannelOwnerLinks.findByOwners(owners);
+    }
+
+    //region > injected services
+
+    @javax.inject.Inject
+    private CommunicationChannelOwnerLinks communicationChannelOwnerLinks;
+
+    //endregion
+
+}
@@ -18,83 +18,132 @@
  */
 package org.isisaddons.module.poly.fixture.dom.modules.comms;
 
+import java.util.Collection;
 import java.util.List;
-import javax.annotation.PostConstruct;
+import java.util.Map;
 import org.isisaddons.module.poly.dom.PolymorphicAssociationLink;
-import org.apache.isis.applib.DomainObjectContainer;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkRepository;
 import org.apache.isis.applib.annotation.DomainService;
 import org.apache.isis.applib.annotation.NatureOfService;
 import org.apache.isis.applib.annotation.Programmatic;
-import org.apache.isis.applib.query.QueryDefault;
-import org.apache.isis.applib.services.bookmark.Bookmark;
-import org.apache.isis.applib.services.bookmark.BookmarkService;
 
 @DomainService(
         nature = NatureOfService.DOMAIN,
         repositoryFor = CommunicationChannelOwnerLink.class
 )
-public class CommunicationChannelOwnerLinks {
-
-    //region > init
-    PolymorphicAssociationLink.Factory<CommunicationChannel,CommunicationChannelOwner,CommunicationChannelOwnerLink,CommunicationChannelOwnerLink.InstantiateEvent> linkFactory;
-
-    @PostConstruct
-    public void init() {
-        linkFactory = container.injectServicesInto(
-                new PolymorphicAssociationLink.Factory<>(
-                        this,
-                        CommunicationChannel.class,
-                        CommunicationChannelOwner.class,
-                        CommunicationChannelOwnerLink.class,
-                        CommunicationChannelOwnerLink.InstantiateEvent.class
-                ));
+public class CommunicationChannelOwnerLinks
+        extends PolymorphicAssociationLinkRepository<CommunicationChannel,CommunicationChannelOwner,CommunicationChannelOwnerLink,CommunicationChannelOwnerLink.InstantiateEvent> {
 
+    //region > constructor
+    public CommunicationChannelOwnerLinks() {
+        super(CommunicationChannel.class,
+                CommunicationChannelOwner.class,
+                CommunicationChannelOwnerLink.class,
+                CommunicationChannelOwnerLink.InstantiateEvent.class,
+                "communicationChannel", "ownerObjectType", "ownerIdentifier");
+        usePersistStrategy(PolymorphicAssociationLink.Factory.PersistStrategy.DEFERRED);
+        useNativeSql("CommunicationChannelOwnerLink", "id", "communicationChannel_id", "ownerObjectType", "ownerIdentifier");
     }
     //endregion
 
     //region > findByCommunicationChannel (programmatic)
     @Programmatic
     public CommunicationChannelOwnerLink findByCommunicationChannel(final CommunicationChannel communicationChannel) {
-        return container.firstMatch(
-                new QueryDefault<>(CommunicationChannelOwnerLink.class,
-                        "findByCommunicationChannel",
-                        "communicationChannel", communicationChannel));
+        final List<CommunicationChannelOwnerLink> links = findBySubject(communicationChannel);
+        return links != null && !links.isEmpty() ? links.get(0) : null;
     }
     //endregion
 
     //region > findByOwner (programmatic)
     @Programmatic
     public List<CommunicationChannelOwnerLink> findByOwner(final CommunicationChannelOwner owner) {
-        if(owner == null) {
-            return null;
-        }
-        final Bookmark bookmark = bookmarkService.bookmarkFor(owner);
-        if(bookmark == null) {
-            return null;
-        }
-        return container.allMatches(
-                new QueryDefault<>(CommunicationChannelOwnerLink.class,
-                        "findByOwner",
-                        "ownerObjectType", bookmark.getObjectType(),
-                        "ownerIdentifier", bookmark.getIdentifier()));
+        return findByPolymorphicReference(owner);
+    }
+    //endregion
+
+    //region > communicationChannelsOf (programmatic)
+    /**
+     * The communication channels of the owner, without instantiating their links.
+     */
+    @Programmatic
+    public List<CommunicationChannel> communicationChannelsOf(final CommunicationChannelOwner owner) {
+        return subjectsOf(findProjectionsByPolymorphicReference(owner));
+    }
+    //endregion
+
+    //region > findByOwners (programmatic)
+    /**
+     * Multi-owner equivalent of {@link #findByOwner(CommunicationChannelOwner)}, running a single query per owner
+     * object type.
+     */
+    @Programmatic
+    public Map<CommunicationChannelOwner, List<CommunicationChannelOwnerLink>> findByOwners(
+            final Collection<? extends CommunicationChannelOwner> owners) {
+        return findByPolymorphicReferences(owners);
     }
     //endregion
 
     //region > createLink (programmatic)
     @Programmatic
-    public void createLink(final CommunicationChannel communicationChannel, final CommunicationChannelOwner owner) {
-        linkFactory.createLink(communicationChannel, owner);
+    @Override
+    public CommunicationChannelOwnerLink createLink(final CommunicationChannel communicationChannel, final CommunicationChannelOwner owner) {
+        final CommunicationChannelOwnerLink link = super.createLink(communicationChannel, owner);
+        communicationChannelOwnerLinkLoader.invalidate(owner);
+        return link;
     }
     //endregion
 
+    //region > createLinks (programmatic)
+    /**
+     * Bulk equivalent of {@link #createLink(CommunicationChannel, CommunicationChannelOwner)}, eg for imports.
+     */
+    @Programmatic
+    @Override
+    public List<CommunicationChannelOwnerLink> createLinks(
+            final Collection<PolymorphicAssociationLink.Pair<CommunicationChannel, CommunicationChannelOwner>> channelsAndOwners) {
+        final List<CommunicationChannelOwnerLink> links = super.createLinks(channelsAndOwners);
+        for (final PolymorphicAssociationLink.Pair<CommunicationChannel, CommunicationChannelOwner> channelAndOwner : channelsAndOwners) {
+            communicationChannelOwnerLinkLoader.invalidate(channelAndOwner.getPolymorphicReference());
+        }
+        return links;
+    }
+    //endregion
 
-    //region > injected services
+    //region > deleteByPolymorphicReference (programmatic)
+    /**
+     * Also invalidates the owner's links held by the {@link CommunicationChannelOwnerLinkLoader}.
+     */
+    @Programmatic
+    @Override
+    public long deleteByPolymorphicReference(final CommunicationChannelOwner owner) {
+        final long deleted = super.deleteByPolymorphicReference(owner);
+        communicationChannelOwnerLinkLoader.invalidate(owner);
+        return deleted;
+    }
+    //endregion
 
-    @javax.inject.Inject
-    private DomainObjectContainer container;
+    //region > reparent (programmatic)
+    /**
+     * Also invalidates the links of both owners held by the {@link CommunicationChannelOwnerLinkLoader}.
+     */
+    @Programmatic
+    @Override
+    public long reparent(
+            final CommunicationChannelOwner fromOwner,
+            final CommunicationChannelOwner toOwner,
+            final int chunkSize) {
+        final long reparented = super.reparent(fromOwner, toOwner, chunkSize);
+        communicationChannelOwnerLinkLoader.invalidate(fromOwner);
+        communicationChannelOwnerLinkLoader.invalidate(toOwner);
+        return reparented;
+    }
+    //endregion
+
+
+    //region > injected services
 
     @javax.inject.Inject
-    private BookmarkService bookmarkService;
+    private CommunicationChannelOwnerLinkLoader communicationChannelOwnerLinkLoader;
 
     //endregion
 
@@ -21,9 +21,10 @@
 import javax.jdo.annotations.Column;
 import javax.jdo.annotations.InheritanceStrategy;
 import com.google.common.eventbus.Subscribe;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLink;
+import org.isisaddons.module.poly.dom.TypedPolymorphicReference;
 import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CaseContent;
 import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CaseContentLink;
-import org.apache.isis.applib.AbstractSubscriber;
 import org.apache.isis.applib.annotation.DomainObject;
 import org.apache.isis.applib.annotation.DomainService;
 import org.apache.isis.applib.annotation.MemberOrder;
@@ -33,14 +34,15 @@
 
 @javax.jdo.annotations.PersistenceCapable()
 @javax.jdo.annotations.Inheritance(
-        strategy = InheritanceStrategy.NEW_TABLE)
+        strategy = InheritanceStrategy.SUPERCLASS_TABLE)
+@javax.jdo.annotations.Discriminator("fixedasset.CaseContentLinkForFixedAsset")
 @DomainObject(
         objectType = "fixedasset.CaseContentLinkForFixedAsset"
 )
 public class CaseContentLinkForFixedAsset extends CaseContentLink {
 
     @DomainService(nature = NatureOfService.DOMAIN)
-    public static class InstantiationSubscriber extends AbstractSubscriber {
+    public static class InstantiationSubscriber extends PolymorphicAssociationLink.InstantiationSubscriberAbstract {
 
         @Programmatic
         @Subscribe
@@ -60,8 +62,9 @@ public void setPolymorphicReference(final CaseContent polymorphicReference) {
     //region > party (property)
     private FixedAsset fixedAsset;
 
+    @TypedPolymorphicReference
     @Column(
-            allowsNull = "false",
+            allowsNull = "true", // shares the CaseContentLink table with the other subtypes
             name = "fixedAsset_id"
     )
     @MemberOrder(sequence = "1")
@@ -21,9 +21,10 @@
 import javax.jdo.annotations.Column;
 import javax.jdo.annotations.InheritanceStrategy;
 import com.google.common.eventbus.Subscribe;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLink;
+import org.isisaddons.module.poly.dom.TypedPolymorphicReference;
 import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CaseContent;
 import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CasePrimaryContentLink;
-import org.apache.isis.applib.AbstractSubscriber;
 import org.apache.isis.applib.annotation.DomainObject;
 import org.apache.isis.applib.annotation.DomainService;
 import org.apache.isis.applib.annotation.MemberOrder;
@@ -40,7 +41,7 @@
 public class CasePrimaryContentLinkForFixedAsset extends CasePrimaryContentLink {
 
     @DomainService(nature = NatureOfService.DOMAIN)
-    public static class InstantiationSubscriber extends AbstractSubscriber {
+    public static class InstantiationSubscriber extends PolymorphicAssociationLink.InstantiationSubscriberAbstract {
 
         @Programmatic
         @Subscribe
@@ -61,6 +62,7 @@ public void setPolymorphicReference(final CaseContent polymorphicReference) {
     //region > party (property)
     private FixedAsset fixedAsset;
 
+    @TypedPolymorphicReference
     @Column(
             allowsNull = "false",
             name = "fixedAsset_id"
@@ -18,11 +18,14 @@
  */
 package org.isisaddons.module.poly.fixture.dom.modules.fixedasset;
 
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkMemo;
 import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CaseContent;
 import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannel;
 import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwner;
 import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLink;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLinkLoader;
 import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLinks;
+import org.isisaddons.module.poly.fixture.dom.modules.notes.Notable;
 
 import java.util.List;
 import javax.jdo.annotations.Column;
@@ -66,7 +69,7 @@
 @DomainObjectLayout(
         bookmarking = BookmarkPolicy.AS_ROOT
 )
-public class FixedAsset implements CommunicationChannelOwner, CaseContent, Comparable<FixedAsset> {
+public class FixedAsset implements CommunicationChannelOwner, CaseContent, Notable, Comparable<FixedAsset> {
 
     //region > identification
     public TranslatableString title() {
@@ -127,7 +130,6 @@ public CommunicationChannelOwner createCommunicationChannel(
         final CommunicationChannel communicationChannel = container.newTransientInstance(CommunicationChannel.class);
         communicationChannel.setDetails(details);
         container.persist(communicationChannel);
-        container.flush();
 
         communicationChannelOwnerLinks.createLink(communicationChannel, this);
         return this;
@@ -153,14 +155,15 @@ public CommunicationChannelOwner deleteCommunicationChannel() {
         final CommunicationChannelOwnerLink ownerLink = getCommunicationChannelOwnerLink();
         final CommunicationChannel communicationChannel = getCommunicationChannel();
 
-        container.removeIfNotAlready(ownerLink);
+        linkMemo.removeIfNotAlready(ownerLink);
         container.removeIfNotAlready(communicationChannel);
+        communicationChannelOwnerLinkLoader.invalidate(this);
 
         return this;
     }
 
     public String disableDeleteCommunicationChannel() {
-        return getCommunicationChannelOwnerLink() == null? "Does not own a communication channel": null;
+        return communicationChannelOwnerLinks.countByPolymorphicReference(this) != 1? "Does not own a communication channel": null;
     }
     //endregion
 
@@ -171,7 +174,7 @@ public CommunicationChannel getCommunicationChannel() {
         return ownerLink != null? ownerLink.getCommunicationChannel(): null;
     }
     private CommunicationChannelOwnerLink getCommunicationChannelOwnerLink() {
-        final List<CommunicationChannelOwnerLink> link = communicationChannelOwnerLinks.findByOwner(this);
+        final List<CommunicationChannelOwnerLink> link = communicationChannelOwnerLinkLoader.load(this);
         return link.size() == 1? link.get(0): null;
     }
     //endregion
@@ -193,6 +196,12 @@ public int compareTo(final FixedAsset other) {
     @javax.inject.Inject
     CommunicationChannelOwnerLinks communicationChannelOwnerLinks;
 
+    @javax.inject.Inject
+    CommunicationChannelOwnerLinkLoader communicationChannelOwnerLinkLoader;
+
+    @javax.inject.Inject
+    PolymorphicAssociationLinkMemo linkMemo;
+
 
     //endregion
 
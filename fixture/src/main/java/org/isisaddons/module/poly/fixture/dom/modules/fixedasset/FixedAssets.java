@@ -19,6 +19,7 @@
 package org.isisaddons.module.poly.fixture.dom.modules.fixedasset;
 
 import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannel;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLinkLoader;
 
 import java.util.List;
 import org.apache.isis.applib.DomainObjectContainer;
@@ -44,7 +45,10 @@ public class FixedAssets {
     )
     @MemberOrder(sequence = "1")
     public List<FixedAsset> listAll() {
-        return container.allInstances(FixedAsset.class);
+        final List<FixedAsset> fixedAssets = container.allInstances(FixedAsset.class);
+        // only of use if the table is rendered in this same transaction; see CommunicationChannelOwnerLinkLoader
+        communicationChannelOwnerLinkLoader.prime(fixedAssets);
+        return fixedAssets;
     }
     //endregion
 
@@ -68,5 +72,8 @@ public FixedAsset create(
     @javax.inject.Inject 
     DomainObjectContainer container;
 
+    @javax.inject.Inject
+    CommunicationChannelOwnerLinkLoader communicationChannelOwnerLinkLoader;
+
     //endregion
 }
@@ -0,0 +1,179 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.fixture.dom.modules.notes;
+
+import javax.jdo.annotations.Column;
+import javax.jdo.annotations.IdGeneratorStrategy;
+import javax.jdo.annotations.IdentityType;
+import javax.jdo.annotations.InheritanceStrategy;
+import org.isisaddons.module.poly.dom.CompactPolymorphicAssociationLink;
+import org.isisaddons.module.poly.dom.LinkSubtypeResolverAbstract;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLink;
+import org.apache.isis.applib.annotation.DomainObject;
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+
+/**
+ * Demonstrates the {@link CompactPolymorphicAssociationLink compact} storage mode: the object type of the notable is
+ * stored as a code, and its identifier as a number.  There are no subtypes, the one table serving all notables.
+ */
+@javax.jdo.annotations.PersistenceCapable(identityType=IdentityType.DATASTORE)
+@javax.jdo.annotations.DatastoreIdentity(strategy = IdGeneratorStrategy.IDENTITY, column = "id")
+@javax.jdo.annotations.Inheritance(
+        strategy = InheritanceStrategy.NEW_TABLE)
+@javax.jdo.annotations.Indices({
+        @javax.jdo.annotations.Index(name="NotableLink_note_notable_IDX", members = {"note","notableObjectTypeCode","notableIdentifierNumber"}),
+        @javax.jdo.annotations.Index(name="NotableLink_notable_IDX", members = {"notableObjectTypeCode","notableIdentifierNumber"}),
+        @javax.jdo.annotations.Index(name="NotableLink_notableString_IDX", members = {"notableObjectTypeCode","notableIdentifierString"})
+})
+@DomainObject(
+        objectType = "notes.NotableLink"
+)
+public class NotableLink extends CompactPolymorphicAssociationLink<Note, Notable, NotableLink> {
+
+    public static class InstantiateEvent
+            extends PolymorphicAssociationLink.InstantiateEvent<Note, Notable, NotableLink> {
+
+        public InstantiateEvent(final Object source, final Note subject, final Notable notable) {
+            super(NotableLink.class, source, subject, notable);
+        }
+    }
+
+    @DomainService(nature = NatureOfService.DOMAIN)
+    public static class SubtypeResolver extends LinkSubtypeResolverAbstract<NotableLink> {
+        public SubtypeResolver() {
+            super(NotableLink.class, Notable.class, NotableLink.class);
+        }
+    }
+
+    //region > constructor
+    public NotableLink() {
+        super("{subject} on {polymorphicReference}");
+    }
+    //endregion
+
+    //region > SubjectPolymorphicReferenceLink API
+    @Override
+    @Programmatic
+    public Note getSubject() {
+        return getNote();
+    }
+
+    @Override
+    @Programmatic
+    public void setSubject(final Note subject) {
+        setNote(subject);
+    }
+
+    @Override
+    @Programmatic
+    public Integer getPolymorphicObjectTypeCode() {
+        return getNotableObjectTypeCode();
+    }
+
+    @Override
+    @Programmatic
+    public void setPolymorphicObjectTypeCode(final Integer polymorphicObjectTypeCode) {
+        setNotableObjectTypeCode(polymorphicObjectTypeCode);
+    }
+
+    @Override
+    @Programmatic
+    public Long getPolymorphicIdentifierNumber() {
+        return getNotableIdentifierNumber();
+    }
+
+    @Override
+    @Programmatic
+    public void setPolymorphicIdentifierNumber(final Long polymorphicIdentifierNumber) {
+        setNotableIdentifierNumber(polymorphicIdentifierNumber);
+    }
+
+    @Override
+    @Programmatic
+    public String getPolymorphicIdentifierString() {
+        return getNotableIdentifierString();
+    }
+
+    @Override
+    @Programmatic
+    public void setPolymorphicIdentifierString(final String polymorphicIdentifierString) {
+        setNotableIdentifierString(polymorphicIdentifierString);
+    }
+    //endregion
+
+    //region > note (property)
+    private Note note;
+    @Column(
+            allowsNull = "false",
+            name = "note_id"
+    )
+    public Note getNote() {
+        return note;
+    }
+
+    public void setNote(final Note note) {
+        this.note = note;
+    }
+    //endregion
+
+    //region > notableObjectTypeCode (property)
+    private Integer notableObjectTypeCode;
+
+    @Column(allowsNull = "false")
+    @Programmatic
+    public Integer getNotableObjectTypeCode() {
+        return notableObjectTypeCode;
+    }
+
+    public void setNotableObjectTypeCode(final Integer notableObjectTypeCode) {
+        this.notableObjectTypeCode = notableObjectTypeCode;
+    }
+    //endregion
+
+    //region > notableIdentifierNumber (property)
+    private Long notableIdentifierNumber;
+
+    @Column(allowsNull = "true")
+    @Programmatic
+    public Long getNotableIdentifierNumber() {
+        return notableIdentifierNumber;
+    }
+
+    public void setNotableIdentifierNumber(final Long notableIdentifierNumber) {
+        this.notableIdentifierNumber = notableIdentifierNumber;
+    }
+    //endregion
+
+    //region > notableIdentifierString (property)
+    private String notableIdentifierString;
+
+    @Column(allowsNull = "true", length = 255)
+    @Programmatic
+    public String getNotableIdentifierString() {
+        return notableIdentifierString;
+    }
+
+    public void setNotableIdentifierString(final String notableIdentifierString) {
+        this.notableIdentifierString = notableIdentifierString;
+    }
+    //endregion
+
+}
@@ -0,0 +1,70 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.fixture.dom.modules.notes;
+
+import java.util.List;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkRepository;
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+
+/**
+ * Uses the "compact" constructor, matching {@link NotableLink}; native SQL is not supported for compact links, so the
+ * set-based delete and reparent fall back to JDOQL.
+ */
+@DomainService(
+        nature = NatureOfService.DOMAIN,
+        repositoryFor = NotableLink.class
+)
+public class NotableLinks
+        extends PolymorphicAssociationLinkRepository<Note,Notable,NotableLink,NotableLink.InstantiateEvent> {
+
+    //region > constructor
+    public NotableLinks() {
+        super(Note.class,
+                Notable.class,
+                NotableLink.class,
+                NotableLink.InstantiateEvent.class,
+                "note", "notableObjectTypeCode", "notableIdentifierNumber", "notableIdentifierString");
+    }
+    //endregion
+
+    //region > findByNote (programmatic)
+    @Programmatic
+    public NotableLink findByNote(final Note note) {
+        final List<NotableLink> links = findBySubject(note);
+        return links != null && !links.isEmpty() ? links.get(0) : null;
+    }
+    //endregion
+
+    //region > findByNotable (programmatic)
+    @Programmatic
+    public List<NotableLink> findByNotable(final Notable notable) {
+        return findByPolymorphicReference(notable);
+    }
+    //endregion
+
+    //region > notesOf (programmatic)
+    @Programmatic
+    public List<Note> notesOf(final Notable notable) {
+        return subjectsOf(findProjectionsByPolymorphicReference(notable));
+    }
+    //endregion
+
+}
@@ -0,0 +1,82 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.fixture.dom.modules.notes;
+
+import javax.jdo.annotations.IdentityType;
+import javax.jdo.annotations.VersionStrategy;
+import org.apache.isis.applib.annotation.DomainObject;
+import org.apache.isis.applib.annotation.Editing;
+import org.apache.isis.applib.annotation.Property;
+import org.apache.isis.applib.annotation.Title;
+import org.apache.isis.applib.util.ObjectContracts;
+
+@javax.jdo.annotations.PersistenceCapable(identityType=IdentityType.DATASTORE)
+@javax.jdo.annotations.DatastoreIdentity(
+        strategy=javax.jdo.annotations.IdGeneratorStrategy.IDENTITY,
+         column="id")
+@javax.jdo.annotations.Version(
+        strategy=VersionStrategy.VERSION_NUMBER,
+        column="version")
+@DomainObject(
+        objectType = "notes.Note"
+)
+public class Note implements Comparable<Note> {
+
+    //region > text (property)
+
+    private String text;
+
+    @javax.jdo.annotations.Column(allowsNull="false", length = 255)
+    @Title(sequence="1")
+    @Property(
+            editing = Editing.DISABLED
+    )
+    public String getText() {
+        return text;
+    }
+
+    public void setText(final String text) {
+        this.text = text;
+    }
+
+    // endregion
+
+    //region > notable (derived property)
+    public Notable getNotable() {
+        final NotableLink link = notableLinks.findByNote(this);
+        return link != null ? link.getPolymorphicReference() : null;
+    }
+    //endregion
+
+    //region > compareTo
+
+    @Override
+    public int compareTo(final Note other) {
+        return ObjectContracts.compare(this, other, "text");
+    }
+
+    //endregion
+
+    //region > injected services
+
+    @javax.inject.Inject
+    NotableLinks notableLinks;
+    //endregion
+
+}
@@ -20,33 +20,29 @@
 
 import javax.jdo.annotations.Column;
 import javax.jdo.annotations.InheritanceStrategy;
-import com.google.common.eventbus.Subscribe;
+import org.isisaddons.module.poly.dom.LinkSubtypeResolverAbstract;
+import org.isisaddons.module.poly.dom.TypedPolymorphicReference;
 import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CaseContent;
 import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CaseContentLink;
-import org.apache.isis.applib.AbstractSubscriber;
 import org.apache.isis.applib.annotation.DomainObject;
 import org.apache.isis.applib.annotation.DomainService;
 import org.apache.isis.applib.annotation.MemberOrder;
 import org.apache.isis.applib.annotation.NatureOfService;
-import org.apache.isis.applib.annotation.Programmatic;
 import org.apache.isis.applib.services.bookmark.BookmarkService;
 
 @javax.jdo.annotations.PersistenceCapable()
 @javax.jdo.annotations.Inheritance(
-        strategy = InheritanceStrategy.NEW_TABLE)
+        strategy = InheritanceStrategy.SUPERCLASS_TABLE)
+@javax.jdo.annotations.Discriminator("party.CaseContentLinkForParty")
 @DomainObject(
         objectType = "party.CaseContentLinkForParty"
 )
 public class CaseContentLinkForParty extends CaseContentLink {
 
     @DomainService(nature = NatureOfService.DOMAIN)
-    public static class InstantiationSubscriber extends AbstractSubscriber {
-        @Programmatic
-        @Subscribe
-        public void on(final InstantiateEvent ev) {
-            if(ev.getPolymorphicReference() instanceof Party) {
-                ev.setSubtype(CaseContentLinkForParty.class);
-            }
+    public static class SubtypeResolver extends LinkSubtypeResolverAbstract<CaseContentLink> {
+        public SubtypeResolver() {
+            super(CaseContentLink.class, Party.class, CaseContentLinkForParty.class);
         }
     }
 
@@ -59,8 +55,9 @@ public void setPolymorphicReference(final CaseContent polymorphicReference) {
     //region > party (property)
     private Party party;
 
+    @TypedPolymorphicReference
     @Column(
-            allowsNull = "false",
+            allowsNull = "true", // shares the CaseContentLink table with the other subtypes
             name = "party_id"
     )
     @MemberOrder(sequence = "1")
@@ -20,15 +20,14 @@
 
 import javax.jdo.annotations.Column;
 import javax.jdo.annotations.InheritanceStrategy;
-import com.google.common.eventbus.Subscribe;
+import org.isisaddons.module.poly.dom.LinkSubtypeResolverAbstract;
+import org.isisaddons.module.poly.dom.TypedPolymorphicReference;
 import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwner;
 import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLink;
-import org.apache.isis.applib.AbstractSubscriber;
 import org.apache.isis.applib.annotation.DomainObject;
 import org.apache.isis.applib.annotation.DomainService;
 import org.apache.isis.applib.annotation.MemberOrder;
 import org.apache.isis.applib.annotation.NatureOfService;
-import org.apache.isis.applib.annotation.Programmatic;
 import org.apache.isis.applib.services.bookmark.BookmarkService;
 
 @javax.jdo.annotations.PersistenceCapable()
@@ -40,13 +39,9 @@
 public class CommunicationChannelOwnerLinkForParty extends CommunicationChannelOwnerLink {
 
     @DomainService(nature = NatureOfService.DOMAIN)
-    public static class InstantiationSubscriber extends AbstractSubscriber {
-        @Programmatic
-        @Subscribe
-        public void on(final InstantiateEvent ev) {
-            if(ev.getPolymorphicReference() instanceof Party) {
-                ev.setSubtype(CommunicationChannelOwnerLinkForParty.class);
-            }
+    public static class SubtypeResolver extends LinkSubtypeResolverAbstract<CommunicationChannelOwnerLink> {
+        public SubtypeResolver() {
+            super(CommunicationChannelOwnerLink.class, Party.class, CommunicationChannelOwnerLinkForParty.class);
         }
     }
 
@@ -59,6 +54,7 @@ public void setPolymorphicReference(final CommunicationChannelOwner polymorphicR
     //region > party (property)
     private Party party;
 
+    @TypedPolymorphicReference
     @Column(
             allowsNull = "false",
             name = "party_id"
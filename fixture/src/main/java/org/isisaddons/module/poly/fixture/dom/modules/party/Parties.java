@@ -19,6 +19,7 @@
 package org.isisaddons.module.poly.fixture.dom.modules.party;
 
 import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannel;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLinkLoader;
 
 import java.util.List;
 import org.apache.isis.applib.DomainObjectContainer;
@@ -44,7 +45,10 @@ public class Parties {
     )
     @MemberOrder(sequence = "1")
     public List<Party> listAll() {
-        return container.allInstances(Party.class);
+        final List<Party> parties = container.allInstances(Party.class);
+        // only of use if the table is rendered in this same transaction; see CommunicationChannelOwnerLinkLoader
+        communicationChannelOwnerLinkLoader.prime(parties);
+        return parties;
     }
     //endregion
 
@@ -68,5 +72,8 @@ public Party create(
     @javax.inject.Inject 
     DomainObjectContainer container;
 
+    @javax.inject.Inject
+    CommunicationChannelOwnerLinkLoader communicationChannelOwnerLinkLoader;
+
     //endregion
 }
@@ -24,11 +24,15 @@
 import javax.jdo.annotations.VersionStrategy;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkMemo;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkReparenter;
 import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CaseContent;
 import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannel;
 import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwner;
 import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLink;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLinkLoader;
 import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLinks;
+import org.isisaddons.module.poly.fixture.dom.modules.notes.Notable;
 import org.apache.isis.applib.DomainObjectContainer;
 import org.apache.isis.applib.annotation.BookmarkPolicy;
 import org.apache.isis.applib.annotation.CollectionLayout;
@@ -67,7 +71,7 @@
 @DomainObjectLayout(
         bookmarking = BookmarkPolicy.AS_ROOT
 )
-public class Party implements CommunicationChannelOwner, CaseContent, Comparable<Party> {
+public class Party implements CommunicationChannelOwner, CaseContent, Notable, Comparable<Party> {
 
     //region > identification
     public TranslatableString title() {
@@ -122,7 +126,7 @@ public String default0UpdateName() {
     )
     public List<CommunicationChannel> getCommunicationChannels() {
         final List<CommunicationChannelOwnerLink> ownerLinks =
-                communicationChannelOwnerLinks.findByOwner(this);
+                communicationChannelOwnerLinkLoader.load(this);
         return Lists.newArrayList(
                 Iterables.transform(ownerLinks, CommunicationChannelOwnerLink.Functions.GET_COMMUNICATION_CHANNEL)
         );
@@ -138,7 +142,6 @@ public CommunicationChannelOwner addCommunicationChannel(
         final CommunicationChannel communicationChannel = container.newTransientInstance(CommunicationChannel.class);
         communicationChannel.setDetails(details);
         container.persist(communicationChannel);
-        container.flush();
 
         communicationChannelOwnerLinks.createLink(communicationChannel, this);
         return this;
@@ -162,42 +165,54 @@ public String validate0AddCommunicationChannel(
     public CommunicationChannelOwner removeCommunicationChannel(
             final CommunicationChannel communicationChannel) {
 
-        final List<CommunicationChannelOwnerLink> ownerLinks =
-                communicationChannelOwnerLinks.findByOwner(this);
-        final CommunicationChannelOwnerLink ownerLink = communicationChannelOwnerLinks.findByCommunicationChannel(communicationChannel);
+        final CommunicationChannelOwnerLink ownerLink =
+                communicationChannelOwnerLinks.findBySubjectAndPolymorphicReference(communicationChannel, this);
 
-        if(ownerLinks.contains(ownerLink)) {
-            container.removeIfNotAlready(ownerLink);
+        if(ownerLink != null) {
+            linkMemo.removeIfNotAlready(ownerLink);
             container.removeIfNotAlready(communicationChannel);
+            communicationChannelOwnerLinkLoader.invalidate(this);
         }
 
         return this;
     }
 
     public String disableRemoveCommunicationChannel(final CommunicationChannel communicationChannel) {
-        final List<CommunicationChannelOwnerLink> ownerLinks =
-                communicationChannelOwnerLinks.findByOwner(this);
-        return ownerLinks.isEmpty()? "Does not own a communication channel": null;
+        return !communicationChannelOwnerLinks.existsByPolymorphicReference(this)? "Does not own a communication channel": null;
     }
     public String validate0RemoveCommunicationChannel(final CommunicationChannel communicationChannel) {
-        final List<CommunicationChannelOwnerLink> ownerLinks =
-                communicationChannelOwnerLinks.findByOwner(this);
-        final CommunicationChannelOwnerLink ownerLink = communicationChannelOwnerLinks.findByCommunicationChannel(communicationChannel);
-        return ownerLinks.contains(ownerLink)? null: "Not a communication channel of this party";
+        return communicationChannelOwnerLinks.existsBySubjectAndPolymorphicReference(communicationChannel, this)
+                ? null: "Not a communication channel of this party";
     }
 
     public List<CommunicationChannel> choices0RemoveCommunicationChannel() {
-        final List<CommunicationChannelOwnerLink> ownerLinks =
-                communicationChannelOwnerLinks.findByOwner(this);
-        return Lists.newArrayList(
-                Iterables.transform(ownerLinks, CommunicationChannelOwnerLink.Functions.GET_COMMUNICATION_CHANNEL)
-        );
+        return communicationChannelOwnerLinks.communicationChannelsOf(this);
     }
 
     //endregion
 
 
 
+    //region > mergeInto (action)
+    @MemberOrder(sequence = "2")
+    public Party mergeInto(
+            @ParameterLayout(named = "Surviving party")
+            final Party survivor) {
+
+        // moves the communication channels, case contents etc. with a few set-based updates (which also invalidate
+        // the communicationChannelOwnerLinkLoader)
+        linkReparenter.reparent(this, survivor);
+
+        container.remove(this);
+        return survivor;
+    }
+
+    public String validate0MergeInto(final Party survivor) {
+        return survivor == this ? "Cannot merge a party into itself" : null;
+    }
+
+    //endregion
+
     //region > compareTo
 
     @Override
@@ -215,6 +230,15 @@ public int compareTo(final Party other) {
     @javax.inject.Inject
     CommunicationChannelOwnerLinks communicationChannelOwnerLinks;
 
+    @javax.inject.Inject
+    CommunicationChannelOwnerLinkLoader communicationChannelOwnerLinkLoader;
+
+    @javax.inject.Inject
+    PolymorphicAssociationLinkMemo linkMemo;
+
+    @javax.inject.Inject
+    PolymorphicAssociationLinkReparenter linkReparenter;
+
     //endregion
 
 }
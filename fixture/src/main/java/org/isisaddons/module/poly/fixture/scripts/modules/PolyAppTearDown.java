@@ -19,6 +19,8 @@
 
 package org.isisaddons.module.poly.fixture.scripts.modules;
 
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkCache;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkMemo;
 import org.apache.isis.applib.fixturescripts.FixtureScript;
 import org.apache.isis.applib.services.jdosupport.IsisJdoSupport;
 
@@ -26,9 +28,11 @@ public class PolyAppTearDown extends FixtureScript {
 
     @Override
     protected void execute(ExecutionContext executionContext) {
-        isisJdoSupport.executeUpdate("delete from \"CaseContentLinkForParty\"");
-        isisJdoSupport.executeUpdate("delete from \"CaseContentLinkForFixedAsset\"");
+        // CaseContentLinkForParty and CaseContentLinkForFixedAsset share this table (SUPERCLASS_TABLE)
         isisJdoSupport.executeUpdate("delete from \"CaseContentLink\"");
+        isisJdoSupport.executeUpdate("delete from \"CasePrimaryContentLinkForParty\"");
+        isisJdoSupport.executeUpdate("delete from \"CasePrimaryContentLinkForFixedAsset\"");
+        isisJdoSupport.executeUpdate("delete from \"CasePrimaryContentLink\"");
         isisJdoSupport.executeUpdate("delete from \"Case\"");
 
         isisJdoSupport.executeUpdate("delete from \"CommunicationChannelOwnerLinkForParty\"");
@@ -36,12 +40,24 @@ protected void execute(ExecutionContext executionContext) {
         isisJdoSupport.executeUpdate("delete from \"CommunicationChannelOwnerLink\"");
         isisJdoSupport.executeUpdate("delete from \"CommunicationChannel\"");
 
+        isisJdoSupport.executeUpdate("delete from \"NotableLink\"");
+        isisJdoSupport.executeUpdate("delete from \"Note\"");
+        // (the dictionary of object types used by NotableLink is append-only, and cached, so is left as is)
+
         isisJdoSupport.executeUpdate("delete from \"FixedAsset\"");
         isisJdoSupport.executeUpdate("delete from \"Party\"");
+
+        // links were deleted using SQL, so any cached lookups are stale
+        linkMemo.invalidateAll();
+        linkCache.invalidateAll();
     }
 
 
     @javax.inject.Inject
     private IsisJdoSupport isisJdoSupport;
+    @javax.inject.Inject
+    private PolymorphicAssociationLinkMemo linkMemo;
+    @javax.inject.Inject
+    private PolymorphicAssociationLinkCache linkCache;
 
 }
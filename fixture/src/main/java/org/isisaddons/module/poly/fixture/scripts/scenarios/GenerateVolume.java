@@ -0,0 +1,415 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.fixture.scripts.scenarios;
+
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLink;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkCache;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkMemo;
+import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.Case;
+import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CaseContent;
+import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CaseContentLinks;
+import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CasePrimaryContentLinks;
+import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.Cases;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannel;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwner;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLinks;
+import org.isisaddons.module.poly.fixture.dom.modules.fixedasset.FixedAsset;
+import org.isisaddons.module.poly.fixture.dom.modules.fixedasset.FixedAssets;
+import org.isisaddons.module.poly.fixture.dom.modules.party.Parties;
+import org.isisaddons.module.poly.fixture.dom.modules.party.Party;
+import org.isisaddons.module.poly.fixture.scripts.modules.PolyAppTearDown;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import javax.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.apache.isis.applib.DomainObjectContainer;
+import org.apache.isis.applib.fixturescripts.FixtureScript;
+import org.apache.isis.applib.services.jdosupport.IsisJdoSupport;
+import org.apache.isis.applib.services.xactn.TransactionService;
+
+/**
+ * Generates parties, fixed assets, communication channels and cases in configurable volumes, linked with a skewed
+ * fan-out, for load testing.
+ *
+ * <p>
+ *     A percentage of the owners (of each type) are &quot;hot&quot;: each has {@link #getHotOwnerFanOut() fan-out}
+ *     times as many communication channels as the average owner, and is that much more likely to be chosen as the
+ *     content of a case.  The other owners have between none and twice {@link #getChannelsPerOwner() channelsPerOwner}
+ *     channels each.  Every case has {@link #getContentsPerCase() contentsPerCase} distinct contents, the first of
+ *     which is also its primary content.  All choices are made from a {@link Random} with the given
+ *     {@link #getSeed() seed}, so the same parameters always generate the same data.
+ * </p>
+ *
+ * <p>
+ *     Links are created in bulk (using the repositories' <tt>createLinks</tt>); every {@link #getBatchSize() batchSize}
+ *     objects the transaction is committed and the persistence manager's cache cleared, so that memory stays bounded
+ *     however many objects are generated.
+ * </p>
+ */
+public class GenerateVolume extends FixtureScript {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GenerateVolume.class);
+
+    public GenerateVolume() {
+        withDiscoverability(Discoverability.DISCOVERABLE);
+    }
+
+    //region > teardown (input)
+    private Boolean teardown;
+
+    /**
+     * Defaults to true
+     */
+    public Boolean getTeardown() {
+        return teardown;
+    }
+
+    public GenerateVolume setTeardown(final Boolean teardown) {
+        this.teardown = teardown;
+        return this;
+    }
+    //endregion
+
+    //region > seed (input)
+    private Long seed;
+
+    /**
+     * Defaults to 1
+     */
+    public Long getSeed() {
+        return seed;
+    }
+
+    public GenerateVolume setSeed(final Long seed) {
+        this.seed = seed;
+        return this;
+    }
+    //endregion
+
+    //region > parties (input)
+    private Integer parties;
+
+    /**
+     * Number of parties to create; defaults to 1000
+     */
+    public Integer getParties() {
+        return parties;
+    }
+
+    public GenerateVolume setParties(final Integer parties) {
+        this.parties = parties;
+        return this;
+    }
+    //endregion
+
+    //region > fixedAssets (input)
+    private Integer fixedAssets;
+
+    /**
+     * Number of fixed assets to create; defaults to 1000
+     */
+    public Integer getFixedAssets() {
+        return fixedAssets;
+    }
+
+    public GenerateVolume setFixedAssets(final Integer fixedAssets) {
+        this.fixedAssets = fixedAssets;
+        return this;
+    }
+    //endregion
+
+    //region > channelsPerOwner (input)
+    private Integer channelsPerOwner;
+
+    /**
+     * Average number of communication channels of each (not hot) owner; defaults to 3
+     */
+    public Integer getChannelsPerOwner() {
+        return channelsPerOwner;
+    }
+
+    public GenerateVolume setChannelsPerOwner(final Integer channelsPerOwner) {
+        this.channelsPerOwner = channelsPerOwner;
+        return this;
+    }
+    //endregion
+
+    //region > cases (input)
+    private Integer cases;
+
+    /**
+     * Number of cases to create; defaults to 1000
+     */
+    public Integer getCases() {
+        return cases;
+    }
+
+    public GenerateVolume setCases(final Integer cases) {
+        this.cases = cases;
+        return this;
+    }
+    //endregion
+
+    //region > contentsPerCase (input)
+    private Integer contentsPerCase;
+
+    /**
+     * Number of contents (parties and fixed assets) of each case; defaults to 5
+     */
+    public Integer getContentsPerCase() {
+        return contentsPerCase;
+    }
+
+    public GenerateVolume setContentsPerCase(final Integer contentsPerCase) {
+        this.contentsPerCase = contentsPerCase;
+        return this;
+    }
+    //endregion
+
+    //region > hotOwnerPercentage (input)
+    private Integer hotOwnerPercentage;
+
+    /**
+     * Percentage of the owners of each type that are hot; defaults to 1
+     */
+    public Integer getHotOwnerPercentage() {
+        return hotOwnerPercentage;
+    }
+
+    public GenerateVolume setHotOwnerPercentage(final Integer hotOwnerPercentage) {
+        this.hotOwnerPercentage = hotOwnerPercentage;
+        return this;
+    }
+    //endregion
+
+    //region > hotOwnerFanOut (input)
+    private Integer hotOwnerFanOut;
+
+    /**
+     * How many times more links a hot owner has than the average owner; defaults to 100
+     */
+    public Integer getHotOwnerFanOut() {
+        return hotOwnerFanOut;
+    }
+
+    public GenerateVolume setHotOwnerFanOut(final Integer hotOwnerFanOut) {
+        this.hotOwnerFanOut = hotOwnerFanOut;
+        return this;
+    }
+    //endregion
+
+    //region > batchSize (input)
+    private Integer batchSize;
+
+    /**
+     * Number of objects created per transaction; defaults to 10000
+     */
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public GenerateVolume setBatchSize(final Integer batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+    //endregion
+
+    //region > linksCreated (output)
+    private long linksCreated;
+
+    /**
+     * The number of links (of all families) created by this fixture (output).
+     */
+    public long getLinksCreated() {
+        return linksCreated;
+    }
+    //endregion
+
+    private Random random;
+    private int pending;
+    private final List<PolymorphicAssociationLink.Pair<CommunicationChannel, CommunicationChannelOwner>> ownerLinks = new ArrayList<>();
+    private final List<PolymorphicAssociationLink.Pair<Case, CaseContent>> contentLinks = new ArrayList<>();
+    private final List<PolymorphicAssociationLink.Pair<Case, CaseContent>> primaryContentLinks = new ArrayList<>();
+
+    @Override
+    protected void execute(final ExecutionContext ec) {
+
+        // defaults
+        defaultParam("teardown", ec, true);
+        defaultParam("seed", ec, 1L);
+        defaultParam("parties", ec, 1000);
+        defaultParam("fixedAssets", ec, 1000);
+        defaultParam("channelsPerOwner", ec, 3);
+        defaultParam("cases", ec, 1000);
+        defaultParam("contentsPerCase", ec, 5);
+        defaultParam("hotOwnerPercentage", ec, 1);
+        defaultParam("hotOwnerFanOut", ec, 100);
+        defaultParam("batchSize", ec, 10000);
+
+        if(getBatchSize() < 1) {
+            throw new IllegalArgumentException(String.format("batchSize must be positive (was %d)", getBatchSize()));
+        }
+
+        //
+        // execute
+        //
+        if(getTeardown()) {
+            ec.executeChild(this, new PolyAppTearDown());
+        }
+
+        random = new Random(getSeed());
+
+        // owners, hot ones first (of each type)
+        final List<CaseContent> hotOwners = new ArrayList<>();
+        final List<CaseContent> otherOwners = new ArrayList<>();
+        final int hotParties = hotCountOf(getParties());
+        for (int i = 0; i < getParties(); i++) {
+            final Party party = partiesRepo.create(String.format("Party %07d", i));
+            (i < hotParties ? hotOwners : otherOwners).add(party);
+            created();
+        }
+        final int hotFixedAssets = hotCountOf(getFixedAssets());
+        for (int i = 0; i < getFixedAssets(); i++) {
+            final FixedAsset fixedAsset = fixedAssetsRepo.create(String.format("Fixed asset %07d", i));
+            (i < hotFixedAssets ? hotOwners : otherOwners).add(fixedAsset);
+            created();
+        }
+
+        // communication channels
+        int channel = 0;
+        for (final CaseContent owner : hotOwners) {
+            channel = createChannels((CommunicationChannelOwner) owner, getChannelsPerOwner() * getHotOwnerFanOut(), channel);
+        }
+        for (final CaseContent owner : otherOwners) {
+            channel = createChannels((CommunicationChannelOwner) owner, random.nextInt(2 * getChannelsPerOwner() + 1), channel);
+        }
+
+        // cases, and their contents
+        final int numOwners = hotOwners.size() + otherOwners.size();
+        final int contentsPerCase = Math.min(getContentsPerCase(), numOwners);
+        final double hotShare = numOwners == 0 ? 0 :
+                hotOwners.size() * (double) getHotOwnerFanOut() /
+                        (hotOwners.size() * (double) getHotOwnerFanOut() + otherOwners.size());
+        final Set<CaseContent> contents = new HashSet<>();
+        for (int i = 0; i < getCases(); i++) {
+            final Case aCase = casesRepo.create(String.format("Case %07d", i));
+            created();
+
+            contents.clear();
+            while (contents.size() < contentsPerCase) {
+                final CaseContent content = !hotOwners.isEmpty() && (otherOwners.isEmpty() || random.nextDouble() < hotShare)
+                        ? hotOwners.get(random.nextInt(hotOwners.size()))
+                        : otherOwners.get(random.nextInt(otherOwners.size()));
+                if(!contents.add(content)) {
+                    continue;
+                }
+                if(contents.size() == 1) {
+                    primaryContentLinks.add(PolymorphicAssociationLink.Pair.of(aCase, content));
+                }
+                contentLinks.add(PolymorphicAssociationLink.Pair.of(aCase, content));
+                created();
+            }
+        }
+
+        flushAndClear();
+
+        LOG.info("Generated {} parties, {} fixed assets, {} communication channels and {} cases; {} links",
+                getParties(), getFixedAssets(), channel, getCases(), linksCreated);
+    }
+
+    private int hotCountOf(final int owners) {
+        return (int) Math.ceil(owners * getHotOwnerPercentage() / 100.0);
+    }
+
+    private int createChannels(final CommunicationChannelOwner owner, final int count, final int first) {
+        for (int i = 0; i < count; i++) {
+            final CommunicationChannel communicationChannel = container.newTransientInstance(CommunicationChannel.class);
+            communicationChannel.setDetails(String.format("0207 %07d", first + i));
+            container.persist(communicationChannel);
+            ownerLinks.add(PolymorphicAssociationLink.Pair.of(communicationChannel, owner));
+            created();
+        }
+        return first + count;
+    }
+
+    /**
+     * Counts an object (entity or link) as created, committing the batch once it is full.
+     */
+    private void created() {
+        if(++pending >= getBatchSize()) {
+            flushAndClear();
+        }
+    }
+
+    /**
+     * Creates the pending links in bulk, then commits the transaction and clears the persistence manager's cache, so
+     * that neither the transaction nor the cache grows with the volume generated.
+     */
+    private void flushAndClear() {
+        if(!ownerLinks.isEmpty()) {
+            linksCreated += communicationChannelOwnerLinks.createLinks(ownerLinks).size();
+            ownerLinks.clear();
+        }
+        if(!contentLinks.isEmpty()) {
+            linksCreated += caseContentLinks.createLinks(contentLinks).size();
+            contentLinks.clear();
+        }
+        if(!primaryContentLinks.isEmpty()) {
+            linksCreated += casePrimaryContentLinks.createLinks(primaryContentLinks).size();
+            primaryContentLinks.clear();
+        }
+        transactionService.nextTransaction();
+
+        isisJdoSupport.getJdoPersistenceManager().evictAll();
+        linkMemo.invalidateAll();
+        linkCache.invalidateAll();
+        pending = 0;
+
+        LOG.info("Generated {} links so far", linksCreated);
+    }
+
+    @Inject
+    private Parties partiesRepo;
+    @Inject
+    private FixedAssets fixedAssetsRepo;
+    @Inject
+    private Cases casesRepo;
+    @Inject
+    private CommunicationChannelOwnerLinks communicationChannelOwnerLinks;
+    @Inject
+    private CaseContentLinks caseContentLinks;
+    @Inject
+    private CasePrimaryContentLinks casePrimaryContentLinks;
+    @Inject
+    private DomainObjectContainer container;
+    @Inject
+    private TransactionService transactionService;
+    @Inject
+    private IsisJdoSupport isisJdoSupport;
+    @Inject
+    private PolymorphicAssociationLinkMemo linkMemo;
+    @Inject
+    private PolymorphicAssociationLinkCache linkCache;
+
+}
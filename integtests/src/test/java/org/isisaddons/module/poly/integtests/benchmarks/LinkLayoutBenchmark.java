@@ -0,0 +1,203 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.integtests.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import com.google.common.collect.Lists;
+
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkCache;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkMemo;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkRepository;
+import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.Case;
+import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CaseContent;
+import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CaseContentLinks;
+import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CasePrimaryContentLinks;
+import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.Cases;
+import org.isisaddons.module.poly.fixture.dom.modules.fixedasset.FixedAssets;
+import org.isisaddons.module.poly.fixture.dom.modules.party.Parties;
+import org.isisaddons.module.poly.fixture.scripts.modules.PolyAppTearDown;
+import org.isisaddons.module.poly.integtests.tests.PolyAppIntegTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.apache.isis.applib.fixturescripts.FixtureScripts;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Compares the throughput of the two table layouts for a family of links, on the in-memory database used by the
+ * integration tests.
+ *
+ * <p>
+ *     The <tt>CaseContentLink</tt> family uses <tt>SUPERCLASS_TABLE</tt> (one table, with a discriminator), whereas
+ *     the <tt>CasePrimaryContentLink</tt> family, otherwise identical, uses <tt>NEW_TABLE</tt> (a table for the root
+ *     joined to a table per subtype).  Each family is populated with the same links (every case linked to every
+ *     content, half of which are parties and half fixed assets), then the same random lookups are made of each, with
+ *     the link memo and cache cleared so that every lookup hits the database.
+ * </p>
+ *
+ * <p>
+ *     This is not run as part of the build (the name doesn't match the surefire includes); run using eg:
+ * </p>
+ * <pre>
+ * mvn -pl integtests test -Dtest=LinkLayoutBenchmark -DfailIfNoTests=false -Dpoly.benchmark.rows=1000000
+ * </pre>
+ */
+public class LinkLayoutBenchmark extends PolyAppIntegTest {
+
+    private static final int ROWS = Integer.getInteger("poly.benchmark.rows", 1000000);
+    private static final int LOOKUPS = Integer.getInteger("poly.benchmark.lookups", 500);
+
+    private static final int CONTENTS = 1000;
+    private static final int LINKS_PER_TRANSACTION = 5000;
+
+    @Inject
+    FixtureScripts fixtureScripts;
+    @Inject
+    Cases cases;
+    @Inject
+    Parties parties;
+    @Inject
+    FixedAssets fixedAssets;
+    @Inject
+    CaseContentLinks caseContentLinks;
+    @Inject
+    CasePrimaryContentLinks casePrimaryContentLinks;
+    @Inject
+    PolymorphicAssociationLinkMemo linkMemo;
+    @Inject
+    PolymorphicAssociationLinkCache linkCache;
+
+    private final List<Case> caseList = Lists.newArrayList();
+    private final List<CaseContent> contentList = Lists.newArrayList();
+
+    @Before
+    public void setUp() throws Exception {
+        fixtureScripts.runFixtureScript(new PolyAppTearDown(), null);
+        nextTransaction();
+
+        for (int i = 0; i < CONTENTS; i++) {
+            contentList.add(i % 2 == 0
+                    ? parties.create("Party " + i)
+                    : fixedAssets.create("Fixed asset " + i));
+        }
+        final int numCases = (ROWS + CONTENTS - 1) / CONTENTS;
+        for (int i = 0; i < numCases; i++) {
+            caseList.add(cases.create("Case " + i));
+        }
+        nextTransaction();
+    }
+
+    @Test
+    public void compareLayouts() throws Exception {
+
+        final double createNewTable = create(casePrimaryContentLinks);
+        final double createSuperclassTable = create(caseContentLinks);
+
+        // warm up the queries of both tables, then measure each in turn
+        findByReference(casePrimaryContentLinks, LOOKUPS / 10);
+        findByReference(caseContentLinks, LOOKUPS / 10);
+        findBySubject(casePrimaryContentLinks, LOOKUPS / 10);
+        findBySubject(caseContentLinks, LOOKUPS / 10);
+
+        final double findByReferenceNewTable = findByReference(casePrimaryContentLinks, LOOKUPS);
+        final double findByReferenceSuperclassTable = findByReference(caseContentLinks, LOOKUPS);
+        final double findBySubjectNewTable = findBySubject(casePrimaryContentLinks, LOOKUPS);
+        final double findBySubjectSuperclassTable = findBySubject(caseContentLinks, LOOKUPS);
+
+        System.out.println(String.format("%nLink layouts, %d rows (ops/s)", caseList.size() * CONTENTS));
+        System.out.println(String.format("%-20s %15s %20s", "", "NEW_TABLE", "SUPERCLASS_TABLE"));
+        print("create", createNewTable, createSuperclassTable);
+        print("findByReference", findByReferenceNewTable, findByReferenceSuperclassTable);
+        print("findBySubject", findBySubjectNewTable, findBySubjectSuperclassTable);
+    }
+
+    /**
+     * Links every case to every content, returning the number of links created per second.
+     */
+    private double create(final PolymorphicAssociationLinkRepository<Case, CaseContent, ?, ?> repository) {
+        final long start = System.nanoTime();
+        int count = 0;
+        for (final Case aCase : caseList) {
+            for (final CaseContent content : contentList) {
+                repository.createLink(aCase, content);
+                if(++count % LINKS_PER_TRANSACTION == 0) {
+                    nextTransaction();
+                }
+            }
+        }
+        nextTransaction();
+        return perSecond(count, System.nanoTime() - start);
+    }
+
+    /**
+     * Looks up the links of randomly chosen contents, returning the number of lookups per second.
+     */
+    private double findByReference(
+            final PolymorphicAssociationLinkRepository<Case, CaseContent, ?, ?> repository,
+            final int lookups) {
+        final Random random = new Random(42);
+        final long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            clearCaches();
+            final CaseContent content = contentList.get(random.nextInt(contentList.size()));
+            assertThat(repository.findByPolymorphicReference(content).size(), is(caseList.size()));
+        }
+        final long elapsed = System.nanoTime() - start;
+        nextTransaction();
+        return perSecond(lookups, elapsed);
+    }
+
+    /**
+     * Looks up the links of randomly chosen cases, returning the number of lookups per second.
+     */
+    private double findBySubject(
+            final PolymorphicAssociationLinkRepository<Case, CaseContent, ?, ?> repository,
+            final int lookups) {
+        final Random random = new Random(42);
+        final long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            clearCaches();
+            final Case aCase = caseList.get(random.nextInt(caseList.size()));
+            assertThat(repository.findBySubject(aCase).size(), is(contentList.size()));
+        }
+        final long elapsed = System.nanoTime() - start;
+        nextTransaction();
+        return perSecond(lookups, elapsed);
+    }
+
+    private void clearCaches() {
+        linkMemo.invalidateAll();
+        linkCache.invalidateAll();
+    }
+
+    private static double perSecond(final int count, final long elapsedNanos) {
+        return count / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static void print(final String operation, final double newTable, final double superclassTable) {
+        System.out.println(String.format("%-20s %15.1f %20.1f", operation, newTable, superclassTable));
+    }
+
+}
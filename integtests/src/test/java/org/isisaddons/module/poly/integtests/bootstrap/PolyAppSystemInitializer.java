@@ -25,6 +25,7 @@
 import org.apache.isis.core.integtestsupport.IsisSystemForTest;
 import org.apache.isis.objectstore.jdo.datanucleus.IsisConfigurationForJdoIntegTests;
 import org.isisaddons.module.poly.PolyModule;
+import org.isisaddons.module.poly.integtests.sql.StatementCountingDriver;
 
 import java.util.List;
 import java.util.Map;
@@ -67,7 +68,12 @@ public Map<String, String> getConfigurationProperties() {
                             return null;
                         }
                     })
-                    .with(new IsisConfigurationForJdoIntegTests())
+                    .with(new IsisConfigurationForJdoIntegTests()
+                            // so that tests can count the statements issued (see StatementBudget)
+                            .putDataNucleusProperty("javax.jdo.option.ConnectionDriverName",
+                                    StatementCountingDriver.class.getName())
+                            .putDataNucleusProperty("javax.jdo.option.ConnectionURL",
+                                    StatementCountingDriver.urlFor("jdbc:hsqldb:mem:test")))
                     .build()
                     .setUpSystem();
             IsisSystemForTest.set(isft);
@@ -0,0 +1,120 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.integtests.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.junit.rules.ExternalResource;
+
+/**
+ * Asserts the number of SQL statements issued by an interaction, as recorded by the {@link StatementCountingDriver}
+ * (which the integration tests' system is configured to use); for catching N+1 queries.
+ *
+ * <p>
+ *     Usage:
+ * </p>
+ * <pre>
+ * &#64;Rule
+ * public StatementBudget statements = new StatementBudget();
+ * ...
+ * statements.start();
+ * wrap(party).addCommunicationChannel("0207 123 4567");
+ * transactionService.flushTransaction();
+ * statements.assertAtMost(12);
+ * </pre>
+ *
+ * <p>
+ *     Flush before asserting, so that the inserts, updates and deletes of the interaction are counted too.  If the
+ *     budget is exceeded then the failure lists each statement pattern (the SQL with its literals and <tt>IN</tt>
+ *     lists replaced by placeholders) issued, most frequent first; a pattern repeated once per object is the mark of
+ *     an N+1 query.
+ * </p>
+ */
+public class StatementBudget extends ExternalResource {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    public void start() {
+        StatementCountingDriver.startRecording();
+    }
+
+    /**
+     * Stops recording, failing if more than <tt>maxStatements</tt> were issued since {@link #start() started}.
+     *
+     * @return the statements issued
+     */
+    public List<String> assertAtMost(final int maxStatements) {
+        final List<String> statements = StatementCountingDriver.stopRecording();
+        if(statements.size() > maxStatements) {
+            throw new AssertionError(String.format(
+                    "Expected at most %d SQL statement(s), but %d were issued:%n%s",
+                    maxStatements, statements.size(), report(statements)));
+        }
+        return statements;
+    }
+
+    @Override
+    protected void after() {
+        StatementCountingDriver.stopRecording();
+    }
+
+    /**
+     * One line per statement pattern, with the number of times it was issued; most frequent first.
+     */
+    static String report(final List<String> statements) {
+        final Map<String, Integer> countByPattern = new LinkedHashMap<>();
+        for (final String statement : statements) {
+            final String pattern = patternOf(statement);
+            final Integer count = countByPattern.get(pattern);
+            countByPattern.put(pattern, count == null ? 1 : count + 1);
+        }
+        final List<Map.Entry<String, Integer>> entries = new ArrayList<>(countByPattern.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, Integer>>() {
+            @Override
+            public int compare(final Map.Entry<String, Integer> e1, final Map.Entry<String, Integer> e2) {
+                return e2.getValue().compareTo(e1.getValue());
+            }
+        });
+        final StringBuilder buf = new StringBuilder();
+        for (final Map.Entry<String, Integer> entry : entries) {
+            buf.append(String.format("%5d x %s%n", entry.getValue(), entry.getKey()));
+        }
+        return buf.toString();
+    }
+
+    static String patternOf(final String sql) {
+        if(sql == null) {
+            return "(unknown)";
+        }
+        String pattern = STRING_LITERAL.matcher(sql).replaceAll("?");
+        pattern = NUMERIC_LITERAL.matcher(pattern).replaceAll("?");
+        pattern = IN_LIST.matcher(pattern).replaceAll("(?, ...)");
+        return WHITESPACE.matcher(pattern).replaceAll(" ").trim();
+    }
+
+}
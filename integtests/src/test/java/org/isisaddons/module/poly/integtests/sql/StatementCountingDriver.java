@@ -0,0 +1,212 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.integtests.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * A JDBC driver that delegates to the driver for the rest of its URL (eg <tt>jdbc:counting:hsqldb:mem:test</tt> to
+ * <tt>jdbc:hsqldb:mem:test</tt>), recording the SQL of every statement executed while {@link #startRecording()
+ * recording}.
+ *
+ * <p>
+ *     A batch is recorded as a single statement (it is a single round trip).  Recording is global rather than per
+ *     thread, as the statements may be issued on a thread other than the test's.
+ * </p>
+ *
+ * @see StatementBudget
+ */
+public class StatementCountingDriver implements Driver {
+
+    public static final String URL_PREFIX = "jdbc:counting:";
+
+    static {
+        try {
+            DriverManager.registerDriver(new StatementCountingDriver());
+        } catch (final SQLException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private static final List<String> statements = new ArrayList<>();
+    private static boolean recording;
+
+    //region > recording
+    public static synchronized void startRecording() {
+        statements.clear();
+        recording = true;
+    }
+
+    /**
+     * The SQL of the statements executed since recording started, in order.
+     */
+    public static synchronized List<String> stopRecording() {
+        recording = false;
+        final List<String> recorded = new ArrayList<>(statements);
+        statements.clear();
+        return recorded;
+    }
+
+    private static synchronized void executed(final String sql) {
+        if(recording) {
+            statements.add(sql);
+        }
+    }
+    //endregion
+
+    //region > Driver impl
+    /**
+     * The URL to use for the (delegate) URL, eg <tt>jdbc:counting:hsqldb:mem:test</tt> for
+     * <tt>jdbc:hsqldb:mem:test</tt>.
+     */
+    public static String urlFor(final String url) {
+        if(!url.startsWith("jdbc:")) {
+            throw new IllegalArgumentException(String.format("Not a JDBC URL: '%s'", url));
+        }
+        return URL_PREFIX + url.substring("jdbc:".length());
+    }
+
+    @Override
+    public Connection connect(final String url, final Properties info) throws SQLException {
+        if(!acceptsURL(url)) {
+            return null;
+        }
+        final Connection connection = DriverManager.getConnection("jdbc:" + url.substring(URL_PREFIX.length()), info);
+        return proxy(Connection.class, connection, new ConnectionHandler(connection));
+    }
+
+    @Override
+    public boolean acceptsURL(final String url) {
+        return url != null && url.startsWith(URL_PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(final String url, final Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+    //endregion
+
+    //region > proxies
+    private static class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        ConnectionHandler(final Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final Object result = invokeOn(connection, method, args);
+            if(!method.getName().startsWith("prepare") && !method.getName().equals("createStatement")) {
+                return result;
+            }
+            if(result instanceof CallableStatement) {
+                return proxy(CallableStatement.class, (Statement) result, new StatementHandler((Statement) result, (String) args[0]));
+            }
+            if(result instanceof PreparedStatement) {
+                return proxy(PreparedStatement.class, (Statement) result, new StatementHandler((Statement) result, (String) args[0]));
+            }
+            if(result instanceof Statement) {
+                return proxy(Statement.class, (Statement) result, new StatementHandler((Statement) result, null));
+            }
+            return result;
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        /**
+         * The SQL it was prepared with, if a {@link PreparedStatement}.
+         */
+        private final String preparedSql;
+        private String batchSql;
+
+        StatementHandler(final Statement statement, final String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String name = method.getName();
+            if(name.equals("addBatch") && args != null && args.length == 1 && args[0] instanceof String) {
+                batchSql = batchSql == null ? (String) args[0] : batchSql + "; " + args[0];
+            } else if(name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                executed(preparedSql != null ? preparedSql : batchSql);
+                batchSql = null;
+            } else if(name.startsWith("execute")) {
+                executed(args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql);
+            }
+            return invokeOn(statement, method, args);
+        }
+    }
+
+    private static <T> T proxy(final Class<T> type, final Object target, final InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(
+                StatementCountingDriver.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    private static Object invokeOn(final Object target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (final InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+    //endregion
+
+}
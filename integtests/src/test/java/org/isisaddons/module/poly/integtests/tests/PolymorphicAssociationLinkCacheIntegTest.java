@@ -0,0 +1,206 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.integtests.tests;
+
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLink;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkCache;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannel;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwner;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLink;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLinks;
+import org.isisaddons.module.poly.fixture.dom.modules.party.Party;
+import org.isisaddons.module.poly.fixture.scripts.scenarios.RecreateParties;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.inject.Inject;
+import com.google.common.base.Supplier;
+import org.junit.Before;
+import org.junit.Test;
+import org.apache.isis.applib.DomainObjectContainer;
+import org.apache.isis.applib.fixturescripts.FixtureScripts;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PolymorphicAssociationLinkCacheIntegTest extends PolyAppIntegTest {
+
+    @Inject
+    FixtureScripts fixtureScripts;
+    @Inject
+    PolymorphicAssociationLinkCache linkCache;
+    @Inject
+    CommunicationChannelOwnerLinks communicationChannelOwnerLinks;
+
+    Party party;
+    List<CommunicationChannelOwnerLink> links;
+    int finds;
+
+    @Before
+    public void setUp() throws Exception {
+        final RecreateParties fs = new RecreateParties();
+        fixtureScripts.runFixtureScript(fs, null);
+        party = fs.getParties().get(0);
+        wrap(party).addCommunicationChannel("0207 123 4567");
+        nextTransaction();
+
+        links = communicationChannelOwnerLinks.findByOwner(party);
+        assertThat(links.size(), is(1));
+        linkCache.invalidateAll();
+        finds = 0;
+    }
+
+    List<CommunicationChannelOwnerLink> allMatches(final Supplier<List<CommunicationChannelOwnerLink>> finder) {
+        return linkCache.allMatches(CommunicationChannelOwnerLink.class, "findByOwner", null, party, finder);
+    }
+
+    public static class AllMatches extends PolymorphicAssociationLinkCacheIntegTest {
+
+        @Test
+        public void storedOnMiss() throws Exception {
+
+            final Supplier<List<CommunicationChannelOwnerLink>> finder =
+                    new Supplier<List<CommunicationChannelOwnerLink>>() {
+                        @Override
+                        public List<CommunicationChannelOwnerLink> get() {
+                            finds++;
+                            return links;
+                        }
+                    };
+
+            // when
+            allMatches(finder);
+            final List<CommunicationChannelOwnerLink> cached = allMatches(finder);
+
+            // then
+            assertThat(finds, is(1));
+            assertThat(cached, is(links));
+        }
+
+        @Test
+        public void notStoredIfInvalidatedWhileFinding() throws Exception {
+
+            // eg by a concurrent transaction creating a link for the party, committing while the query is running
+            final Supplier<List<CommunicationChannelOwnerLink>> finder =
+                    new Supplier<List<CommunicationChannelOwnerLink>>() {
+                        @Override
+                        public List<CommunicationChannelOwnerLink> get() {
+                            finds++;
+                            if(finds == 1) {
+                                linkCache.invalidate(links.get(0));
+                            }
+                            return links;
+                        }
+                    };
+
+            // when
+            allMatches(finder);
+            allMatches(finder);
+            allMatches(finder);
+
+            // then
+            assertThat(finds, is(2));
+        }
+
+        @Test
+        public void notStoredIfAllInvalidatedWhileFinding() throws Exception {
+
+            final Supplier<List<CommunicationChannelOwnerLink>> finder =
+                    new Supplier<List<CommunicationChannelOwnerLink>>() {
+                        @Override
+                        public List<CommunicationChannelOwnerLink> get() {
+                            finds++;
+                            if(finds == 1) {
+                                linkCache.invalidateAll();
+                            }
+                            return links;
+                        }
+                    };
+
+            // when
+            allMatches(finder);
+            allMatches(finder);
+            allMatches(finder);
+
+            // then
+            assertThat(finds, is(2));
+        }
+    }
+
+    public static class Invalidate extends PolymorphicAssociationLinkCacheIntegTest {
+
+        // more than enough for a chain of JDO synchronizations (were there one per call) to overflow the stack
+        private static final int INVALIDATIONS = 100000;
+
+        @Test
+        public void manyInOneTransaction() throws Exception {
+
+            // given (cached, rather than memoized)
+            nextTransaction();
+            assertThat(communicationChannelOwnerLinks.findByOwner(party).size(), is(1));
+
+            // when
+            for (int i = 0; i < INVALIDATIONS; i++) {
+                linkCache.invalidate(links.get(0));
+            }
+            nextTransaction();
+
+            // then
+            assertThat(linkCache.getStatistics().getSize(), is(0));
+        }
+    }
+
+    public static class CreateLinks extends PolymorphicAssociationLinkCacheIntegTest {
+
+        private static final int BATCH_SIZE = 2000;
+
+        @Inject
+        DomainObjectContainer container;
+
+        @Test
+        public void largeBatch() throws Exception {
+
+            // given (cached, rather than memoized)
+            nextTransaction();
+            assertThat(communicationChannelOwnerLinks.findByOwner(party).size(), is(1));
+            assertThat(linkCache.getStatistics().getSize(), is(1));
+
+            final List<PolymorphicAssociationLink.Pair<CommunicationChannel, CommunicationChannelOwner>> channelsAndOwner =
+                    new ArrayList<>();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                final CommunicationChannel communicationChannel = container.newTransientInstance(CommunicationChannel.class);
+                communicationChannel.setDetails(String.format("0207 %07d", i));
+                container.persist(communicationChannel);
+                channelsAndOwner.add(PolymorphicAssociationLink.Pair.<CommunicationChannel, CommunicationChannelOwner>of(
+                        communicationChannel, party));
+            }
+
+            // when
+            communicationChannelOwnerLinks.createLinks(channelsAndOwner);
+
+            // then
+            assertThat(linkCache.getStatistics().getSize(), is(0));
+
+            nextTransaction();
+
+            assertThat(communicationChannelOwnerLinks.findByOwner(party).size(), is(BATCH_SIZE + 1));
+        }
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.integtests.tests;
+
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkCache;
+import org.isisaddons.module.poly.dom.PolymorphicObjectTypeMigration;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwner;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLink;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLinks;
+import org.isisaddons.module.poly.fixture.dom.modules.party.Party;
+import org.isisaddons.module.poly.fixture.scripts.scenarios.RecreateParties;
+
+import java.util.List;
+import javax.inject.Inject;
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.apache.isis.applib.DomainObjectContainer;
+import org.apache.isis.applib.fixturescripts.FixtureScripts;
+import org.apache.isis.applib.services.bookmark.BookmarkService2;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * The links of a party are stored with the former object type <tt>LEGAL_ENTITY</tt>, as if the party's object type
+ * (<tt>PARTY</tt>) had since been renamed, and the rename then configured.
+ */
+public class PolymorphicObjectTypeMigrationIntegTest extends PolyAppIntegTest {
+
+    static final String FORMER_OBJECT_TYPE = "LEGAL_ENTITY";
+
+    @Inject
+    FixtureScripts fixtureScripts;
+    @Inject
+    PolymorphicObjectTypeMigration objectTypeMigration;
+    @Inject
+    PolymorphicAssociationLinkCache linkCache;
+    @Inject
+    CommunicationChannelOwnerLinks communicationChannelOwnerLinks;
+    @Inject
+    BookmarkService2 bookmarkService;
+    @Inject
+    DomainObjectContainer container;
+
+    Party party;
+    String objectType;
+
+    @Before
+    public void setUp() throws Exception {
+        final RecreateParties fs = new RecreateParties();
+        fixtureScripts.runFixtureScript(fs, null);
+        party = fs.getParties().get(0);
+        wrap(party).addCommunicationChannel("0207 123 4567");
+        wrap(party).addCommunicationChannel("0207 123 4568");
+        wrap(party).addCommunicationChannel("0207 123 4569");
+        nextTransaction();
+
+        objectType = bookmarkService.bookmarkFor(party).getObjectType();
+        for (final CommunicationChannelOwnerLink link : communicationChannelOwnerLinks.findByOwner(party)) {
+            link.setOwnerObjectType(FORMER_OBJECT_TYPE);
+        }
+        nextTransaction();
+        linkCache.invalidateAll();
+    }
+
+    @After
+    public void tearDownMigration() throws Exception {
+        // migrates any links left, so that the rename is forgotten
+        nextTransaction();
+        objectTypeMigration.migrate();
+        objectTypeMigration.init(ImmutableMap.of(
+                PolymorphicObjectTypeMigration.KEY_CHUNK_SIZE,
+                String.valueOf(PolymorphicObjectTypeMigration.DEFAULT_CHUNK_SIZE),
+                PolymorphicObjectTypeMigration.KEY_PAUSE_MILLIS, "0"));
+    }
+
+    void configureRename(final int chunkSize, final long pauseMillis) {
+        objectTypeMigration.init(ImmutableMap.of(
+                PolymorphicObjectTypeMigration.KEY_RENAMES, FORMER_OBJECT_TYPE + ":" + objectType,
+                PolymorphicObjectTypeMigration.KEY_CHUNK_SIZE, String.valueOf(chunkSize),
+                PolymorphicObjectTypeMigration.KEY_PAUSE_MILLIS, String.valueOf(pauseMillis)));
+    }
+
+    int linksStoredWith(final String storedObjectType) {
+        int count = 0;
+        for (final CommunicationChannelOwnerLink link : communicationChannelOwnerLinks.findByOwner(party)) {
+            if(link.getOwnerObjectType().equals(storedObjectType)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public static class Init extends PolymorphicObjectTypeMigrationIntegTest {
+
+        @Rule
+        public ExpectedException expectedException = ExpectedException.none();
+
+        @Test
+        public void renameToItself() throws Exception {
+
+            // then
+            expectedException.expect(IllegalArgumentException.class);
+            expectedException.expectMessage("renames an object type to itself");
+
+            // when
+            objectTypeMigration.init(ImmutableMap.of(
+                    PolymorphicObjectTypeMigration.KEY_RENAMES, objectType + ":" + objectType));
+        }
+    }
+
+    public static class Renamed extends PolymorphicObjectTypeMigrationIntegTest {
+
+        @Test
+        public void findsEitherObjectType() throws Exception {
+
+            // given
+            configureRename(PolymorphicObjectTypeMigration.DEFAULT_CHUNK_SIZE, 0);
+
+            // when
+            final List<CommunicationChannelOwnerLink> links = communicationChannelOwnerLinks.findByOwner(party);
+
+            // then
+            assertThat(links.size(), is(3));
+            for (final CommunicationChannelOwnerLink link : links) {
+                assertThat(link.getOwnerObjectType(), is(FORMER_OBJECT_TYPE));
+                assertThat(link.getPolymorphicReference(), is((CommunicationChannelOwner) party));
+            }
+            assertThat(communicationChannelOwnerLinks.communicationChannelsOf(party).size(), is(3));
+            assertThat(objectTypeMigration.objectTypesFor(objectType).size(), is(2));
+        }
+
+        @Test
+        public void invalidatesCacheByCurrentObjectType() throws Exception {
+
+            // given (cached, by the current object type)
+            configureRename(PolymorphicObjectTypeMigration.DEFAULT_CHUNK_SIZE, 0);
+            final List<CommunicationChannelOwnerLink> links = communicationChannelOwnerLinks.findByOwner(party);
+            assertThat(links.size(), is(3));
+            assertThat(linkCache.getStatistics().getSize(), is(1));
+
+            // when (a link stored with the former object type)
+            container.remove(links.get(0));
+            container.flush();
+
+            // then
+            assertThat(linkCache.getStatistics().getSize(), is(0));
+            assertThat(communicationChannelOwnerLinks.findByOwner(party).size(), is(2));
+        }
+    }
+
+    public static class Migrate extends PolymorphicObjectTypeMigrationIntegTest {
+
+        @Test
+        public void migratesAll() throws Exception {
+
+            // given
+            configureRename(2, 0);
+
+            // when
+            final long migrated = objectTypeMigration.migrate();
+
+            // then
+            assertThat(migrated, is(3L));
+            assertThat(objectTypeMigration.objectTypesFor(objectType).size(), is(1));
+
+            nextTransaction();
+            assertThat(linksStoredWith(objectType), is(3));
+        }
+
+        @Test
+        public void resumesWhenInterrupted() throws Exception {
+
+            // given
+            configureRename(1, 1);
+
+            // when (interrupted as it pauses after the first chunk)
+            Thread.currentThread().interrupt();
+            try {
+                objectTypeMigration.migrate();
+                fail();
+            } catch(final IllegalStateException ex) {
+                Thread.interrupted();
+            }
+
+            // then (the first chunk is committed, and the links are still found by either object type)
+            nextTransaction();
+            assertThat(objectTypeMigration.objectTypesFor(objectType).size(), is(2));
+            assertThat(linksStoredWith(objectType), is(1));
+            assertThat(linksStoredWith(FORMER_OBJECT_TYPE), is(2));
+
+            // and when resumed
+            configureRename(1, 0);
+            nextTransaction();
+            final long migrated = objectTypeMigration.migrate();
+
+            // then
+            assertThat(migrated, is(2L));
+            nextTransaction();
+            assertThat(linksStoredWith(objectType), is(3));
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.integtests.tests;
+
+import org.isisaddons.module.poly.dom.PolymorphicReferenceResolver;
+import org.isisaddons.module.poly.fixture.dom.modules.party.Party;
+import org.isisaddons.module.poly.fixture.scripts.scenarios.RecreateParties;
+import org.isisaddons.module.poly.integtests.sql.StatementBudget;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.inject.Inject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.apache.isis.applib.DomainObjectContainer;
+import org.apache.isis.applib.fixturescripts.FixtureScripts;
+import org.apache.isis.applib.services.bookmark.Bookmark;
+import org.apache.isis.applib.services.bookmark.BookmarkService2;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class PolymorphicReferenceResolverIntegTest extends PolyAppIntegTest {
+
+    @Rule
+    public StatementBudget statements = new StatementBudget();
+
+    @Inject
+    FixtureScripts fixtureScripts;
+    @Inject
+    PolymorphicReferenceResolver polymorphicReferenceResolver;
+    @Inject
+    BookmarkService2 bookmarkService;
+    @Inject
+    DomainObjectContainer container;
+
+    RecreateParties fs;
+    List<Bookmark> bookmarks;
+
+    @Before
+    public void setUp() throws Exception {
+        fs = new RecreateParties();
+        fixtureScripts.runFixtureScript(fs, null);
+        nextTransaction();
+
+        bookmarks = new ArrayList<>();
+        for (final Party party : fs.getParties()) {
+            bookmarks.add(bookmarkService.bookmarkFor(party));
+        }
+    }
+
+    public static class LookupAll extends PolymorphicReferenceResolverIntegTest {
+
+        @Test
+        public void inBulk() throws Exception {
+
+            // given
+            nextTransaction();
+
+            // when
+            statements.start();
+            final List<Object> parties = polymorphicReferenceResolver.lookupAll(bookmarks);
+
+            // then
+            statements.assertAtMost(1);
+            assertThat(parties.size(), is(bookmarks.size()));
+            for (int i = 0; i < bookmarks.size(); i++) {
+                assertThat(bookmarkService.bookmarkFor(parties.get(i)), is(bookmarks.get(i)));
+            }
+        }
+
+        @Test
+        public void whenNoLongerExists() throws Exception {
+
+            // given
+            container.removeIfNotAlready(fs.getParties().get(0));
+            nextTransaction();
+
+            // when
+            final List<Object> parties = polymorphicReferenceResolver.lookupAll(bookmarks);
+
+            // then
+            assertThat(parties.size(), is(bookmarks.size()));
+            assertThat(parties.get(0), is(nullValue()));
+            assertThat(bookmarkService.bookmarkFor(parties.get(1)), is(bookmarks.get(1)));
+            assertThat(bookmarkService.bookmarkFor(parties.get(2)), is(bookmarks.get(2)));
+        }
+    }
+
+}
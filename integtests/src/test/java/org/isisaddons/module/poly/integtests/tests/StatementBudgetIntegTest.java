@@ -0,0 +1,220 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.integtests.tests;
+
+import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.Case;
+import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CaseContentContributions;
+import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CasePrimaryContentContributions;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannel;
+import org.isisaddons.module.poly.fixture.dom.modules.fixedasset.FixedAsset;
+import org.isisaddons.module.poly.fixture.dom.modules.fixedasset.FixedAssets;
+import org.isisaddons.module.poly.fixture.dom.modules.party.Parties;
+import org.isisaddons.module.poly.fixture.dom.modules.party.Party;
+import org.isisaddons.module.poly.fixture.scripts.scenarios.RecreateAll;
+import org.isisaddons.module.poly.integtests.sql.StatementBudget;
+
+import java.util.List;
+import javax.inject.Inject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.apache.isis.applib.fixturescripts.FixtureScripts;
+import org.apache.isis.applib.services.xactn.TransactionService;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Budgets for the number of SQL statements issued by the demo app's interactions, to catch N+1 queries (eg a finder
+ * called once per link from a <tt>disable...</tt> or <tt>choices...</tt> method).
+ *
+ * <p>
+ *     The interactions are run against the {@link RecreateAll} fixture, in which the parties own 1, 2 and 3
+ *     communication channels and the first case has 4 contents, so that a statement issued once per channel or per
+ *     content shows up as exceeding the budget.  Each budget covers the whole interaction (hiding, disabling,
+ *     choices, validation and the action itself, with any changes flushed) and is the number of statements
+ *     actually observed, so that any extra statement fails the test; lower a budget whenever a change reduces it.
+ * </p>
+ */
+public class StatementBudgetIntegTest extends PolyAppIntegTest {
+
+    @Rule
+    public StatementBudget statements = new StatementBudget();
+
+    @Inject
+    FixtureScripts fixtureScripts;
+    @Inject
+    TransactionService transactionService;
+
+    RecreateAll fs;
+
+    @Before
+    public void setUp() throws Exception {
+        fs = new RecreateAll();
+        fixtureScripts.runFixtureScript(fs, null);
+        nextTransaction();
+    }
+
+    void assertStatementsAtMost(final int maxStatements) {
+        transactionService.flushTransaction();
+        statements.assertAtMost(maxStatements);
+    }
+
+    public static class PartyInteractions extends StatementBudgetIntegTest {
+
+        private Party party;
+
+        @Before
+        public void setUp() throws Exception {
+            super.setUp();
+            party = fs.getParties().get(2);
+        }
+
+        @Test
+        public void communicationChannels() throws Exception {
+
+            statements.start();
+            // derived collection, so not wrapped (the wrapper rejects its two imperative facets)
+            assertThat(party.getCommunicationChannels().size(), is(3));
+            assertStatementsAtMost(1);
+        }
+
+        @Test
+        public void addCommunicationChannel() throws Exception {
+
+            statements.start();
+            wrap(party).addCommunicationChannel("0207 123 4567");
+            assertStatementsAtMost(4);
+        }
+
+        @Test
+        public void removeCommunicationChannel() throws Exception {
+
+            // given
+            final CommunicationChannel communicationChannel = party.getCommunicationChannels().get(0);
+            nextTransaction();
+
+            statements.start();
+            wrap(party).removeCommunicationChannel(communicationChannel);
+            assertStatementsAtMost(8);
+        }
+    }
+
+    public static class FixedAssetInteractions extends StatementBudgetIntegTest {
+
+        private FixedAsset fixedAsset;
+
+        @Before
+        public void setUp() throws Exception {
+            super.setUp();
+            fixedAsset = fs.getFixedAssets().get(0);
+        }
+
+        @Test
+        public void deleteCommunicationChannel() throws Exception {
+
+            statements.start();
+            wrap(fixedAsset).deleteCommunicationChannel();
+            assertStatementsAtMost(7);
+        }
+
+        @Test
+        public void createCommunicationChannel() throws Exception {
+
+            // given
+            wrap(fixedAsset).deleteCommunicationChannel();
+            nextTransaction();
+
+            statements.start();
+            wrap(fixedAsset).createCommunicationChannel("0207 123 4567");
+            assertStatementsAtMost(4);
+        }
+    }
+
+    public static class ListInteractions extends StatementBudgetIntegTest {
+
+        @Inject
+        Parties parties;
+        @Inject
+        FixedAssets fixedAssets;
+
+        @Test
+        public void communicationChannelsOfAll() throws Exception {
+
+            // given (as the owners of a table, each menu action priming the loader with those it returns)
+            final List<Party> allParties = wrap(parties).listAll();
+            final List<FixedAsset> allFixedAssets = wrap(fixedAssets).listAll();
+
+            statements.start();
+            // when (the rows rendered, in the same transaction)
+            int communicationChannels = 0;
+            for (final Party party : allParties) {
+                communicationChannels += party.getCommunicationChannels().size();
+            }
+            for (final FixedAsset fixedAsset : allFixedAssets) {
+                communicationChannels += fixedAsset.getCommunicationChannel() != null ? 1 : 0;
+            }
+
+            // then (one query per owner type, however many owners)
+            assertThat(communicationChannels, is(9));
+            assertStatementsAtMost(2);
+        }
+    }
+
+    public static class CaseInteractions extends StatementBudgetIntegTest {
+
+        @Inject
+        CaseContentContributions caseContentContributions;
+        @Inject
+        CasePrimaryContentContributions casePrimaryContentContributions;
+
+        private Case aCase;
+
+        @Before
+        public void setUp() throws Exception {
+            super.setUp();
+            aCase = fs.getCases().get(0);
+        }
+
+        @Test
+        public void contents() throws Exception {
+
+            statements.start();
+            assertThat(wrap(caseContentContributions).contents(aCase).size(), is(4));
+            assertStatementsAtMost(4);
+        }
+
+        @Test
+        public void makePrimary() throws Exception {
+
+            statements.start();
+            wrap(casePrimaryContentContributions).makePrimary(aCase, fs.getParties().get(0));
+            assertStatementsAtMost(10);
+        }
+
+        @Test
+        public void removeFromCase() throws Exception {
+
+            statements.start();
+            wrap(caseContentContributions).removeFromCase(aCase, fs.getParties().get(0));
+            assertStatementsAtMost(10);
+        }
+    }
+
+}
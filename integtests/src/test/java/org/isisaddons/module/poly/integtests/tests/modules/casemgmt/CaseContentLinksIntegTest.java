@@ -0,0 +1,115 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.integtests.tests.modules.casemgmt;
+
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkMetrics;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkMetricsDefault;
+import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.Case;
+import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CaseContentLink;
+import org.isisaddons.module.poly.fixture.dom.modules.casemgmt.CaseContentLinks;
+import org.isisaddons.module.poly.fixture.dom.modules.party.Party;
+import org.isisaddons.module.poly.fixture.scripts.scenarios.RecreateAll;
+import org.isisaddons.module.poly.integtests.tests.PolyAppIntegTest;
+
+import javax.inject.Inject;
+import org.junit.Before;
+import org.junit.Test;
+import org.apache.isis.applib.fixturescripts.FixtureScripts;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class CaseContentLinksIntegTest extends PolyAppIntegTest {
+
+    @Inject
+    FixtureScripts fixtureScripts;
+    @Inject
+    CaseContentLinks caseContentLinks;
+    @Inject
+    PolymorphicAssociationLinkMetricsDefault linkMetrics;
+
+    RecreateAll fs;
+
+    @Before
+    public void setUp() throws Exception {
+        fs = new RecreateAll();
+        fixtureScripts.runFixtureScript(fs, null);
+        nextTransaction();
+    }
+
+    public static class CreateOrGet extends CaseContentLinksIntegTest {
+
+        @Test
+        public void whenNew() throws Exception {
+
+            // given
+            final Case aCase = fs.getCases().get(1);
+            final Party party = fs.getParties().get(0);
+            assertThat(caseContentLinks.findBySubjectAndPolymorphicReference(aCase, party), is(nullValue()));
+            linkMetrics.reset();
+
+            // when
+            final CaseContentLink link = caseContentLinks.createOrGet(aCase, party);
+            final CaseContentLink again = caseContentLinks.createOrGet(aCase, party);
+
+            // then
+            assertThat(link, is(notNullValue()));
+            assertThat(again, is(link));
+            assertThat(timerCount(PolymorphicAssociationLinkMetrics.Operation.CREATE_OR_GET), is(2L));
+            assertThat(timerCount(PolymorphicAssociationLinkMetrics.Operation.FLUSH), is(2L));
+
+            nextTransaction();
+
+            assertThat(caseContentLinks.countBySubject(aCase), is(3L));
+            assertThat(caseContentLinks.findBySubjectAndPolymorphicReference(aCase, party), is(notNullValue()));
+        }
+
+        @Test
+        public void whenExists() throws Exception {
+
+            // given
+            final Case aCase = fs.getCases().get(0);
+            final Party party = fs.getParties().get(0);
+            final CaseContentLink existing = caseContentLinks.findBySubjectAndPolymorphicReference(aCase, party);
+            assertThat(existing, is(notNullValue()));
+
+            // when
+            final CaseContentLink link = caseContentLinks.createOrGet(aCase, party);
+
+            // then
+            assertThat(link, is(existing));
+
+            nextTransaction();
+
+            assertThat(caseContentLinks.countBySubject(aCase), is(4L));
+        }
+
+        private long timerCount(final PolymorphicAssociationLinkMetrics.Operation operation) {
+            for (final PolymorphicAssociationLinkMetricsDefault.Family family : linkMetrics.getFamilies()) {
+                if(family.getName().equals(CaseContentLink.class.getSimpleName())) {
+                    return family.getTimer(operation).getCount();
+                }
+            }
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.integtests.tests.modules.comms;
+
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannel;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwner;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLink;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLinkLoader;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLinks;
+import org.isisaddons.module.poly.fixture.dom.modules.fixedasset.FixedAsset;
+import org.isisaddons.module.poly.fixture.dom.modules.party.CommunicationChannelOwnerLinkForParty;
+import org.isisaddons.module.poly.fixture.dom.modules.party.Parties;
+import org.isisaddons.module.poly.fixture.dom.modules.party.Party;
+import org.isisaddons.module.poly.fixture.scripts.scenarios.RecreateAll;
+import org.isisaddons.module.poly.fixture.scripts.scenarios.RecreateParties;
+import org.isisaddons.module.poly.integtests.tests.PolyAppIntegTest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Inject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.apache.isis.applib.DomainObjectContainer;
+import org.apache.isis.applib.NonRecoverableException;
+import org.apache.isis.applib.fixturescripts.FixtureScripts;
+import org.apache.isis.applib.services.bookmark.BookmarkService2;
+import org.apache.isis.applib.services.xactn.TransactionService;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link CommunicationChannelOwnerLinks} uses {@link org.isisaddons.module.poly.dom.PolymorphicAssociationLink.Factory.PersistStrategy#DEFERRED}.
+ */
+public class CommunicationChannelOwnerLinksIntegTest extends PolyAppIntegTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Inject
+    FixtureScripts fixtureScripts;
+    @Inject
+    DomainObjectContainer container;
+    @Inject
+    TransactionService transactionService;
+    @Inject
+    BookmarkService2 bookmarkService;
+    @Inject
+    Parties parties;
+    @Inject
+    CommunicationChannelOwnerLinks communicationChannelOwnerLinks;
+
+    @Before
+    public void setUp() throws Exception {
+        fixtureScripts.runFixtureScript(new RecreateParties(), null);
+        nextTransaction();
+    }
+
+    CommunicationChannel newCommunicationChannel() {
+        final CommunicationChannel communicationChannel = container.newTransientInstance(CommunicationChannel.class);
+        communicationChannel.setDetails("0207 123 4567");
+        container.persist(communicationChannel);
+        return communicationChannel;
+    }
+
+    public static class CreateLink extends CommunicationChannelOwnerLinksIntegTest {
+
+        @Test
+        public void whenOwnerNotYetInserted() throws Exception {
+
+            // given (persisted, but not flushed)
+            final Party party = parties.create("Acme");
+
+            // when
+            final CommunicationChannelOwnerLink link =
+                    communicationChannelOwnerLinks.createLink(newCommunicationChannel(), party);
+
+            // then (filled in only once stored)
+            assertThat(link.getOwnerObjectType(), is(nullValue()));
+            assertThat(link.getPolymorphicReference(), is((CommunicationChannelOwner) party));
+
+            nextTransaction();
+
+            final List<CommunicationChannelOwnerLink> links = communicationChannelOwnerLinks.findByOwner(party);
+            assertThat(links.size(), is(1));
+            assertThat(links.get(0).getOwnerObjectType(), is(bookmarkService.bookmarkFor(party).getObjectType()));
+            assertThat(links.get(0).getOwnerIdentifier(), is(bookmarkService.bookmarkFor(party).getIdentifier()));
+        }
+
+        @Test
+        public void whenOwnerNeverPersisted() throws Exception {
+
+            // given
+            final Party party = container.newTransientInstance(Party.class);
+            party.setName("Acme");
+            communicationChannelOwnerLinks.createLink(newCommunicationChannel(), party);
+
+            // then (as the link is stored)
+            expectedException.expect(NonRecoverableException.class);
+            expectedException.expectMessage("Link's polymorphic reference Acme is not persistent");
+
+            // when
+            transactionService.flushTransaction();
+        }
+    }
+
+    public static class Loader extends CommunicationChannelOwnerLinksIntegTest {
+
+        @Inject
+        CommunicationChannelOwnerLinkLoader communicationChannelOwnerLinkLoader;
+
+        @Test
+        public void resetByNewTransaction() throws Exception {
+
+            // given
+            final Party party = parties.listAll().get(0);
+            wrap(party).addCommunicationChannel("0207 123 4567");
+            nextTransaction();
+
+            final List<CommunicationChannelOwnerLink> links = communicationChannelOwnerLinkLoader.load(party);
+            assertThat(links.size(), is(1));
+
+            // when (removed without invalidating the loader)
+            container.remove(links.get(0));
+            nextTransaction();
+
+            // then
+            assertThat(communicationChannelOwnerLinkLoader.load(party).size(), is(0));
+        }
+    }
+
+    public static class FindByOwners extends CommunicationChannelOwnerLinksIntegTest {
+
+        RecreateAll fs;
+
+        @Before
+        @Override
+        public void setUp() throws Exception {
+            // parties owning 1, 2 and 3 communication channels, and fixed assets owning 1 each
+            fs = new RecreateAll();
+            fixtureScripts.runFixtureScript(fs, null);
+            nextTransaction();
+        }
+
+        @Test
+        public void partiesAndFixedAssets() throws Exception {
+
+            // given
+            final Party withNone = parties.create("Acme");
+            nextTransaction();
+
+            final List<Party> allParties = fs.getParties();
+            final List<FixedAsset> fixedAssets = fs.getFixedAssets();
+            final List<CommunicationChannelOwner> owners = Arrays.<CommunicationChannelOwner>asList(
+                    allParties.get(2), fixedAssets.get(0), withNone, allParties.get(0), fixedAssets.get(1));
+
+            // when
+            final Map<CommunicationChannelOwner, List<CommunicationChannelOwnerLink>> linksByOwner =
+                    communicationChannelOwnerLinks.findByOwners(owners);
+
+            // then (every owner a key, with just its own links, whichever its type)
+            assertThat(linksByOwner.size(), is(5));
+            assertThat(linksByOwner.get(allParties.get(2)).size(), is(3));
+            assertThat(linksByOwner.get(fixedAssets.get(0)).size(), is(1));
+            assertThat(linksByOwner.get(withNone).size(), is(0));
+            assertThat(linksByOwner.get(allParties.get(0)).size(), is(1));
+            assertThat(linksByOwner.get(fixedAssets.get(1)).size(), is(1));
+            for (final CommunicationChannelOwner owner : owners) {
+                for (final CommunicationChannelOwnerLink link : linksByOwner.get(owner)) {
+                    assertThat(link.getPolymorphicReference(), is(owner));
+                }
+            }
+        }
+    }
+
+    public static class SetPolymorphicReference extends CommunicationChannelOwnerLinksIntegTest {
+
+        @Test
+        public void whenNotPersistent() throws Exception {
+
+            // given (not deferred, the link not being created by the factory)
+            final Party party = container.newTransientInstance(Party.class);
+            final CommunicationChannelOwnerLink link =
+                    container.newTransientInstance(CommunicationChannelOwnerLinkForParty.class);
+
+            // then
+            expectedException.expect(NonRecoverableException.class);
+            expectedException.expectMessage("is not persistent");
+
+            // when
+            link.setPolymorphicReference(party);
+        }
+    }
+
+}
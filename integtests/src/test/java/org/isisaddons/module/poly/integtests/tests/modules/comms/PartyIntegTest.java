@@ -18,8 +18,15 @@
  */
 package org.isisaddons.module.poly.integtests.tests.modules.comms;
 
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkMetrics;
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkMetricsDefault;
 import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannel;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwner;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLink;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLinkLoader;
+import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannelOwnerLinks;
 import org.isisaddons.module.poly.fixture.dom.modules.comms.CommunicationChannels;
+import org.isisaddons.module.poly.fixture.dom.modules.party.CommunicationChannelOwnerLinkForParty;
 import org.isisaddons.module.poly.fixture.dom.modules.party.Party;
 import org.isisaddons.module.poly.fixture.scripts.scenarios.RecreateParties;
 import org.isisaddons.module.poly.integtests.tests.PolyAppIntegTest;
@@ -30,10 +37,13 @@
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.apache.isis.applib.DomainObjectContainer;
 import org.apache.isis.applib.fixturescripts.FixtureScripts;
 import org.apache.isis.applib.services.wrapper.InvalidException;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 public class PartyIntegTest extends PolyAppIntegTest {
@@ -45,6 +55,17 @@ public class PartyIntegTest extends PolyAppIntegTest {
     FixtureScripts fixtureScripts;
     @Inject
     CommunicationChannels communicationChannelsMenu;
+    @Inject
+    PolymorphicAssociationLinkMetricsDefault linkMetrics;
+
+    long timerCount(final PolymorphicAssociationLinkMetrics.Operation operation) {
+        for (final PolymorphicAssociationLinkMetricsDefault.Family family : linkMetrics.getFamilies()) {
+            if(family.getName().equals(CommunicationChannelOwnerLink.class.getSimpleName())) {
+                return family.getTimer(operation).getCount();
+            }
+        }
+        return 0;
+    }
 
     public static class AddCommunicationChannel extends PartyIntegTest {
 
@@ -144,6 +165,169 @@ public void whenExists() throws Exception {
             communicationChannels = party.getCommunicationChannels();
             assertThat(communicationChannels.size(), is(1));
         }
+
+        @Test
+        public void choices() throws Exception {
+
+            // when
+            final List<CommunicationChannel> choices = party.choices0RemoveCommunicationChannel();
+
+            // then
+            assertThat(choices.size(), is(2));
+            assertThat(choices.containsAll(party.getCommunicationChannels()), is(true));
+        }
    }
 
+    public static class MergeInto extends PartyIntegTest {
+
+        @Inject
+        CommunicationChannelOwnerLinks communicationChannelOwnerLinks;
+
+        private RecreateParties fs;
+        private Party party;
+        private Party survivor;
+
+        @Before
+        public void setUp() throws Exception {
+
+            // given
+            fs = new RecreateParties();
+            fixtureScripts.runFixtureScript(fs, null);
+            nextTransaction();
+
+            party = fs.getParties().get(0);
+            survivor = fs.getParties().get(1);
+
+            wrap(party).addCommunicationChannel("0207 123 4567");
+            wrap(survivor).addCommunicationChannel("0207 765 4321");
+            nextTransaction();
+        }
+
+        @Test
+        public void happyCase() throws Exception {
+
+            // given
+            final CommunicationChannel communicationChannel = party.getCommunicationChannels().get(0);
+
+            // when
+            wrap(party).mergeInto(survivor);
+            nextTransaction();
+
+            // then
+            assertThat(survivor.getCommunicationChannels().size(), is(2));
+
+            final CommunicationChannelOwnerLink ownerLink =
+                    communicationChannelOwnerLinks.findByCommunicationChannel(communicationChannel);
+            assertThat(ownerLink.getPolymorphicReference(), is((CommunicationChannelOwner) survivor));
+            assertThat(((CommunicationChannelOwnerLinkForParty) ownerLink).getParty(), is(survivor));
+        }
+
+        @Test
+        public void invalidatesLoader() throws Exception {
+
+            // given
+            assertThat(survivor.getCommunicationChannels().size(), is(1));
+
+            // when
+            wrap(party).mergeInto(survivor);
+
+            // then (in the same transaction)
+            assertThat(survivor.getCommunicationChannels().size(), is(2));
+        }
+
+        @Test
+        public void recordsTime() throws Exception {
+
+            // given
+            linkMetrics.reset();
+
+            // when
+            wrap(party).mergeInto(survivor);
+
+            // then
+            assertThat(timerCount(PolymorphicAssociationLinkMetrics.Operation.REPARENT), is(1L));
+        }
+
+        @Test
+        public void intoItself() throws Exception {
+
+            // then expect
+            expectedException.expect(InvalidException.class);
+            expectedException.expectMessage("Cannot merge a party into itself");
+
+            // when
+            wrap(party).mergeInto(party);
+        }
+    }
+
+    public static class Remove extends PartyIntegTest {
+
+        @Inject
+        DomainObjectContainer container;
+        @Inject
+        CommunicationChannelOwnerLinks communicationChannelOwnerLinks;
+        @Inject
+        CommunicationChannelOwnerLinkLoader communicationChannelOwnerLinkLoader;
+
+        private RecreateParties fs;
+        private Party party;
+
+        @Before
+        public void setUp() throws Exception {
+
+            // given
+            fs = new RecreateParties();
+            fixtureScripts.runFixtureScript(fs, null);
+            nextTransaction();
+
+            party = fs.getParties().get(0);
+
+            wrap(party).addCommunicationChannel("0207 123 4567");
+            nextTransaction();
+        }
+
+        @Test
+        public void deletesLinks() throws Exception {
+
+            // given
+            final CommunicationChannel communicationChannel = party.getCommunicationChannels().get(0);
+            assertThat(communicationChannelOwnerLinks.findByCommunicationChannel(communicationChannel), is(notNullValue()));
+
+            // when
+            container.remove(party);
+            nextTransaction();
+
+            // then
+            assertThat(communicationChannelOwnerLinks.findByCommunicationChannel(communicationChannel), is(nullValue()));
+        }
+
+        @Test
+        public void invalidatesLoader() throws Exception {
+
+            // given
+            assertThat(communicationChannelOwnerLinkLoader.load(party).size(), is(1));
+
+            // when
+            container.remove(party);
+            container.flush();
+
+            // then
+            assertThat(communicationChannelOwnerLinkLoader.load(party).size(), is(0));
+        }
+
+        @Test
+        public void recordsTime() throws Exception {
+
+            // given
+            linkMetrics.reset();
+
+            // when
+            container.remove(party);
+            container.flush();
+
+            // then
+            assertThat(timerCount(PolymorphicAssociationLinkMetrics.Operation.DELETE_BY_POLYMORPHIC_REFERENCE), is(1L));
+        }
+    }
+
 }
\ No newline at end of file
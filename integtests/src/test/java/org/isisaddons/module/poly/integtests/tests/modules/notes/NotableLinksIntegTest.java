@@ -0,0 +1,322 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.integtests.tests.modules.notes;
+
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkRepository;
+import org.isisaddons.module.poly.dom.PolymorphicObjectType;
+import org.isisaddons.module.poly.dom.PolymorphicObjectTypeDictionary;
+import org.isisaddons.module.poly.fixture.dom.modules.notes.Notable;
+import org.isisaddons.module.poly.fixture.dom.modules.notes.NotableContributions;
+import org.isisaddons.module.poly.fixture.dom.modules.notes.NotableLink;
+import org.isisaddons.module.poly.fixture.dom.modules.notes.NotableLinks;
+import org.isisaddons.module.poly.fixture.dom.modules.notes.Note;
+import org.isisaddons.module.poly.fixture.dom.modules.party.Party;
+import org.isisaddons.module.poly.fixture.scripts.scenarios.RecreateParties;
+import org.isisaddons.module.poly.integtests.sql.StatementBudget;
+import org.isisaddons.module.poly.integtests.tests.PolyAppIntegTest;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.inject.Inject;
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.apache.isis.applib.DomainObjectContainer;
+import org.apache.isis.applib.fixturescripts.FixtureScripts;
+import org.apache.isis.applib.services.bookmark.Bookmark;
+import org.apache.isis.applib.services.bookmark.BookmarkService2;
+import org.apache.isis.applib.services.jdosupport.IsisJdoSupport;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class NotableLinksIntegTest extends PolyAppIntegTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Rule
+    public StatementBudget statements = new StatementBudget();
+
+    @Inject
+    FixtureScripts fixtureScripts;
+    @Inject
+    NotableContributions notableContributions;
+    @Inject
+    NotableLinks notableLinks;
+    @Inject
+    PolymorphicObjectTypeDictionary objectTypeDictionary;
+    @Inject
+    BookmarkService2 bookmarkService;
+    @Inject
+    IsisJdoSupport isisJdoSupport;
+    @Inject
+    DomainObjectContainer container;
+
+    RecreateParties fs;
+
+    @Before
+    public void setUp() throws Exception {
+        fs = new RecreateParties();
+        fixtureScripts.runFixtureScript(fs, null);
+        nextTransaction();
+    }
+
+    public static class Dictionary extends NotableLinksIntegTest {
+
+        @Test
+        public void insertedInItsOwnTransaction() throws Exception {
+
+            // given
+            final String objectType = "test." + UUID.randomUUID();
+
+            // when
+            final int code = objectTypeDictionary.codeFor(objectType);
+
+            // then visible elsewhere, even though the current transaction has not committed
+            final PersistenceManager persistenceManager =
+                    isisJdoSupport.getJdoPersistenceManager().getPersistenceManagerFactory().getPersistenceManager();
+            try {
+                final Query query = persistenceManager.newQuery(PolymorphicObjectType.class, "objectType == :objectType");
+                final Collection<?> entries = (Collection<?>) query.execute(objectType);
+                assertThat(entries.size(), is(1));
+                assertThat(((PolymorphicObjectType) entries.iterator().next()).getCode(), is(code));
+            } finally {
+                persistenceManager.close();
+            }
+            assertThat(objectTypeDictionary.codeFor(objectType), is(code));
+        }
+
+        @Test
+        public void reloaded() throws Exception {
+
+            // given
+            final String objectType = "test." + UUID.randomUUID();
+            final int code = objectTypeDictionary.codeFor(objectType);
+
+            // when
+            final PolymorphicObjectTypeDictionary reloaded =
+                    container.injectServicesInto(new PolymorphicObjectTypeDictionary());
+
+            // then
+            assertThat(reloaded.objectTypeFor(code), is(objectType));
+            assertThat(reloaded.codeIfAnyFor(objectType), is(code));
+        }
+
+        @Test
+        public void whenAbsent() throws Exception {
+
+            // given
+            final String objectType = "test." + UUID.randomUUID();
+            assertThat(objectTypeDictionary.codeIfAnyFor(objectType), is(nullValue()));
+
+            // when
+            statements.start();
+            final Integer code = objectTypeDictionary.codeIfAnyFor(objectType);
+
+            // then not re-read
+            statements.assertAtMost(0);
+            assertThat(code, is(nullValue()));
+
+            // and when subsequently added
+            final int added = objectTypeDictionary.codeFor(objectType);
+
+            // then
+            assertThat(objectTypeDictionary.codeIfAnyFor(objectType), is(added));
+        }
+    }
+
+    public static class Finders extends NotableLinksIntegTest {
+
+        Party party;
+        Note note;
+
+        @Before
+        public void setUpNotes() throws Exception {
+            party = fs.getParties().get(0);
+            wrap(notableContributions).addNote(party, "Prefers email");
+            wrap(notableContributions).addNote(fs.getParties().get(1), "Prefers phone");
+            nextTransaction();
+
+            note = notableLinks.findByNotable(party).get(0).getNote();
+        }
+
+        @Test
+        public void storedCompactly() throws Exception {
+
+            // when
+            final NotableLink link = notableLinks.findByNote(note);
+
+            // then
+            final Bookmark bookmark = bookmarkService.bookmarkFor(party);
+            assertThat(link.getNotableObjectTypeCode(), is(objectTypeDictionary.codeIfAnyFor(bookmark.getObjectType())));
+            assertThat(link.getNotableIdentifierNumber(), is(Long.valueOf(bookmark.getIdentifier())));
+            assertThat(link.getNotableIdentifierString(), is(nullValue()));
+            assertThat(link.getPolymorphicObjectType(), is(bookmark.getObjectType()));
+            assertThat(link.getPolymorphicIdentifier(), is(bookmark.getIdentifier()));
+            assertThat(link.getPolymorphicReference(), is((Notable) party));
+        }
+
+        @Test
+        public void byPolymorphicReference() throws Exception {
+
+            // when
+            final List<NotableLink> links = notableLinks.findByNotable(party);
+
+            // then
+            assertThat(links.size(), is(1));
+            assertThat(links.get(0).getNote().getText(), is("Prefers email"));
+            assertThat(notableLinks.findByNotable(fs.getParties().get(2)).size(), is(0));
+        }
+
+        @Test
+        public void bySubjectAndPolymorphicReference() throws Exception {
+
+            assertThat(notableLinks.findBySubjectAndPolymorphicReference(note, party), is(notNullValue()));
+            assertThat(notableLinks.findBySubjectAndPolymorphicReference(note, fs.getParties().get(1)), is(nullValue()));
+        }
+
+        @Test
+        public void byPolymorphicReferences() throws Exception {
+
+            // when
+            final Map<Notable, List<NotableLink>> linksByNotable =
+                    notableLinks.findByPolymorphicReferences(fs.getParties());
+
+            // then
+            assertThat(linksByNotable.size(), is(3));
+            assertThat(linksByNotable.get(fs.getParties().get(0)).size(), is(1));
+            assertThat(linksByNotable.get(fs.getParties().get(1)).size(), is(1));
+            assertThat(linksByNotable.get(fs.getParties().get(2)).size(), is(0));
+        }
+
+        @Test
+        public void notesOf() throws Exception {
+
+            // when
+            final List<Note> notes = wrap(notableContributions).notes(party);
+
+            // then
+            assertThat(notes.size(), is(1));
+            assertThat(notes.get(0), is(note));
+        }
+    }
+
+    public static class CascadeDelete extends NotableLinksIntegTest {
+
+        Party party;
+        Note note;
+
+        @Before
+        public void setUpNotes() throws Exception {
+            party = fs.getParties().get(0);
+            wrap(notableContributions).addNote(party, "Prefers email");
+            wrap(notableContributions).addNote(fs.getParties().get(1), "Prefers phone");
+            nextTransaction();
+
+            note = notableLinks.findByNotable(party).get(0).getNote();
+        }
+
+        @Test
+        public void deletesLinksByQuery() throws Exception {
+
+            // given
+            assertThat(notableLinks.findByNote(note), is(notNullValue()));
+
+            // when (the links are deleted by JDOQL, there being no native SQL, from within the flush)
+            container.remove(party);
+            nextTransaction();
+
+            // then
+            assertThat(notableLinks.findByNote(note), is(nullValue()));
+            assertThat(notableLinks.findByNotable(fs.getParties().get(1)).size(), is(1));
+        }
+    }
+
+    public static class Reparent extends NotableLinksIntegTest {
+
+        Party party;
+        Party survivor;
+        Note noteOfSurvivor;
+
+        @Before
+        public void setUpNotes() throws Exception {
+            party = fs.getParties().get(0);
+            survivor = fs.getParties().get(1);
+            wrap(notableContributions).addNote(party, "Prefers email");
+            wrap(notableContributions).addNote(survivor, "Prefers phone");
+            nextTransaction();
+
+            // a subject linked to both
+            noteOfSurvivor = notableLinks.findByNotable(survivor).get(0).getNote();
+            notableLinks.createLink(noteOfSurvivor, party);
+            nextTransaction();
+        }
+
+        @Test
+        public void movesLinksByQuery() throws Exception {
+
+            // when (the links are found and updated, there being no native SQL)
+            final long reparented = notableLinks.reparent(party, survivor);
+
+            // then (the link of the note already linked to the survivor is deleted rather than moved)
+            assertThat(reparented, is(1L));
+
+            nextTransaction();
+
+            assertThat(notableLinks.findByNotable(party).size(), is(0));
+            final List<NotableLink> links = notableLinks.findByNotable(survivor);
+            assertThat(links.size(), is(2));
+            assertThat(notableLinks.findBySubjectAndPolymorphicReference(noteOfSurvivor, survivor), is(notNullValue()));
+            assertThat(notableLinks.notesOf(survivor).size(), is(2));
+        }
+    }
+
+    public static class UseNativeSql extends NotableLinksIntegTest {
+
+        // (not a subclass of NotableLinks, which would inherit its @DomainService annotation)
+        static class NativeNotableLinks
+                extends PolymorphicAssociationLinkRepository<Note, Notable, NotableLink, NotableLink.InstantiateEvent> {
+            NativeNotableLinks() {
+                super(Note.class, Notable.class, NotableLink.class, NotableLink.InstantiateEvent.class,
+                        "note", "notableObjectTypeCode", "notableIdentifierNumber", "notableIdentifierString");
+                useNativeSql("NotableLink", "id", "note_id", "notableObjectTypeCode", "notableIdentifierNumber");
+            }
+        }
+
+        @Test
+        public void notSupported() throws Exception {
+
+            // then
+            expectedException.expect(IllegalStateException.class);
+            expectedException.expectMessage("Native SQL is not supported");
+
+            // when
+            new NativeNotableLinks();
+        }
+    }
+
+}
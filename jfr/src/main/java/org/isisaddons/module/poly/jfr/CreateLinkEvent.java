@@ -0,0 +1,44 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(CreateLinkEvent.NAME)
+@Label("Create Link")
+@Description("A link created (PolymorphicAssociationLink.Factory#createLink, flushed if the polymorphic reference "
+        + "was not yet persistent, or #createOrGet, always flushed)")
+public final class CreateLinkEvent extends LinkEvent {
+
+    public static final String NAME = "org.isisaddons.module.poly.CreateLink";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Flushed")
+    boolean flushed;
+
+    @Override
+    public void flushed() {
+        flushed = true;
+    }
+
+}
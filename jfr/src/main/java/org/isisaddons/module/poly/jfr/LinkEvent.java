@@ -0,0 +1,61 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkTracer;
+
+/**
+ * Common fields of the poly module's events, each of which is also the
+ * {@link PolymorphicAssociationLinkTracer.Span span} of the operation it records.
+ *
+ * <p>
+ *     The duration of the event is that of the operation; the event is only committed (once ended) if it exceeds the
+ *     threshold of the recording's settings.
+ * </p>
+ */
+@Category({ "Isis Addons", "Poly" })
+abstract class LinkEvent extends Event implements PolymorphicAssociationLinkTracer.Span {
+
+    @Label("Link Type")
+    Class<?> linkType;
+
+    @Label("Polymorphic Object Type")
+    String polymorphicObjectType;
+
+    /**
+     * Only {@link CreateLinkEvent} records whether the transaction was flushed.
+     */
+    @Override
+    public void flushed() {
+    }
+
+    @Override
+    public void ended(final String polymorphicObjectType) {
+        end();
+        if(shouldCommit()) {
+            this.polymorphicObjectType = polymorphicObjectType;
+            commit();
+        }
+    }
+
+}
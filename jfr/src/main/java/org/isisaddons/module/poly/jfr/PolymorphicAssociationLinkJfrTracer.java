@@ -0,0 +1,150 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.isisaddons.module.poly.jfr;
+
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.isis.applib.annotation.DomainService;
+import org.apache.isis.applib.annotation.NatureOfService;
+import org.apache.isis.applib.annotation.Programmatic;
+
+import org.isisaddons.module.poly.dom.PolymorphicAssociationLinkTracer;
+
+/**
+ * Implementation of {@link PolymorphicAssociationLinkTracer} that emits a Java Flight Recorder event for each
+ * operation: {@link SupportsLinkEvent}, {@link CreateLinkEvent}, {@link GetPolymorphicReferenceEvent} or
+ * {@link FindLinksEvent}.
+ *
+ * <p>
+ *     No event is instantiated unless a recording is running with that event enabled, so the cost otherwise is that
+ *     of checking a flag.  The events are disabled by default; the <tt>poly.jfc</tt> settings file (packaged
+ *     alongside this class) enables them, with thresholds.  Set {@value #KEY_ENABLED} to <tt>false</tt> to disable
+ *     altogether.
+ * </p>
+ */
+@DomainService(
+        nature = NatureOfService.DOMAIN
+)
+public class PolymorphicAssociationLinkJfrTracer implements PolymorphicAssociationLinkTracer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PolymorphicAssociationLinkJfrTracer.class);
+
+    public static final String KEY_ENABLED = "isis.poly.jfr.enabled";
+
+    private volatile boolean enabled;
+
+    private EventType supportsLinkEventType;
+    private EventType createLinkEventType;
+    private EventType getPolymorphicReferenceEventType;
+    private EventType findLinksEventType;
+
+    //region > init, shutdown
+    @PostConstruct
+    @Programmatic
+    public void init(final Map<String, String> properties) {
+        final String enabledStr = properties.get(KEY_ENABLED);
+        if(enabledStr != null && !Boolean.parseBoolean(enabledStr.trim())) {
+            return;
+        }
+        try {
+            // registered up front, so that the events appear in recordings (and can be configured) before first use
+            supportsLinkEventType = register(SupportsLinkEvent.class);
+            createLinkEventType = register(CreateLinkEvent.class);
+            getPolymorphicReferenceEventType = register(GetPolymorphicReferenceEvent.class);
+            findLinksEventType = register(FindLinksEvent.class);
+            enabled = true;
+        } catch(final RuntimeException ex) {
+            LOG.warn("Unable to register Flight Recorder events; poly module operations will not be recorded", ex);
+        }
+    }
+
+    private static EventType register(final Class<? extends LinkEvent> eventClass) {
+        FlightRecorder.register(eventClass);
+        return EventType.getEventType(eventClass);
+    }
+
+    @PreDestroy
+    @Programmatic
+    public void shutdown() {
+        if(!enabled) {
+            return;
+        }
+        enabled = false;
+        FlightRecorder.unregister(SupportsLinkEvent.class);
+        FlightRecorder.unregister(CreateLinkEvent.class);
+        FlightRecorder.unregister(GetPolymorphicReferenceEvent.class);
+        FlightRecorder.unregister(FindLinksEvent.class);
+    }
+    //endregion
+
+    //region > start
+    @Programmatic
+    @Override
+    public Span start(final Operation operation, final Class<?> linkType) {
+        if(!enabled) {
+            return null;
+        }
+        final LinkEvent event;
+        switch (operation) {
+        case SUPPORTS_LINK:
+            if(!supportsLinkEventType.isEnabled()) {
+                return null;
+            }
+            event = new SupportsLinkEvent();
+            break;
+        case CREATE_LINK:
+        case CREATE_OR_GET:
+            if(!createLinkEventType.isEnabled()) {
+                return null;
+            }
+            final CreateLinkEvent createLinkEvent = new CreateLinkEvent();
+            createLinkEvent.operation = operation.getName();
+            event = createLinkEvent;
+            break;
+        case GET_POLYMORPHIC_REFERENCE:
+            if(!getPolymorphicReferenceEventType.isEnabled()) {
+                return null;
+            }
+            event = new GetPolymorphicReferenceEvent();
+            break;
+        default:
+            if(!findLinksEventType.isEnabled()) {
+                return null;
+            }
+            final FindLinksEvent findLinksEvent = new FindLinksEvent();
+            findLinksEvent.finder = operation.getName();
+            event = findLinksEvent;
+            break;
+        }
+        event.linkType = linkType;
+        event.begin();
+        return event;
+    }
+    //endregion
+
+}